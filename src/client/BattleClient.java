@@ -26,12 +26,21 @@ public class BattleClient extends MessageSource implements MessageListener {
    /** The username of the client */
    private String username;
 
+   /** The room the client joins, or null for the server's default room */
+   private String room;
+
    /** Tells is the client is ready to connect to the server */
    private boolean ready;
 
    /** Connection agent used to communicate with the sever. */
    private ConnectionAgent agent;
 
+   /** True if the connection agent should run on a virtual thread. */
+   private boolean virtual;
+
+   /** True if the client should speak the binary protocol. */
+   private boolean binary;
+
    /**
     * Constructor for a BattleClient
     *
@@ -40,10 +49,55 @@ public class BattleClient extends MessageSource implements MessageListener {
     * @param username the username of the client player
     */
    public BattleClient(InetAddress hostname, int port, String username) {
+      this(hostname, port, username, false);
+   }
+
+   /**
+    * Constructor for a BattleClient
+    *
+    * @param hostname the server the client is trying to connect to
+    * @param port the port used to try to connect to the server
+    * @param username the username of the client player
+    * @param virtual true to read from the server on a virtual thread
+    */
+   public BattleClient(InetAddress hostname, int port, String username,
+                       boolean virtual) {
+      this(hostname, port, username, null, virtual);
+   }
+
+   /**
+    * Constructor for a BattleClient
+    *
+    * @param hostname the server the client is trying to connect to
+    * @param port the port used to try to connect to the server
+    * @param username the username of the client player
+    * @param room the room to join, or null for the server's default room
+    * @param virtual true to read from the server on a virtual thread
+    */
+   public BattleClient(InetAddress hostname, int port, String username,
+                       String room, boolean virtual) {
+      this(hostname, port, username, room, virtual, false);
+   }
+
+   /**
+    * Constructor for a BattleClient
+    *
+    * @param hostname the server the client is trying to connect to
+    * @param port the port used to try to connect to the server
+    * @param username the username of the client player
+    * @param room the room to join, or null for the server's default room
+    * @param virtual true to read from the server on a virtual thread
+    * @param binary true to speak the binary protocol with the server
+    */
+   public BattleClient(InetAddress hostname, int port, String username,
+                       String room, boolean virtual, boolean binary) {
       this.host = hostname;
       this.port = port;
       this.username = username;
+      this.room = room;
       this.ready = true;
+      this.virtual = virtual;
+      this.binary = binary;
    }
 
    /**
@@ -53,11 +107,14 @@ public class BattleClient extends MessageSource implements MessageListener {
     */
    public void connect() throws IOException {
       Socket socket = new Socket(this.host, this.port);
-      this.agent = new ConnectionAgent(socket);
-      Thread thread = new Thread(this.agent);
+      this.agent = new ConnectionAgent(socket, this.binary);
       this.agent.addMessageListener(this);
-      thread.start();
-      this.send("/join " + this.username);
+      this.agent.start(this.virtual);
+      if (this.room == null) {
+         this.send("/join " + this.username);
+      } else {
+         this.send("/join " + this.username + " " + this.room);
+      }
    }
 
    /**
@@ -88,6 +145,7 @@ public class BattleClient extends MessageSource implements MessageListener {
     */
    public void send(String message) {
       this.agent.sendMessage(message);
+      this.agent.flush();
    }
 
    /**
@@ -1,5 +1,7 @@
 package client;
 
+import common.VirtualThreads;
+
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -23,14 +25,33 @@ public class BattleClientDriver {
    /** The index of the command line argument specifying the username. */
    private final static int NAME_ARG = 2;
 
+   /** The index of the first optional argument: a room, a thread mode or a
+    *  protocol. */
+   private final static int OPTION_ARG = 3;
+
+   /** The thread mode that reads from the server on a platform thread. */
+   private final static String THREAD_MODE = "thread";
+
+   /** The thread mode that reads from the server on a virtual thread. */
+   private final static String VIRTUAL_MODE = "virtual";
+
+   /** The protocol that sends newline-terminated text. */
+   private final static String TEXT_PROTOCOL = "text";
+
+   /** The protocol that sends compact binary frames. */
+   private final static String BINARY_PROTOCOL = "binary";
+
    /**
     * Main method that functions as an entry point to the program.
     *
-    * @param args Command line arguments to the program. There must be exactly
-    *             3 arguments. The first argument specifies the hostname or IP
-    *             address of a remote host running a BattleServer. The second
-    *             argument is the port number of that server. The third
-    *             argument is the username a client wishes to use.
+    * @param args Command line arguments to the program. There must be
+    *             between 3 and 6 arguments. The first argument specifies the
+    *             hostname or IP address of a remote host running a
+    *             BattleServer. The second argument is the port number of that
+    *             server. The third argument is the username a client wishes to
+    *             use. The remaining arguments, if present, are the room to
+    *             join, either 'thread' or 'virtual', and either 'text' or
+    *             'binary'.
     */
    public static void main(String[] args) {
       BattleClientDriver driver = new BattleClientDriver();
@@ -48,9 +69,23 @@ public class BattleClientDriver {
       InetAddress hostname = this.validateHost(args[HOST_ARG]);
       int port = Integer.parseInt(args[PORT_ARG]);
       String username = args[NAME_ARG];
+      String room = null;
+      boolean virtual = false;
+      boolean binary = false;
+      for (int i = OPTION_ARG; i < args.length; i++) {
+         if (args[i].equalsIgnoreCase(VIRTUAL_MODE)) {
+            virtual = true;
+         } else if (args[i].equalsIgnoreCase(BINARY_PROTOCOL)) {
+            binary = true;
+         } else if (!args[i].equalsIgnoreCase(THREAD_MODE)
+                    && !args[i].equalsIgnoreCase(TEXT_PROTOCOL)) {
+            room = args[i];
+         }
+      }
 
       // Start client and loop for input.
-      BattleClient bc = makeClient(hostname, port, username);
+      BattleClient bc = makeClient(hostname, port, username, room, virtual,
+                                   binary);
       this.getInput(bc);
    }
 
@@ -81,12 +116,17 @@ public class BattleClientDriver {
     * @param hostname the server the client is trying to connect to
     * @param port the port used to try to connect to the server
     * @param username the username of the client player
+    * @param room the room to join, or null for the server's default room
+    * @param virtual true to read from the server on a virtual thread
+    * @param binary true to speak the binary protocol with the server
     * @return A client.
     */
    private BattleClient makeClient(InetAddress hostname, int port,
-                                   String username) {
+                                   String username, String room,
+                                   boolean virtual, boolean binary) {
       var outStream = new PrintStreamMessageListener(System.out);
-      BattleClient bc = new BattleClient(hostname, port, username);
+      BattleClient bc = new BattleClient(hostname, port, username, room,
+                                         virtual, binary);
       bc.addMessageListener(outStream);
       try {
          bc.connect();
@@ -106,8 +146,11 @@ public class BattleClientDriver {
    private void validateArgs(String[] args) {
       final String PORT_ERR_MSG = "Invalid port number. Should be [1024-65535]";
       final String NAME_ERR_MSG = "Enter a username smaller than 20 characters";
-      final int NUM_ARGS = 3;
-      if (args.length != NUM_ARGS) {
+      final String ROOM_ERR_MSG = "Enter a room name smaller than 20 characters";
+      final String VIRTUAL_ERR_MSG = "Virtual threads require Java 21";
+      final int MIN_ARGS = 3;
+      final int MAX_ARGS = 6;
+      if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
          this.usage();
       }
       if (!this.validatePort(args[PORT_ARG])) {
@@ -118,6 +161,32 @@ public class BattleClientDriver {
          System.err.println(NAME_ERR_MSG);
          System.exit(1);
       }
+      int numRooms = 0;
+      int numModes = 0;
+      int numProtocols = 0;
+      for (int i = OPTION_ARG; i < args.length; i++) {
+         if (args[i].equalsIgnoreCase(VIRTUAL_MODE)) {
+            numModes++;
+            if (!VirtualThreads.isSupported()) {
+               System.err.println(VIRTUAL_ERR_MSG);
+               System.exit(1);
+            }
+         } else if (args[i].equalsIgnoreCase(THREAD_MODE)) {
+            numModes++;
+         } else if (args[i].equalsIgnoreCase(TEXT_PROTOCOL)
+                    || args[i].equalsIgnoreCase(BINARY_PROTOCOL)) {
+            numProtocols++;
+         } else {
+            numRooms++;
+            if (!this.validateName(args[i])) {
+               System.err.println(ROOM_ERR_MSG);
+               System.exit(1);
+            }
+         }
+      }
+      if (numRooms > 1 || numModes > 1 || numProtocols > 1) {
+         this.usage();
+      }
    }
 
    /**
@@ -172,7 +241,8 @@ public class BattleClientDriver {
     */
    private void usage() {
       final String USG_MSG = "java client.BattleClientDriver " +
-                             "<host> <port> <username>";
+                             "<host> <port> <username> [room] " +
+                             "[thread|virtual] [text|binary]";
       System.err.println(USG_MSG);
       System.exit(1);
    }
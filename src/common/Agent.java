@@ -0,0 +1,165 @@
+package common;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An Agent is one end of a connection between a client and a server. It is a
+ * <code>MessageSource</code> that notifies its observers of every message
+ * received from the remote host, and it can send messages back to that host.
+ * Subclasses decide how the underlying connection is driven.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public abstract class Agent extends MessageSource {
+
+   /**
+    * True if sent messages wait for a flush so they can be written together.
+    * Run with -Dbattleship.coalesce=false to write every message at once, as
+    * a baseline for SendStats.
+    */
+   protected static final boolean COALESCE =
+           Boolean.parseBoolean(System.getProperty("battleship.coalesce", "true"));
+
+   /**
+    * The most messages that may wait for one client. Set it with
+    * -Dbattleship.outbox.limit.
+    */
+   protected static final int OUTBOX_LIMIT =
+           Integer.getInteger("battleship.outbox.limit", 1024);
+
+   /**
+    * What to do when a client's queue is full. Set it with
+    * -Dbattleship.overflow=drop|coalesce|disconnect.
+    */
+   protected static final OverflowPolicy OVERFLOW = overflowPolicy();
+
+   /** True once this agent has been disconnected for falling behind. */
+   private final AtomicBoolean disconnected = new AtomicBoolean(false);
+
+   /** True once every observer has been told this source has closed. */
+   private final AtomicBoolean hungUp = new AtomicBoolean(false);
+
+   /**
+    * Queues a message to be sent across the network. It is written at the
+    * next flush.
+    *
+    * @param message The message to be sent across the network.
+    */
+   public abstract void sendMessage(String message);
+
+   /**
+    * Queues a message that is being sent to many agents at once. By default
+    * it is sent like any other message; agents that can reuse the
+    * broadcast's encoded bytes do so instead.
+    *
+    * @param broadcast The message being broadcast.
+    */
+   public void sendBroadcast(Broadcast broadcast) {
+      this.sendMessage(broadcast.getMessage());
+   }
+
+   /**
+    * Writes every queued message to the network, with as few write calls as
+    * possible.
+    */
+   public abstract void flush();
+
+   /**
+    * Sends a window onto a grid across the network. By default the window is
+    * drawn and sent as a message; agents speaking the binary protocol send
+    * the cells. A newer view of the same player's grid may replace this one
+    * if the client falls behind.
+    *
+    * @param player The player whose grid it is.
+    * @param view The window onto the grid.
+    */
+   public void sendGrid(String player, GridView view) {
+      this.sendMessage(view.getText());
+   }
+
+   /**
+    * Tells the remote host the id of a player. Only the binary protocol names
+    * players by id, so by default nothing is sent.
+    *
+    * @param id The player's id.
+    * @param name The player's name.
+    */
+   public void sendPlayer(int id, String name) {
+   }
+
+   /**
+    * Indicates whether this agent speaks the binary protocol.
+    *
+    * @return True if this agent speaks the binary protocol. False otherwise.
+    */
+   public boolean isBinary() {
+      return false;
+   }
+
+   /**
+    * Indicates whether this agent is connected to a remote host.
+    *
+    * @return True if we are connected. False otherwise.
+    */
+   public abstract boolean isConnected();
+
+   /**
+    * Closes this connection once everything already queued has been written.
+    *
+    * @throws IOException if an error occurs while closing the connection.
+    */
+   public abstract void close() throws IOException;
+
+   /**
+    * Closes this connection at once, throwing away anything still queued.
+    */
+   protected abstract void abort();
+
+   /**
+    * Gives up on a client whose queue overflowed. The connection is aborted
+    * and every observer is told this source has closed, so the server can
+    * take the player out of its room.
+    */
+   protected void disconnect() {
+      if (this.disconnected.compareAndSet(false, true)) {
+         SendStats.recordDisconnected();
+         this.abort();
+         this.hangUp();
+      }
+   }
+
+   /**
+    * Tells every observer, once only, that this source has closed: the
+    * remote host hung up, the connection failed or the client was dropped.
+    * The server then takes the player out of its room.
+    */
+   protected void hangUp() {
+      if (this.hungUp.compareAndSet(false, true)) {
+         this.closeMessageSource();
+      }
+   }
+
+   /**
+    * Makes an empty outbound queue with the configured limit and policy.
+    *
+    * @return The new queue.
+    */
+   protected static Outbox newOutbox() {
+      return new Outbox(OUTBOX_LIMIT, OVERFLOW);
+   }
+
+   /**
+    * Reads the overflow policy from the system properties.
+    *
+    * @return The chosen policy, or DISCONNECT if none or an unknown one was
+    *         chosen.
+    */
+   private static OverflowPolicy overflowPolicy() {
+      OverflowPolicy policy = OverflowPolicy.getByName(
+              System.getProperty("battleship.overflow", "disconnect"));
+      return policy == null ? OverflowPolicy.DISCONNECT : policy;
+   }
+}
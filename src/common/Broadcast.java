@@ -0,0 +1,72 @@
+package common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message on its way to many agents at once. The message is encoded at
+ * most once for each protocol, into a read-only buffer, and every recipient
+ * is handed its own duplicate of that buffer. A duplicate shares the bytes
+ * and only has its own position, so a recipient costs no encoding and no
+ * copy.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Broadcast {
+
+   /** The message being broadcast. */
+   private String message;
+
+   /** The message as a line of text, once some text agent has needed it. */
+   private ByteBuffer text;
+
+   /** The message as a binary frame, once some binary agent has needed it. */
+   private ByteBuffer binary;
+
+   /**
+    * Constructor for a Broadcast.
+    *
+    * @param message The message to broadcast.
+    */
+   public Broadcast(String message) {
+      this.message = message;
+   }
+
+   /**
+    * Accessor for the message being broadcast.
+    *
+    * @return The message being broadcast.
+    */
+   public String getMessage() {
+      return this.message;
+   }
+
+   /**
+    * Returns a recipient's own view of the message as a line of text.
+    *
+    * @return A read-only buffer holding the encoded line.
+    */
+   public ByteBuffer asText() {
+      if (this.text == null) {
+         String line = this.message + System.lineSeparator();
+         this.text = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8))
+                               .asReadOnlyBuffer();
+      }
+      return this.text.duplicate();
+   }
+
+   /**
+    * Returns a recipient's own view of the message as a binary frame.
+    *
+    * @return A read-only buffer holding the encoded frame.
+    */
+   public ByteBuffer asBinary() {
+      if (this.binary == null) {
+         this.binary = ByteBuffer.wrap(Protocol.encodeMessage(this.message))
+                                 .asReadOnlyBuffer();
+      }
+      return this.binary.duplicate();
+   }
+}
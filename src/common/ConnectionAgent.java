@@ -1,52 +1,176 @@
 package common;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.util.Scanner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A ConnectionAgent facilitates communication between a client and a server
  * using the observer pattern. The ConnectionAgent acts as 'subject' while
  * the client and server each act as 'observers'.
  *
+ * Each agent has two threads: one reads from the socket and one writes to
+ * it. Sending only ever queues a message, so a client that stops reading
+ * blocks its own writer and nobody else.
+ *
  * @author Gatlin Cruz
  * @author Tommy Meek
  * @version December, 2020
  */
-public class ConnectionAgent extends MessageSource implements Runnable {
+public class ConnectionAgent extends Agent implements Runnable {
+
+   /** The size of the buffer used to read from the socket. */
+   private static final int BUFFER_SIZE = 4096;
 
    /** The socket used for communication with a remote host. */
    private Socket socket;
 
    /** Input stream to the agent. */
-   private Scanner in;
+   private InputStream in;
 
    /** Output stream from the agent. */
-   private PrintStream out;
+   private OutputStream out;
+
+   /** Messages waiting for the next flush. */
+   private Outbox outbox;
+
+   /** True while the writer has a flush to do. */
+   private AtomicBoolean writeRequested;
+
+   /** True once the connection should close after its last write. */
+   private volatile boolean closing;
 
    /** The thread in which this agent will run. */
    private Thread thread;
 
+   /** The thread that writes this agent's queued messages to the socket. */
+   private volatile Thread writer;
+
+   /** True if this agent speaks the binary protocol. */
+   private volatile boolean binary;
+
+   /** True if this agent asked for the binary protocol as a client. */
+   private boolean client;
+
+   /** The id of each player, as announced by a server over binary. */
+   private Map<String, Integer> roster;
+
    /**
-    * Constructor.
+    * Constructor. The agent speaks whichever protocol the remote host chooses
+    * with its first byte.
     *
     * @param socket The socket through which to communicate with a remote host.
     * @throws IOException if something goes wrong creating the socket.
     */
    public ConnectionAgent(Socket socket) throws IOException {
+      this(socket, false);
+   }
+
+   /**
+    * Constructor for the client end of a connection.
+    *
+    * @param socket The socket through which to communicate with a remote host.
+    * @param binary True to ask the server for the binary protocol.
+    * @throws IOException if something goes wrong creating the socket.
+    */
+   public ConnectionAgent(Socket socket, boolean binary) throws IOException {
       this.socket = socket;
-      this.out = new PrintStream(this.socket.getOutputStream());
-      this.in = new Scanner(this.socket.getInputStream());
+      this.out = this.socket.getOutputStream();
+      this.outbox = newOutbox();
+      this.writeRequested = new AtomicBoolean(false);
+      this.in = new BufferedInputStream(this.socket.getInputStream());
+      this.roster = new ConcurrentHashMap<>();
+      this.binary = binary;
+      this.client = binary;
+      if (binary) {
+         this.out.write(Protocol.HELLO);
+         this.out.flush();
+      }
    }
 
    /**
-    * Sends message across the network.
+    * Queues a message to be sent across the network at the next flush.
     *
     * @param message The message to be sent across the network.
     */
+   @Override
    public void sendMessage(String message) {
-      this.out.println(message);
+      if (!this.binary) {
+         String text = message + System.lineSeparator();
+         this.send(text.getBytes(StandardCharsets.UTF_8));
+      } else if (this.client) {
+         this.send(Protocol.encodeCommand(message, this.roster));
+      } else {
+         this.send(Protocol.encodeMessage(message));
+      }
+   }
+
+   /**
+    * Queues this agent's own view of a broadcast's encoded bytes.
+    *
+    * @param broadcast The message being broadcast.
+    */
+   @Override
+   public void sendBroadcast(Broadcast broadcast) {
+      if (this.client) {
+         this.sendMessage(broadcast.getMessage());
+      } else {
+         this.send(this.binary ? broadcast.asBinary() : broadcast.asText());
+      }
+   }
+
+   /**
+    * Wakes the writer to write every queued message to the socket. However
+    * many times this is called before the writer gets to it, everything is
+    * written together.
+    */
+   @Override
+   public void flush() {
+      if (this.writeRequested.compareAndSet(false, true)) {
+         LockSupport.unpark(this.writer);
+      }
+   }
+
+   /**
+    * Sends a grid across the network.
+    *
+    * @param player The player whose grid it is.
+    * @param view The window onto the grid.
+    */
+   @Override
+   public void sendGrid(String player, GridView view) {
+      this.send(this.binary ? view.asBinary() : view.asText(), player);
+   }
+
+   /**
+    * Tells the remote host the id of a player, if it speaks binary.
+    *
+    * @param id The player's id.
+    * @param name The player's name.
+    */
+   @Override
+   public void sendPlayer(int id, String name) {
+      if (this.binary) {
+         this.send(Protocol.encodePlayer(id, name));
+      }
+   }
+
+   /**
+    * Indicates whether this agent speaks the binary protocol.
+    *
+    * @return True if this agent speaks the binary protocol. False otherwise.
+    */
+   @Override
+   public boolean isBinary() {
+      return this.binary;
    }
 
    /**
@@ -54,31 +178,182 @@ public class ConnectionAgent extends MessageSource implements Runnable {
     *
     * @return True if we are connected. False otherwise.
     */
+   @Override
    public boolean isConnected() {
       return this.socket.isConnected();
    }
 
    /**
-    * Closes this connection.
+    * Closes this connection once the writer has written everything queued.
+    */
+   @Override
+   public void close() {
+      this.closing = true;
+      this.flush();
+   }
+
+   /**
+    * Closes the socket at once. A writer blocked on it gives up.
+    */
+   @Override
+   protected void abort() {
+      try {
+         this.socket.close();
+      } catch (IOException ioe) {
+         ioe.printStackTrace();
+      }
+   }
+
+   /**
+    * Starts this agent's reader and writer.
     *
-    * @throws IOException if an error occurs while closing the socket.
+    * @param virtual True to use virtual threads. False for platform threads.
     */
-   public void close() throws IOException {
-      this.socket.close();
+   public void start(boolean virtual) {
+      this.writer = VirtualThreads.start(this::write, virtual);
+      VirtualThreads.start(this, virtual);
    }
 
    /**
     * This agent will listen for messages from it's counterpart on a remote
     * host. When another agent whose socket is connected to this one's calls
     * its sendMessage method, that message will be received here. Once the
-    * message is received, all observers will be notified.
+    * message is received, all observers will be notified. When the
+    * connection ends, they are told this source has closed.
     */
    @Override
    public void run() {
       this.thread = Thread.currentThread();
-      while (!this.thread.isInterrupted() && in.hasNextLine()) {
-         String command = in.nextLine();
-         this.notifyReceipt(command);
+      try {
+         if (!this.binary) {
+            this.binary = this.readHello();
+         }
+         if (this.binary) {
+            this.readFrames();
+         } else {
+            this.readLines();
+         }
+      } catch (IOException | RuntimeException e) {
+         // The connection failed or sent a malformed frame. Give up on it.
+      }
+      this.close();
+      this.hangUp();
+   }
+
+   /**
+    * Waits for flushes and writes everything queued to the socket, until
+    * this agent is closed or the socket fails. Runs in the writer thread.
+    */
+   private void write() {
+      try {
+         while (!this.socket.isClosed()) {
+            if (this.writeRequested.getAndSet(false)) {
+               this.outbox.writeTo(this.out);
+            } else if (this.closing) {
+               break;
+            } else {
+               LockSupport.park(this);
+            }
+         }
+      } catch (IOException ioe) {
+         // The connection failed. Whatever is still queued goes with it.
+      }
+      this.abort();
+   }
+
+   /**
+    * Waits for the first byte from the remote host and consumes it if it asks
+    * for the binary protocol.
+    *
+    * @return True if the remote host asked for binary. False otherwise.
+    * @throws IOException if the first byte cannot be read.
+    */
+   private boolean readHello() throws IOException {
+      this.in.mark(1);
+      boolean hello = this.in.read() == (Protocol.HELLO & 0xFF);
+      if (!hello) {
+         this.in.reset();
+      }
+      return hello;
+   }
+
+   /**
+    * Notifies observers of every newline-terminated message. The socket is
+    * read in chunks into one reused buffer, and a last line without a
+    * newline is delivered when the connection ends.
+    *
+    * @throws IOException if the connection fails or a line is too long.
+    */
+   private void readLines() throws IOException {
+      LineDecoder lines = new LineDecoder();
+      byte[] chunk = new byte[BUFFER_SIZE];
+      ByteBuffer buffer = ByteBuffer.wrap(chunk);
+      int n;
+      while (!this.thread.isInterrupted() && (n = this.in.read(chunk)) >= 0) {
+         buffer.clear().limit(n);
+         String command;
+         while ((command = lines.next(buffer)) != null) {
+            this.notifyReceipt(command);
+         }
+      }
+      String last = lines.finish();
+      if (last != null) {
+         this.notifyReceipt(last);
+      }
+   }
+
+   /**
+    * Notifies observers of the text of every binary frame.
+    *
+    * @throws IOException if the connection fails or a frame is malformed.
+    */
+   private void readFrames() throws IOException {
+      ByteBuffer body;
+      while (!this.thread.isInterrupted()
+             && (body = Protocol.readFrame(this.in)) != null) {
+         String command = Protocol.decode(body, this.roster);
+         if (command != null) {
+            this.notifyReceipt(command);
+         }
+      }
+   }
+
+   /**
+    * Queues encoded bytes for the next flush, or writes them right away if
+    * messages are not being coalesced.
+    *
+    * @param bytes The encoded message.
+    */
+   private void send(byte[] bytes) {
+      this.send(ByteBuffer.wrap(bytes));
+   }
+
+   /**
+    * Queues encoded bytes for the next flush, or writes them right away if
+    * messages are not being coalesced.
+    *
+    * @param bytes The encoded message.
+    */
+   private void send(ByteBuffer bytes) {
+      this.send(bytes, null);
+   }
+
+   /**
+    * Queues encoded bytes for the next flush, or writes them right away if
+    * messages are not being coalesced. A client whose queue overflows may be
+    * disconnected.
+    *
+    * @param bytes The encoded message.
+    * @param key What the message is the latest state of, or null.
+    */
+   private void send(ByteBuffer bytes, Object key) {
+      if (this.socket.isClosed()) {
+         return;
+      }
+      if (!this.outbox.add(bytes, key)) {
+         this.disconnect();
+      } else if (!COALESCE) {
+         this.flush();
       }
    }
 }
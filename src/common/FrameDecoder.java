@@ -0,0 +1,72 @@
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Cuts binary protocol frames out of a stream of bytes that arrives in
+ * pieces of any size. Used by agents that read without blocking.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class FrameDecoder {
+
+   /** The length of the frame being read, or -1 while reading the length. */
+   private int length;
+
+   /** The part of the length varint read so far. */
+   private int partialLength;
+
+   /** How far into the length varint we are, in bits. */
+   private int shift;
+
+   /** The body of the frame being read. */
+   private ByteBuffer body;
+
+   /**
+    * Constructor for a FrameDecoder.
+    */
+   public FrameDecoder() {
+      this.length = -1;
+   }
+
+   /**
+    * Consumes bytes until one frame is complete or the input runs out.
+    *
+    * @param in The bytes that have arrived.
+    * @return The body of the completed frame, ready to read, or null if more
+    *         bytes are needed.
+    * @throws IOException if the frame length is out of range.
+    */
+   public ByteBuffer next(ByteBuffer in) throws IOException {
+      while (this.length < 0 && in.hasRemaining()) {
+         byte b = in.get();
+         this.partialLength |= (b & 0x7F) << this.shift;
+         this.shift += 7;
+         if ((b & 0x80) == 0 || this.shift >= 35) {
+            this.length = this.partialLength;
+            if (this.length <= 0 || this.length > Protocol.MAX_FRAME) {
+               throw new IOException("Bad frame length: " + this.length);
+            }
+            this.body = ByteBuffer.allocate(this.length);
+         }
+      }
+      if (this.length < 0) {
+         return null;
+      }
+      while (this.body.hasRemaining() && in.hasRemaining()) {
+         this.body.put(in.get());
+      }
+      if (this.body.hasRemaining()) {
+         return null;
+      }
+      ByteBuffer frame = this.body.flip();
+      this.length = -1;
+      this.partialLength = 0;
+      this.shift = 0;
+      this.body = null;
+      return frame;
+   }
+}
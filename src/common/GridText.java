@@ -0,0 +1,61 @@
+package common;
+
+/**
+ * Draws a Battleship grid as text. The grid is given as one symbol per cell,
+ * row by row, so the server and a client receiving the cells in binary form
+ * draw exactly the same picture.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class GridText {
+
+   /**
+    * Private constructor. This class only has static methods.
+    */
+   private GridText() {
+   }
+
+   /**
+    * Builds a String representing a grid that may be printed to the console.
+    *
+    * @param size The size of the square grid.
+    * @param cells The symbol in each cell, row by row.
+    * @return A String representation of the grid.
+    */
+   public static String render(int size, byte[] cells) {
+      return render(new GridView(0, 0, size, size, cells));
+   }
+
+   /**
+    * Builds a String representing a window onto a grid. Rows and columns are
+    * numbered as they are on the whole grid, and row numbers are padded to
+    * the width of the largest one.
+    *
+    * @param view The window to draw.
+    * @return A String representation of the window.
+    */
+   public static String render(GridView view) {
+      int rows = view.getRows();
+      int cols = view.getCols();
+      byte[] cells = view.getCells();
+      int width = String.valueOf(view.getTop() + rows - 1).length();
+      StringBuilder str = new StringBuilder(" ".repeat(width));
+      // Top row numbering all the columns of the window.
+      for (int j = 0; j < cols; j++) {
+         str.append(String.format("%4d", view.getLeft() + j));
+      }
+      String divider = "\n" + " ".repeat(width + 1) + "+" + "---+".repeat(cols)
+                       + "\n";
+      str.append(divider);
+      for (int i = 0; i < rows; i++) {
+         str.append(String.format("%" + width + "d |", view.getTop() + i));
+         for (int j = 0; j < cols; j++) {
+            str.append(" ").append((char) cells[i * cols + j]).append(" |");
+         }
+         str.append(divider);
+      }
+      return str.toString();
+   }
+}
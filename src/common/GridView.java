@@ -0,0 +1,154 @@
+package common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A rectangular window onto a Battleship grid: where it starts, how big it
+ * is and the symbol in each of its cells. A small grid is shown whole, as a
+ * window starting at 0, 0. A large one is shown a window at a time, so
+ * nothing ever has to hold a picture of the whole board. A GridView never
+ * changes after it is made, so it is drawn and encoded at most once however
+ * many agents it is sent to.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class GridView {
+
+   /** The row of the grid at the top of the window. */
+   private int top;
+
+   /** The column of the grid at the left of the window. */
+   private int left;
+
+   /** The number of rows in the window. */
+   private int rows;
+
+   /** The number of columns in the window. */
+   private int cols;
+
+   /** The symbol in each cell of the window, row by row. */
+   private byte[] cells;
+
+   /** The window drawn as text, once something has needed it. */
+   private String text;
+
+   /** The drawing as a line of text, once some text agent has needed it. */
+   private ByteBuffer line;
+
+   /** The window as a binary frame, once some binary agent has needed it. */
+   private ByteBuffer binary;
+
+   /**
+    * Constructor for a GridView.
+    *
+    * @param top The row of the grid at the top of the window.
+    * @param left The column of the grid at the left of the window.
+    * @param rows The number of rows in the window.
+    * @param cols The number of columns in the window.
+    * @param cells The symbol in each cell of the window, row by row.
+    */
+   public GridView(int top, int left, int rows, int cols, byte[] cells) {
+      this.top = top;
+      this.left = left;
+      this.rows = rows;
+      this.cols = cols;
+      this.cells = cells;
+   }
+
+   /**
+    * Accessor for the row at the top of the window.
+    *
+    * @return The row of the grid at the top of the window.
+    */
+   public int getTop() {
+      return this.top;
+   }
+
+   /**
+    * Accessor for the column at the left of the window.
+    *
+    * @return The column of the grid at the left of the window.
+    */
+   public int getLeft() {
+      return this.left;
+   }
+
+   /**
+    * Accessor for the number of rows in the window.
+    *
+    * @return The number of rows.
+    */
+   public int getRows() {
+      return this.rows;
+   }
+
+   /**
+    * Accessor for the number of columns in the window.
+    *
+    * @return The number of columns.
+    */
+   public int getCols() {
+      return this.cols;
+   }
+
+   /**
+    * Accessor for the symbol in each cell of the window.
+    *
+    * @return The symbols, row by row.
+    */
+   public byte[] getCells() {
+      return this.cells;
+   }
+
+   /**
+    * Indicates whether the window is a square starting at 0, 0, which draws
+    * exactly like a whole grid of that size.
+    *
+    * @return True if the window looks like a whole grid. False otherwise.
+    */
+   public boolean isSquareAtOrigin() {
+      return this.top == 0 && this.left == 0 && this.rows == this.cols;
+   }
+
+   /**
+    * Returns the window drawn as text.
+    *
+    * @return A String representation of the window.
+    */
+   public String getText() {
+      if (this.text == null) {
+         this.text = GridText.render(this);
+      }
+      return this.text;
+   }
+
+   /**
+    * Returns a recipient's own view of the drawing as a line of text.
+    *
+    * @return A read-only buffer holding the encoded drawing.
+    */
+   public ByteBuffer asText() {
+      if (this.line == null) {
+         String drawing = this.getText() + System.lineSeparator();
+         this.line = ByteBuffer.wrap(drawing.getBytes(StandardCharsets.UTF_8))
+                               .asReadOnlyBuffer();
+      }
+      return this.line.duplicate();
+   }
+
+   /**
+    * Returns a recipient's own view of the window as a binary frame.
+    *
+    * @return A read-only buffer holding the encoded frame.
+    */
+   public ByteBuffer asBinary() {
+      if (this.binary == null) {
+         this.binary = ByteBuffer.wrap(Protocol.encodeView(this))
+                                 .asReadOnlyBuffer();
+      }
+      return this.binary.duplicate();
+   }
+}
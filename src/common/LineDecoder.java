@@ -0,0 +1,137 @@
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cuts newline-terminated commands out of a stream of bytes that arrives in
+ * pieces of any size. The bytes of a line are gathered in one array that is
+ * reused for every line, so the only thing made per command is the String
+ * handed to the observers. A carriage return before the newline is dropped.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class LineDecoder {
+
+   /** The starting capacity of the line array. */
+   private static final int INITIAL_CAPACITY = 128;
+
+   /** The longest line either side will accept. */
+   private static final int MAX_LINE = Protocol.MAX_FRAME;
+
+   /** The bytes of the line that has not been terminated yet. */
+   private byte[] line;
+
+   /** How many bytes of the line have arrived. */
+   private int length;
+
+   /**
+    * Constructor for a LineDecoder.
+    */
+   public LineDecoder() {
+      this.line = new byte[INITIAL_CAPACITY];
+   }
+
+   /**
+    * Consumes bytes until one line is complete or the input runs out.
+    *
+    * @param in The bytes that have arrived.
+    * @return The completed line, without its terminator, or null if more
+    *         bytes are needed.
+    * @throws IOException if the line is too long.
+    */
+   public String next(ByteBuffer in) throws IOException {
+      if (!in.hasArray()) {
+         while (in.hasRemaining()) {
+            byte b = in.get();
+            if (b == '\n') {
+               return this.take();
+            }
+            this.append(b);
+         }
+         return null;
+      }
+      byte[] bytes = in.array();
+      int start = in.arrayOffset() + in.position();
+      int end = in.arrayOffset() + in.limit();
+      int newline = start;
+      while (newline < end && bytes[newline] != '\n') {
+         newline++;
+      }
+      this.append(bytes, start, newline - start);
+      if (newline == end) {
+         in.position(in.limit());
+         return null;
+      }
+      in.position(newline + 1 - in.arrayOffset());
+      return this.take();
+   }
+
+   /**
+    * Hands back whatever is left once the input has ended.
+    *
+    * @return The unterminated last line, or null if there is none.
+    */
+   public String finish() {
+      return this.length == 0 ? null : this.take();
+   }
+
+   /**
+    * Turns the gathered bytes into a line and starts a new one.
+    *
+    * @return The line, without a trailing carriage return.
+    */
+   private String take() {
+      int end = this.length;
+      if (end > 0 && this.line[end - 1] == '\r') {
+         end--;
+      }
+      this.length = 0;
+      return new String(this.line, 0, end, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Adds one byte to the line.
+    *
+    * @param b The byte to add.
+    * @throws IOException if the line is too long.
+    */
+   private void append(byte b) throws IOException {
+      this.ensureCapacity(this.length + 1);
+      this.line[this.length++] = b;
+   }
+
+   /**
+    * Adds a run of bytes to the line.
+    *
+    * @param bytes Where the bytes are.
+    * @param offset The index of the first byte to add.
+    * @param count How many bytes to add.
+    * @throws IOException if the line is too long.
+    */
+   private void append(byte[] bytes, int offset, int count) throws IOException {
+      this.ensureCapacity(this.length + count);
+      System.arraycopy(bytes, offset, this.line, this.length, count);
+      this.length += count;
+   }
+
+   /**
+    * Grows the line array to hold at least the given number of bytes.
+    *
+    * @param capacity The number of bytes needed.
+    * @throws IOException if that is more than a line may hold.
+    */
+   private void ensureCapacity(int capacity) throws IOException {
+      if (capacity > MAX_LINE) {
+         throw new IOException("Line too long");
+      }
+      if (capacity > this.line.length) {
+         int grown = Math.max(capacity, this.line.length * 2);
+         this.line = Arrays.copyOf(this.line, Math.min(grown, MAX_LINE));
+      }
+   }
+}
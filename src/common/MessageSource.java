@@ -1,6 +1,6 @@
 package common;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class represents an abstract message source &ndash; a subject in the observer pattern.
@@ -16,14 +16,19 @@ import java.util.List;
  * @version November 2017
  */
 public abstract class MessageSource {
-   /** Observers registered to receive notifications about this subject. */
+   /**
+    * Observers registered to receive notifications about this subject. The
+    * list is copied on every change, so a reader thread can notify them
+    * while another thread, such as a room dropping a client whose queue
+    * overflowed, closes this source.
+    */
    private List<MessageListener> messageListeners;
 
    /**
     * Constructs a new <code>MessageSource</code> with no registered observers.
     */
    public MessageSource() {
-      this.messageListeners = new ArrayList<MessageListener>();
+      this.messageListeners = new CopyOnWriteArrayList<MessageListener>();
    }
 
    /**
@@ -50,11 +55,10 @@ public abstract class MessageSource {
     */
    protected void closeMessageSource() {
       /*
-       * Here we need to iterate over a *copy* of our messageListeners list.  The reason is
-       * because if the listener's 'sourceClosed' method removes that listener from this subject,
-       * we'd get a ConcurrentModificationException if we were iterating over the original list.
+       * Iterating the list walks a snapshot of it, so a listener's 'sourceClosed' method may
+       * remove that listener from this subject without a ConcurrentModificationException.
        */
-      for (MessageListener listener : new ArrayList<MessageListener>(messageListeners)) {
+      for (MessageListener listener : messageListeners) {
          try {
             listener.sourceClosed(this);
          } catch (RuntimeException ex) {
@@ -74,7 +78,7 @@ public abstract class MessageSource {
     * @param message The message this subject received.
     */
    protected void notifyReceipt(String message) {
-      for (MessageListener listener : new ArrayList<MessageListener>(messageListeners)) {
+      for (MessageListener listener : messageListeners) {
          /*
           * We wrap this in a try/catch block so that just in case one of our observers screws
           * up, we don't want to stop notifying other observers.
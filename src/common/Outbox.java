@@ -0,0 +1,348 @@
+package common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An Outbox holds the messages an agent has been asked to send until the
+ * agent is flushed. Any number of threads may add to it, but only one at a
+ * time may write it out. Everything pending is written with as few write
+ * calls as possible: one gathering write on a channel, or one copy into a
+ * single array for a stream.
+ *
+ * The queue is bounded, so a client that stops reading cannot make the
+ * server hold an unlimited backlog for it. What happens to a message sent
+ * while the queue is full is up to the outbox's OverflowPolicy. Messages
+ * that are part of a write in progress are never touched.
+ *
+ * A ReentrantLock rather than synchronized guards the queue, so an agent on
+ * a virtual thread is never pinned while it waits.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Outbox {
+
+   /** The most buffers handed to one gathering write. */
+   private static final int MAX_GATHER = 64;
+
+   /** The starting capacity of the queue. */
+   private static final int INITIAL_CAPACITY = 16;
+
+   /** The most messages that may wait at once. */
+   private int limit;
+
+   /** What to do with a message sent while the queue is full. */
+   private OverflowPolicy policy;
+
+   /** Guards the queue. */
+   private ReentrantLock lock;
+
+   /** The messages waiting to be written, as a ring. */
+   private ByteBuffer[] buffers;
+
+   /** What each waiting message is the latest state of, or null. */
+   private Object[] keys;
+
+   /** When each waiting message was added, in ns. */
+   private long[] addedAt;
+
+   /** The index of the oldest waiting message. */
+   private int head;
+
+   /** The number of waiting messages. */
+   private int count;
+
+   /** The number of waiting messages, from the head, being written now. */
+   private int inFlight;
+
+   /** The most messages that have ever waited at once. */
+   private int highWater;
+
+   /** The messages being written right now. Only touched by the writer. */
+   private ByteBuffer[] batch;
+
+   /** Scratch space for copying messages into one stream write. */
+   private byte[] scratch;
+
+   /**
+    * Constructor for an empty Outbox.
+    *
+    * @param limit The most messages that may wait at once.
+    * @param policy What to do with a message sent while the queue is full.
+    */
+   public Outbox(int limit, OverflowPolicy policy) {
+      this.limit = limit;
+      this.policy = policy;
+      this.lock = new ReentrantLock();
+      this.buffers = new ByteBuffer[INITIAL_CAPACITY];
+      this.keys = new Object[INITIAL_CAPACITY];
+      this.addedAt = new long[INITIAL_CAPACITY];
+      this.batch = new ByteBuffer[MAX_GATHER];
+      this.scratch = new byte[0];
+   }
+
+   /**
+    * Adds a message to be written at the next flush.
+    *
+    * @param bytes The encoded message.
+    * @return False if the queue is full and the policy is to disconnect.
+    *         True otherwise, even if the message was dropped.
+    */
+   public boolean add(ByteBuffer bytes) {
+      return this.add(bytes, null);
+   }
+
+   /**
+    * Adds a message to be written at the next flush. A message with a key is
+    * the latest state of something, such as a player's grid, and may replace
+    * an older message with the same key when the queue is full.
+    *
+    * @param bytes The encoded message.
+    * @param key What the message is the latest state of, or null.
+    * @return False if the queue is full and the policy is to disconnect.
+    *         True otherwise, even if the message was dropped.
+    */
+   public boolean add(ByteBuffer bytes, Object key) {
+      long now = System.nanoTime();
+      boolean accepted = true;
+      this.lock.lock();
+      try {
+         if (this.count < this.limit) {
+            this.append(bytes, key, now);
+         } else if (this.policy == OverflowPolicy.DISCONNECT) {
+            accepted = false;
+         } else if (this.policy == OverflowPolicy.COALESCE && key != null
+                    && this.coalesce(bytes, key, now)) {
+            SendStats.recordCoalesced();
+         } else {
+            SendStats.recordDropped();
+         }
+      } finally {
+         this.lock.unlock();
+      }
+      return accepted;
+   }
+
+   /**
+    * Accessor for the most messages that have ever waited at once.
+    *
+    * @return The high-water mark of the queue.
+    */
+   public int getHighWater() {
+      this.lock.lock();
+      try {
+         return this.highWater;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Indicates whether anything is waiting to be written.
+    *
+    * @return True if nothing is waiting. False otherwise.
+    */
+   public boolean isEmpty() {
+      this.lock.lock();
+      try {
+         return this.count == 0;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Writes as much as a non-blocking channel will take in one gathering
+    * write per batch.
+    *
+    * @param channel The channel to write to.
+    * @return True if everything was written. False if the channel is full.
+    * @throws IOException if the write fails.
+    */
+   public boolean writeTo(GatheringByteChannel channel) throws IOException {
+      int n;
+      while ((n = this.takeBatch()) > 0) {
+         long written = channel.write(this.batch, 0, n);
+         SendStats.recordWrite(written);
+         int done = 0;
+         while (done < n && !this.batch[done].hasRemaining()) {
+            done++;
+         }
+         this.complete(done);
+         if (done < n) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Writes everything waiting to a blocking stream, one write per batch.
+    *
+    * @param out The stream to write to.
+    * @throws IOException if the write fails.
+    */
+   public void writeTo(OutputStream out) throws IOException {
+      int n;
+      while ((n = this.takeBatch()) > 0) {
+         int total = 0;
+         for (int i = 0; i < n; i++) {
+            total += this.batch[i].remaining();
+         }
+         if (this.scratch.length < total) {
+            this.scratch = new byte[Math.max(total, this.scratch.length * 2)];
+         }
+         int offset = 0;
+         for (int i = 0; i < n; i++) {
+            int length = this.batch[i].remaining();
+            this.batch[i].get(this.scratch, offset, length);
+            offset += length;
+         }
+         out.write(this.scratch, 0, total);
+         out.flush();
+         SendStats.recordWrite(total);
+         this.complete(n);
+      }
+   }
+
+   /**
+    * Copies the oldest waiting messages into the batch array.
+    *
+    * @return The number of messages in the batch.
+    */
+   private int takeBatch() {
+      this.lock.lock();
+      try {
+         int n = Math.min(this.count, MAX_GATHER);
+         for (int i = 0; i < n; i++) {
+            this.batch[i] = this.buffers[(this.head + i) % this.buffers.length];
+         }
+         this.inFlight = n;
+         return n;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Removes messages that have been written in full and records how long
+    * each one waited.
+    *
+    * @param done The number of messages written in full.
+    */
+   private void complete(int done) {
+      long now = System.nanoTime();
+      this.lock.lock();
+      try {
+         for (int i = 0; i < done; i++) {
+            SendStats.recordLatency(now - this.addedAt[this.head]);
+            this.buffers[this.head] = null;
+            this.keys[this.head] = null;
+            this.head = (this.head + 1) % this.buffers.length;
+            this.count--;
+         }
+         this.inFlight -= done;
+      } finally {
+         this.lock.unlock();
+      }
+      for (int i = 0; i < done; i++) {
+         this.batch[i] = null;
+      }
+   }
+
+   /**
+    * Puts a message at the tail of the queue. Called with the lock held.
+    *
+    * @param bytes The encoded message.
+    * @param key What the message is the latest state of, or null.
+    * @param now When the message was added, in ns.
+    */
+   private void append(ByteBuffer bytes, Object key, long now) {
+      if (this.count == this.buffers.length) {
+         this.grow();
+      }
+      int tail = this.slot(this.count);
+      this.buffers[tail] = bytes;
+      this.keys[tail] = key;
+      this.addedAt[tail] = now;
+      this.count++;
+      if (this.count > this.highWater) {
+         this.highWater = this.count;
+         SendStats.recordQueueDepth(this.count);
+      }
+   }
+
+   /**
+    * Makes room in a full queue for a message with a key. A waiting message
+    * with the same key is replaced where it stands. Failing that, the oldest
+    * waiting message with any key is removed and the new one goes at the
+    * tail. Called with the lock held.
+    *
+    * @param bytes The encoded message.
+    * @param key What the message is the latest state of.
+    * @param now When the message was added, in ns.
+    * @return True if the message was queued. False if nothing could make way.
+    */
+   private boolean coalesce(ByteBuffer bytes, Object key, long now) {
+      int oldest = -1;
+      for (int i = this.inFlight; i < this.count; i++) {
+         int slot = this.slot(i);
+         if (key.equals(this.keys[slot])) {
+            this.buffers[slot] = bytes;
+            this.addedAt[slot] = now;
+            return true;
+         }
+         if (oldest < 0 && this.keys[slot] != null) {
+            oldest = i;
+         }
+      }
+      if (oldest < 0) {
+         return false;
+      }
+      for (int i = oldest; i < this.count - 1; i++) {
+         int to = this.slot(i);
+         int from = this.slot(i + 1);
+         this.buffers[to] = this.buffers[from];
+         this.keys[to] = this.keys[from];
+         this.addedAt[to] = this.addedAt[from];
+      }
+      this.count--;
+      this.append(bytes, key, now);
+      return true;
+   }
+
+   /**
+    * Finds where a waiting message is kept in the ring.
+    *
+    * @param index How far the message is from the head of the queue.
+    * @return The message's index in the ring.
+    */
+   private int slot(int index) {
+      return (this.head + index) % this.buffers.length;
+   }
+
+   /**
+    * Doubles the capacity of the queue. Called with the lock held.
+    */
+   private void grow() {
+      int capacity = this.buffers.length * 2;
+      ByteBuffer[] buffers = new ByteBuffer[capacity];
+      Object[] keys = new Object[capacity];
+      long[] addedAt = new long[capacity];
+      for (int i = 0; i < this.count; i++) {
+         int from = this.slot(i);
+         buffers[i] = this.buffers[from];
+         keys[i] = this.keys[from];
+         addedAt[i] = this.addedAt[from];
+      }
+      this.buffers = buffers;
+      this.keys = keys;
+      this.addedAt = addedAt;
+      this.head = 0;
+   }
+}
@@ -0,0 +1,63 @@
+package common;
+
+/**
+ * An enum for what an agent does when a message is sent to a client whose
+ * outbound queue is already full, because the client has stopped reading.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public enum OverflowPolicy {
+
+   /** Throw the new message away. */
+   DROP("drop"),
+
+   /**
+    * Let a new grid replace a queued grid of the same player, or the oldest
+    * queued grid, since only the latest state matters. Other messages are
+    * thrown away.
+    */
+   COALESCE("coalesce"),
+
+   /** Give up on the client and close its connection. */
+   DISCONNECT("disconnect");
+
+   /** The name used to select this policy. */
+   private String name;
+
+   /**
+    * Constructor for the OverflowPolicy enum.
+    *
+    * @param name The name used to select this policy.
+    */
+   OverflowPolicy(String name) {
+      this.name = name;
+   }
+
+   /**
+    * Retrieves the policy with the specified name.
+    *
+    * @param name The name of the desired policy.
+    * @return The policy with that name, or null if there is no such policy.
+    */
+   public static OverflowPolicy getByName(String name) {
+      OverflowPolicy policy = null;
+      for (OverflowPolicy p : values()) {
+         if (p.name.equalsIgnoreCase(name)) {
+            policy = p;
+         }
+      }
+      return policy;
+   }
+
+   /**
+    * Returns the name of this policy.
+    *
+    * @return The name of this policy.
+    */
+   @Override
+   public String toString() {
+      return this.name;
+   }
+}
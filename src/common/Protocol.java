@@ -0,0 +1,383 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The compact binary form of the Battleship protocol. A client that wants it
+ * sends the HELLO byte as the very first byte on the connection; anything
+ * else means the client speaks the original newline-terminated text.
+ *
+ * Every binary frame is a varint length followed by that many bytes: a
+ * one-byte opcode and its payload. Numbers are unsigned varints and strings
+ * are a varint length followed by UTF-8. Players are named by the id their
+ * room gave them, which the server announces with PLAYER frames.
+ *
+ * Frames are translated to and from the text commands at the edge of the
+ * connection, so the rest of the program only ever sees text. A player id
+ * arriving from a binary client is written as '#id' in place of the name.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Protocol {
+
+   /** The first byte sent by a client that wants the binary protocol. */
+   public static final byte HELLO = (byte) 0xB5;
+
+   /** The largest frame either side will accept. */
+   public static final int MAX_FRAME = 1 << 16;
+
+   /** Client to server: join. Payload is a name and a room, maybe empty. */
+   public static final byte JOIN = 0x01;
+
+   /** Client to server: start the game. No payload. */
+   public static final byte PLAY = 0x02;
+
+   /** Client to server: attack. Payload is a player id, x and y. */
+   public static final byte ATTACK = 0x03;
+
+   /** Client to server: surrender. No payload. */
+   public static final byte QUIT = 0x04;
+
+   /** Client to server: show a grid. Payload is a player id. */
+   public static final byte SHOW = 0x05;
+
+   /** Client to server: any other command. Payload is the command text. */
+   public static final byte TEXT = 0x06;
+
+   /** Server to client: a message. Payload is the message text. */
+   public static final byte MESSAGE = 0x10;
+
+   /** Server to client: a player's id. Payload is the id and the name. */
+   public static final byte PLAYER = 0x11;
+
+   /** Server to client: a grid. Payload is the size and one byte per cell. */
+   public static final byte GRID = 0x12;
+
+   /**
+    * Server to client: a window onto a grid. Payload is the top row, the left
+    * column, the number of rows and columns, and one byte per cell.
+    */
+   public static final byte VIEW = 0x13;
+
+   /** The character that marks a player id written in place of a name. */
+   public static final char ID_MARK = '#';
+
+   /**
+    * Private constructor. This class only has static methods.
+    */
+   private Protocol() {
+   }
+
+   /**
+    * Encodes a text command typed by a player as a frame. Names the roster
+    * knows are sent as ids. Anything the binary form has no opcode for is
+    * sent as a TEXT frame.
+    *
+    * @param command The text command.
+    * @param ids The id of each player the server has announced.
+    * @return The encoded frame.
+    */
+   public static byte[] encodeCommand(String command, Map<String, Integer> ids) {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      String[] words = command.split(" ");
+      if (words[0].equals("/join") && (words.length == 2 || words.length == 3)) {
+         body.write(JOIN);
+         writeString(body, words[1]);
+         writeString(body, words.length == 3 ? words[2] : "");
+      } else if (words[0].equals("/play") && words.length == 1) {
+         body.write(PLAY);
+      } else if (words[0].equals("/quit") && words.length == 1) {
+         body.write(QUIT);
+      } else if (words[0].equals("/attack") && words.length == 4
+                 && ids.containsKey(words[1])
+                 && isNumber(words[2]) && isNumber(words[3])) {
+         body.write(ATTACK);
+         writeVarint(body, ids.get(words[1]));
+         writeVarint(body, Integer.parseInt(words[2]));
+         writeVarint(body, Integer.parseInt(words[3]));
+      } else if (words[0].equals("/show") && words.length == 2
+                 && ids.containsKey(words[1])) {
+         body.write(SHOW);
+         writeVarint(body, ids.get(words[1]));
+      } else {
+         body.write(TEXT);
+         body.writeBytes(command.getBytes(StandardCharsets.UTF_8));
+      }
+      return frame(body);
+   }
+
+   /**
+    * Encodes a message from the server as a frame.
+    *
+    * @param message The message text.
+    * @return The encoded frame.
+    */
+   public static byte[] encodeMessage(String message) {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      body.write(MESSAGE);
+      body.writeBytes(message.getBytes(StandardCharsets.UTF_8));
+      return frame(body);
+   }
+
+   /**
+    * Encodes the announcement of a player's id as a frame.
+    *
+    * @param id The player's id.
+    * @param name The player's name.
+    * @return The encoded frame.
+    */
+   public static byte[] encodePlayer(int id, String name) {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      body.write(PLAYER);
+      writeVarint(body, id);
+      writeString(body, name);
+      return frame(body);
+   }
+
+   /**
+    * Encodes a grid as a frame.
+    *
+    * @param size The size of the square grid.
+    * @param cells The symbol in each cell, row by row.
+    * @return The encoded frame.
+    */
+   public static byte[] encodeGrid(int size, byte[] cells) {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      body.write(GRID);
+      writeVarint(body, size);
+      body.writeBytes(cells);
+      return frame(body);
+   }
+
+   /**
+    * Encodes a window onto a grid as a frame. A square window at 0, 0 is
+    * sent as a GRID frame, since it draws exactly like a whole grid.
+    *
+    * @param view The window.
+    * @return The encoded frame.
+    */
+   public static byte[] encodeView(GridView view) {
+      if (view.isSquareAtOrigin()) {
+         return encodeGrid(view.getRows(), view.getCells());
+      }
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      body.write(VIEW);
+      writeVarint(body, view.getTop());
+      writeVarint(body, view.getLeft());
+      writeVarint(body, view.getRows());
+      writeVarint(body, view.getCols());
+      body.writeBytes(view.getCells());
+      return frame(body);
+   }
+
+   /**
+    * Decodes the body of a frame into the text the rest of the program
+    * understands. PLAYER frames update the roster instead.
+    *
+    * @param body The frame body, starting at the opcode.
+    * @param roster The name of each player id, updated by PLAYER frames.
+    * @return The text of the frame, or null if there is nothing to deliver.
+    */
+   public static String decode(ByteBuffer body, Map<String, Integer> roster) {
+      String text = null;
+      byte opcode = body.get();
+      switch (opcode) {
+         case JOIN:
+            String name = readString(body);
+            String room = readString(body);
+            text = "/join " + name + (room.isEmpty() ? "" : " " + room);
+            break;
+         case PLAY:
+            text = "/play";
+            break;
+         case ATTACK:
+            text = "/attack " + ID_MARK + readVarint(body) + " "
+                   + readVarint(body) + " " + readVarint(body);
+            break;
+         case QUIT:
+            text = "/quit";
+            break;
+         case SHOW:
+            text = "/show " + ID_MARK + readVarint(body);
+            break;
+         case TEXT:
+         case MESSAGE:
+            text = StandardCharsets.UTF_8.decode(body).toString();
+            break;
+         case PLAYER:
+            int id = readVarint(body);
+            roster.put(readString(body), id);
+            break;
+         case GRID:
+            int size = readVarint(body);
+            byte[] cells = new byte[body.remaining()];
+            body.get(cells);
+            text = GridText.render(size, cells);
+            break;
+         case VIEW:
+            int top = readVarint(body);
+            int left = readVarint(body);
+            int rows = readVarint(body);
+            int cols = readVarint(body);
+            byte[] window = new byte[body.remaining()];
+            body.get(window);
+            text = GridText.render(new GridView(top, left, rows, cols, window));
+            break;
+         default:
+            text = "Invalid frame: " + opcode;
+      }
+      return text;
+   }
+
+   /**
+    * Reads one frame body from a blocking stream.
+    *
+    * @param in The stream to read from.
+    * @return The frame body, or null at the end of the stream.
+    * @throws IOException if the stream fails or the frame is malformed.
+    */
+   public static ByteBuffer readFrame(InputStream in) throws IOException {
+      int length = 0;
+      int shift = 0;
+      int b;
+      do {
+         b = in.read();
+         if (b < 0) {
+            if (shift == 0) {
+               return null;
+            }
+            throw new EOFException("Connection closed inside a frame");
+         }
+         length |= (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0 && shift < 35);
+      if (length <= 0 || length > MAX_FRAME) {
+         throw new IOException("Bad frame length: " + length);
+      }
+      return ByteBuffer.wrap(in.readNBytes(length));
+   }
+
+   /**
+    * Writes an unsigned varint.
+    *
+    * @param out Where to write.
+    * @param value The non-negative value to write.
+    */
+   public static void writeVarint(ByteArrayOutputStream out, int value) {
+      while ((value & ~0x7F) != 0) {
+         out.write((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      out.write(value);
+   }
+
+   /**
+    * Reads an unsigned varint.
+    *
+    * @param in The buffer to read from.
+    * @return The value read.
+    */
+   public static int readVarint(ByteBuffer in) {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+         b = in.get();
+         value |= (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+   }
+
+   /**
+    * Writes an unsigned varint that may need more than 32 bits. A negative
+    * value takes ten bytes.
+    *
+    * @param out Where to write.
+    * @param value The value to write.
+    */
+   public static void writeVarlong(ByteArrayOutputStream out, long value) {
+      while ((value & ~0x7FL) != 0) {
+         out.write((int) (value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      out.write((int) value);
+   }
+
+   /**
+    * Reads an unsigned varint that may need more than 32 bits.
+    *
+    * @param in The buffer to read from.
+    * @return The value read.
+    */
+   public static long readVarlong(ByteBuffer in) {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+         b = in.get();
+         value |= (long) (b & 0x7F) << shift;
+         shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+   }
+
+   /**
+    * Prefixes a frame body with its length.
+    *
+    * @param body The frame body.
+    * @return The complete frame.
+    */
+   private static byte[] frame(ByteArrayOutputStream body) {
+      ByteArrayOutputStream frame = new ByteArrayOutputStream(body.size() + 3);
+      writeVarint(frame, body.size());
+      frame.writeBytes(body.toByteArray());
+      return frame.toByteArray();
+   }
+
+   /**
+    * Writes a length-prefixed UTF-8 string.
+    *
+    * @param out Where to write.
+    * @param str The string to write.
+    */
+   public static void writeString(ByteArrayOutputStream out, String str) {
+      byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      writeVarint(out, bytes.length);
+      out.writeBytes(bytes);
+   }
+
+   /**
+    * Reads a length-prefixed UTF-8 string.
+    *
+    * @param in The buffer to read from.
+    * @return The string read.
+    */
+   public static String readString(ByteBuffer in) {
+      byte[] bytes = new byte[readVarint(in)];
+      in.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Indicates whether a word is a non-negative number that fits a varint.
+    *
+    * @param word The word to check.
+    * @return True if the word is such a number. False otherwise.
+    */
+   private static boolean isNumber(String word) {
+      try {
+         return Integer.parseInt(word) >= 0;
+      } catch (NumberFormatException nfe) {
+         return false;
+      }
+   }
+}
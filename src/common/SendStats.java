@@ -0,0 +1,155 @@
+package common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters for outbound traffic: how many messages were sent,
+ * how many write calls it took to send them, and how long each message
+ * waited between being sent and reaching the socket. Latencies are kept in
+ * power-of-two buckets, so percentiles are accurate to within a factor of
+ * two. The counters also show how close clients came to their outbound
+ * limit, and what was done to those that reached it.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class SendStats {
+
+   /** The number of latency buckets. Bucket i holds [2^i, 2^(i+1)) ns. */
+   private static final int NUM_BUCKETS = 64;
+
+   /** The number of messages queued for sending. */
+   private static final LongAdder MESSAGES = new LongAdder();
+
+   /** The number of write calls made on sockets. */
+   private static final LongAdder WRITES = new LongAdder();
+
+   /** The number of bytes written to sockets. */
+   private static final LongAdder BYTES = new LongAdder();
+
+   /** The most messages ever waiting for any one client. */
+   private static final LongAccumulator QUEUE_HIGH_WATER =
+           new LongAccumulator(Math::max, 0);
+
+   /** The number of messages thrown away because a queue was full. */
+   private static final LongAdder DROPPED = new LongAdder();
+
+   /** The number of grids that replaced an older one in a full queue. */
+   private static final LongAdder COALESCED = new LongAdder();
+
+   /** The number of clients disconnected because their queue was full. */
+   private static final LongAdder DISCONNECTED = new LongAdder();
+
+   /** How many messages fell in each latency bucket. */
+   private static final AtomicLongArray LATENCY = new AtomicLongArray(NUM_BUCKETS);
+
+   /**
+    * Private constructor. This class only has static methods.
+    */
+   private SendStats() {
+   }
+
+   /**
+    * Records one write call on a socket.
+    *
+    * @param bytes The number of bytes the call wrote.
+    */
+   public static void recordWrite(long bytes) {
+      WRITES.increment();
+      BYTES.add(bytes);
+   }
+
+   /**
+    * Records that a message reached the socket.
+    *
+    * @param nanos How long the message waited after being sent.
+    */
+   public static void recordLatency(long nanos) {
+      MESSAGES.increment();
+      int bucket = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+      LATENCY.incrementAndGet(bucket);
+   }
+
+   /**
+    * Records how many messages are waiting for a client.
+    *
+    * @param depth The number of messages waiting.
+    */
+   public static void recordQueueDepth(long depth) {
+      QUEUE_HIGH_WATER.accumulate(depth);
+   }
+
+   /**
+    * Records that a message was thrown away because a queue was full.
+    */
+   public static void recordDropped() {
+      DROPPED.increment();
+   }
+
+   /**
+    * Records that a grid replaced an older one in a full queue.
+    */
+   public static void recordCoalesced() {
+      COALESCED.increment();
+   }
+
+   /**
+    * Records that a client was disconnected because its queue was full.
+    */
+   public static void recordDisconnected() {
+      DISCONNECTED.increment();
+   }
+
+   /**
+    * Accessor for the most messages ever waiting for any one client.
+    *
+    * @return The high-water mark across every outbound queue.
+    */
+   public static long getQueueHighWater() {
+      return QUEUE_HIGH_WATER.get();
+   }
+
+   /**
+    * Estimates a latency percentile.
+    *
+    * @param fraction The percentile as a fraction, such as 0.99.
+    * @return The upper edge of the bucket holding that percentile, in ns.
+    */
+   public static long percentile(double fraction) {
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+         total += LATENCY.get(i);
+      }
+      long target = (long) Math.ceil(total * fraction);
+      long seen = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+         seen += LATENCY.get(i);
+         if (seen >= target && seen > 0) {
+            return 1L << Math.min(i + 1, 62);
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Summarizes the counters.
+    *
+    * @return A one-line summary.
+    */
+   public static String report() {
+      long messages = MESSAGES.sum();
+      long writes = WRITES.sum();
+      return String.format("sent %d messages in %d writes (%.2f per write), "
+                           + "%d bytes, p50 %d us, p99 %d us; "
+                           + "queue high-water %d, %d dropped, %d coalesced, "
+                           + "%d disconnected",
+                           messages, writes,
+                           writes == 0 ? 0.0 : (double) messages / writes,
+                           BYTES.sum(), percentile(0.50) / 1000,
+                           percentile(0.99) / 1000, QUEUE_HIGH_WATER.get(),
+                           DROPPED.sum(), COALESCED.sum(), DISCONNECTED.sum());
+   }
+}
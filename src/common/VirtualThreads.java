@@ -0,0 +1,86 @@
+package common;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Starts tasks on virtual threads when the running JVM provides them. Virtual
+ * threads arrived after the Java release this project is compiled against,
+ * so they are looked up once by reflection rather than called directly.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class VirtualThreads {
+
+   /** Thread.startVirtualThread(Runnable), or null if it does not exist. */
+   private static final Method START = findStart();
+
+   /**
+    * Private constructor. This class only has static methods.
+    */
+   private VirtualThreads() {
+   }
+
+   /**
+    * Looks up the method that starts a virtual thread.
+    *
+    * @return The method, or null if this JVM has no virtual threads.
+    */
+   private static Method findStart() {
+      Method start;
+      try {
+         start = Thread.class.getMethod("startVirtualThread", Runnable.class);
+      } catch (NoSuchMethodException nsme) {
+         start = null;
+      }
+      return start;
+   }
+
+   /**
+    * Indicates whether this JVM can start virtual threads.
+    *
+    * @return True if virtual threads are available. False otherwise.
+    */
+   public static boolean isSupported() {
+      return START != null;
+   }
+
+   /**
+    * Starts a task on a new virtual thread.
+    *
+    * @param task The task to run.
+    * @return The thread running the task.
+    * @throws UnsupportedOperationException if this JVM has no virtual threads.
+    */
+   public static Thread start(Runnable task) {
+      if (START == null) {
+         throw new UnsupportedOperationException(
+                 "Virtual threads require Java 21 or later");
+      }
+      try {
+         return (Thread) START.invoke(null, task);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+         throw new IllegalStateException("Could not start virtual thread", e);
+      }
+   }
+
+   /**
+    * Starts a task on a new thread, virtual or not.
+    *
+    * @param task The task to run.
+    * @param virtual True to use a virtual thread. False for a platform thread.
+    * @return The thread running the task.
+    */
+   public static Thread start(Runnable task, boolean virtual) {
+      Thread thread;
+      if (virtual) {
+         thread = start(task);
+      } else {
+         thread = new Thread(task);
+         thread.start();
+      }
+      return thread;
+   }
+}
@@ -0,0 +1,141 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * A Board that keeps a Ship for every square, the way grids always have.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class ArrayBoard implements Board {
+
+   /** The size of this board. */
+   private int size;
+
+   /** What is on each square. */
+   private Ship[][] grid;
+
+   /** The number of squares with a ship on them that have not been hit. */
+   private int remaining;
+
+   /**
+    * Constructor for an empty ArrayBoard.
+    *
+    * @param size The size of the square board.
+    */
+   public ArrayBoard(int size) {
+      this.size = size;
+      this.grid = new Ship[size][size];
+      for (int i = 0; i < size; i++) {
+         for (int j = 0; j < size; j++) {
+            this.grid[i][j] = Ship.EMPTY;
+         }
+      }
+   }
+
+   /**
+    * Accessor for the size of this board.
+    *
+    * @return The number of rows, and of columns.
+    */
+   @Override
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether a square has no ship on it.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if the square has no ship. False otherwise.
+    */
+   @Override
+   public boolean isEmpty(int i, int j) {
+      return this.grid[i][j] == Ship.EMPTY || this.grid[i][j] == Ship.MISS;
+   }
+
+   /**
+    * Puts part of a ship on an empty square.
+    *
+    * @param ship The ship.
+    * @param i The row of the square.
+    * @param j The column of the square.
+    */
+   @Override
+   public void put(Ship ship, int i, int j) {
+      this.grid[i][j] = ship;
+      this.remaining++;
+   }
+
+   /**
+    * Fires at a square.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if a ship was hit that had not been hit there before.
+    */
+   @Override
+   public boolean fire(int i, int j) {
+      Ship target = this.grid[i][j];
+      boolean hit = false;
+      if (target != Ship.EMPTY && target != Ship.HIT && target != Ship.MISS) {
+         this.grid[i][j] = Ship.HIT;
+         this.remaining--;
+         hit = true;
+      } else if (target == Ship.EMPTY) {
+         this.grid[i][j] = Ship.MISS;
+      }
+      return hit;
+   }
+
+   /**
+    * Counts the squares with a ship on them that have not been hit.
+    *
+    * @return The number of ship squares left.
+    */
+   @Override
+   public int getRemaining() {
+      return this.remaining;
+   }
+
+   /**
+    * Lists every square that has been fired on, hit or miss.
+    *
+    * @return The number of each square fired on, row by row, in order.
+    */
+   @Override
+   public int[] getShots() {
+      int[] shots = new int[this.size * this.size];
+      int count = 0;
+      for (int i = 0; i < this.size; i++) {
+         for (int j = 0; j < this.size; j++) {
+            if (this.grid[i][j] == Ship.HIT || this.grid[i][j] == Ship.MISS) {
+               shots[count++] = i * this.size + j;
+            }
+         }
+      }
+      return Arrays.copyOf(shots, count);
+   }
+
+   /**
+    * Returns the symbol on each square, as the owner or an enemy sees it.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @return The symbol on each square, row by row.
+    */
+   @Override
+   public byte[] getCells(boolean friendly) {
+      byte[] cells = new byte[this.size * this.size];
+      for (int i = 0; i < this.size; i++) {
+         for (int j = 0; j < this.size; j++) {
+            Ship ship = this.grid[i][j];
+            cells[i * this.size + j] =
+                    (byte) (friendly ? ship.symbol : ship.enemyView);
+         }
+      }
+      return cells;
+   }
+}
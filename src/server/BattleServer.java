@@ -1,16 +1,28 @@
 package server;
 
+import common.Agent;
+import common.Broadcast;
+import common.Commands;
 import common.ConnectionAgent;
 import common.MessageListener;
 import common.MessageSource;
+import common.Protocol;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * A server to host a game of Battleship.
+ * A server to host games of Battleship. Each game is played in its own room
+ * and one server may host any number of rooms.
  *
  * @author Gatlin Cruz
  * @author Tommy Meek
@@ -18,30 +30,63 @@ import java.util.ArrayList;
  */
 public class BattleServer implements MessageListener {
 
+   /**
+    * The file in which rooms record their games, so they survive a restart.
+    * Set it with -Dbattleship.journal=<file>. Nothing is recorded otherwise.
+    */
+   private static final String JOURNAL = System.getProperty("battleship.journal");
+
    /** The ServerSocket used to communicate with a client. */
    private ServerSocket serverSocket;
 
-   /** Whose turn it is. */
-   private int current;
+   /** The channel behind the ServerSocket when running in NIO mode. */
+   private ServerSocketChannel serverChannel;
+
+   /** How this server services its connections. */
+   private ServerMode mode;
 
-   /** The game of Battleship */
-   private Game game;
+   /** The rooms hosted by this server, each with its own game. */
+   private Lobby lobby;
 
-   /** The list of active connection agents. */
-   private ArrayList<ConnectionAgent> agents;
+   /** The session of every connected client, keyed by its agent. */
+   private Map<Agent, Session> sessions;
 
    /**
-    * Constructor for a BattleServer
+    * Constructor for a BattleServer that gives each client its own thread.
     *
     * @param port     The server's port number.
     * @param gridSize The size of the grids.
     * @throws IOException if something goes wrong creating the ServerSocket.
     */
    public BattleServer(int port, int gridSize) throws IOException {
-      this.serverSocket = new ServerSocket(port);
-      this.current = 0;
-      this.game = new Game(gridSize);
-      this.agents = new ArrayList<>();
+      this(port, gridSize, ServerMode.THREAD);
+   }
+
+   /**
+    * Constructor for a BattleServer
+    *
+    * @param port     The server's port number.
+    * @param gridSize The size of the grids.
+    * @param mode     How the server services its connections.
+    * @throws IOException if something goes wrong creating the ServerSocket.
+    */
+   public BattleServer(int port, int gridSize, ServerMode mode)
+           throws IOException {
+      if (mode == ServerMode.NIO) {
+         this.serverChannel = ServerSocketChannel.open();
+         this.serverChannel.bind(new InetSocketAddress(port));
+         this.serverSocket = this.serverChannel.socket();
+      } else {
+         this.serverSocket = new ServerSocket(port);
+      }
+      this.mode = mode;
+      Journal journal = JOURNAL == null ? new Journal()
+              : new Journal(Path.of(JOURNAL));
+      Snapshot snapshot = JOURNAL == null ? null
+              : new Snapshot(Path.of(JOURNAL + ".snapshot"));
+      this.sessions = new ConcurrentHashMap<>();
+      this.lobby = new Lobby(this, gridSize, journal, snapshot);
+      this.lobby.restore(); // May seat bots, which need the sessions.
    }
 
    /**
@@ -50,106 +95,142 @@ public class BattleServer implements MessageListener {
     * @throws IOException if there is a problem with the socket.
     */
    public void listen() throws IOException {
+      if (this.mode == ServerMode.NIO) {
+         this.listenOnLoops();
+      } else {
+         this.listenOnThreads();
+      }
+   }
+
+   /**
+    * Accepts connections and starts a new thread for each of them. The thread
+    * is virtual when the server runs in VIRTUAL mode.
+    *
+    * @throws IOException if there is a problem with the socket.
+    */
+   private void listenOnThreads() throws IOException {
+      boolean virtual = this.mode == ServerMode.VIRTUAL;
       while (!this.serverSocket.isClosed()) {
          Socket socket = this.serverSocket.accept();
          ConnectionAgent agent = new ConnectionAgent(socket);
-         Thread thread = new Thread(agent);
          agent.addMessageListener(this);
-         this.agents.add(agent);
-         thread.start();
+         this.sessions.put(agent, new Session(agent));
+         agent.start(virtual);
       }
    }
 
+   /**
+    * Accepts connections and hands them out in turn to a fixed pool of event
+    * loops, one per available processor.
+    *
+    * @throws IOException if there is a problem with the socket.
+    */
+   private void listenOnLoops() throws IOException {
+      int numLoops = Runtime.getRuntime().availableProcessors();
+      EventLoop[] loops = new EventLoop[numLoops];
+      for (int i = 0; i < numLoops; i++) {
+         loops[i] = new EventLoop();
+         new Thread(loops[i], "event-loop-" + i).start();
+      }
+      int next = 0;
+      while (!this.serverSocket.isClosed()) {
+         SocketChannel channel = this.serverChannel.accept();
+         EventLoop loop = loops[next];
+         next = (next + 1) % numLoops;
+         ChannelAgent agent = new ChannelAgent(channel, loop);
+         agent.addMessageListener(this);
+         this.sessions.put(agent, new Session(agent));
+         loop.register(agent);
+      }
+   }
+
+   /**
+    * Seats a bot in a room. The bot connects and joins as a client would,
+    * so it takes the next seat and plays in turn with everyone else.
+    *
+    * @param roomId The id of the room.
+    * @param name The bot's name.
+    * @param size The size of the room's grids.
+    */
+   public void addBot(String roomId, String name, int size) {
+      Bot bot = new Bot(name, size,
+                        new SplittableRandom(ThreadLocalRandom.current().nextLong()));
+      BotAgent agent = new BotAgent(bot, this.lobby);
+      agent.addMessageListener(this);
+      this.sessions.put(agent, new Session(agent));
+      agent.send("/join " + name + " " + roomId);
+   }
+
    /**
     * Send a message to all the clients connected to this server.
     *
     * @param message The message to send out.
     */
    public void broadcast(String message) {
-      for (ConnectionAgent agent : this.agents) {
-         agent.sendMessage(message);
+      Broadcast broadcast = new Broadcast(message);
+      for (Agent agent : this.sessions.keySet()) {
+         agent.sendBroadcast(broadcast);
+         agent.flush();
       }
    }
 
    /**
-    * Attempts to execute the given command.
+    * Routes the given command to the room of the client that sent it. A
+    * '/join' may name the room to join as its last word. Clients that have
+    * not joined a room are served by the default room. The command is only
+    * queued here; the room runs it on its own shard. Commands from a client
+    * that has already been closed are ignored.
     *
     * @param message The command received from the client.
     * @param source The connection agent through which the command was received.
     */
    public void messageReceived(String message, MessageSource source) {
-      String sender = "";
-      if (!message.contains("/join")) { // Prevents index out of bounds error
-         // Find the name of the player who sent the message.
-         for (int i = 0; i < this.game.getNumPlayers(); i++) {
-            if (this.agents.get(i) == source) {
-               sender = this.game.getPlayerAt(i);
-            }
-         }
+      final int JOIN_WITH_ROOM = 3;
+      final int ROOM_WORD = 2;
+      Session session = this.sessions.get(source);
+      if (session == null) {
+         return;
       }
-
-      // Execute the command
-      String[] result = this.game.execute(message, sender);
-
-      // Remove client if appropriate.
-      if (result[this.game.QUIT_INDEX].equals(this.game.REMOVE)) {
-         if (result[this.game.PRIVATE_INDEX].equals(this.game.PRIVATE)) {
-            for (ConnectionAgent agent : this.agents) {
-               if (agent == source) {
-                  agent.sendMessage(result[this.game.MSG_INDEX]);
-               }
-            }
-         }
-         this.sourceClosed(source);
+      Room room = session.getRoom();
+      boolean join = Commands.opcode(message) == Protocol.JOIN;
+      String roomId = Lobby.DEFAULT_ROOM;
+      if (join && Commands.countWords(message) == JOIN_WITH_ROOM) {
+         int start = Commands.wordStart(message, ROOM_WORD);
+         roomId = message.substring(start, Commands.wordEnd(message, start));
+         message = message.substring(0, start - 1);
       }
-
-      if (result[this.game.PRIVATE_INDEX].equals(this.game.PRIVATE)) {
-         // Send response only to the source of the command.
-         for (ConnectionAgent agent : this.agents) {
-            if (agent == source) {
-               agent.sendMessage(result[this.game.MSG_INDEX]);
-            }
+      if (room != null) {
+         room.submit(message, session);
+      } else if (join) {
+         room = this.lobby.submit(roomId, message, session);
+         session.setRoom(room);
+         if (!this.sessions.containsKey(source)) {
+            room.submitRemoval(session); // Closed before we got here.
          }
       } else {
-         // Send response to all players.
-         this.broadcast(result[this.game.MSG_INDEX]);
-      }
-
-      // Eliminate player if appropriate.
-      if (!result[this.game.ELIMINATE_INDEX].equals(this.game.NOBODY)) {
-         this.moveToEndOfList(result);
+         this.lobby.submit(Lobby.DEFAULT_ROOM, message, session);
       }
    }
 
-   /**
-    * Move connection agent of the eliminated player to end of the list.
-    *
-    * @param result The result of the execute method.
-    */
-   private void moveToEndOfList(String[] result) {
-      int loserIndex = Integer.parseInt(result[this.game.ELIMINATE_INDEX]);
-      ConnectionAgent losersAgent = this.agents.get(loserIndex);
-      this.agents.remove(losersAgent);
-      this.agents.add(losersAgent);
-   }
-
    /**
     * Close the connection to a client.
     *
     * @param source The connection agent to close.
     */
    public void sourceClosed(MessageSource source) {
-      for (ConnectionAgent agent : this.agents) {
-         if (agent == source) {
-            try {
-               agent.close();
-            } catch (IOException e) {
-               e.printStackTrace();
-            }
+      Session session = this.sessions.remove(source);
+      source.removeMessageListener(this);
+      if (session != null) {
+         try {
+            session.getAgent().close();
+         } catch (IOException e) {
+            e.printStackTrace();
+         }
+         Room room = session.getRoom();
+         if (room != null) {
+            room.submitRemoval(session);
          }
       }
-      source.removeMessageListener(this);
-      this.agents.remove(source);
    }
 
 }
@@ -1,5 +1,8 @@
 package server;
 
+import common.SendStats;
+import common.VirtualThreads;
+
 import java.io.IOException;
 
 /**
@@ -17,19 +20,23 @@ public class BattleServerDriver {
    /** The index of the command line argument specifying the grid size. */
    private final static int SIZE_ARG = 1;
 
+   /** The index of the command line argument specifying the server mode. */
+   private final static int MODE_ARG = 2;
+
    /** The minimum number of command line arguments. */
    private final static int MIN_ARGS = 1;
 
    /** The maximum number of command line arguments. */
-   private final static int MAX_ARGS = 2;
+   private final static int MAX_ARGS = 3;
 
    /**
     * Entry point into the program.
     *
-    * @param args Command line arguments to the program. There must be exactly
-    *             1 or 2 arguments. The first parameter specifies the port
-    *             number. The second parameter, if present, is the size of the
-    *             board.
+    * @param args Command line arguments to the program. There must be
+    *             between 1 and 3 arguments. The first parameter specifies the
+    *             port number. The second parameter, if present, is the size of
+    *             the board. The third parameter, if present, is the server
+    *             mode: 'thread', 'nio' or 'virtual'.
     */
    public static void main(String[] args) {
       BattleServerDriver driver = new BattleServerDriver();
@@ -46,9 +53,10 @@ public class BattleServerDriver {
       this.validateArgs(args);
       int port = Integer.parseInt(args[PORT_ARG]);
       int gridSize = this.getGridSize(args);
+      ServerMode mode = this.getMode(args);
 
       // Start server.
-      this.makeServer(port, gridSize);
+      this.makeServer(port, gridSize, mode);
    }
 
    /**
@@ -56,10 +64,13 @@ public class BattleServerDriver {
     *
     * @param port     The server's port number.
     * @param gridSize The size of the grids.
+    * @param mode     How the server services its connections.
     */
-   private void makeServer(int port, int gridSize) {
+   private void makeServer(int port, int gridSize, ServerMode mode) {
+      Runtime.getRuntime().addShutdownHook(
+              new Thread(() -> System.err.println(SendStats.report())));
       try {
-         BattleServer server = new BattleServer(port, gridSize);
+         BattleServer server = new BattleServer(port, gridSize, mode);
          server.listen();
       } catch (IOException ioe) {
          ioe.printStackTrace();
@@ -73,7 +84,10 @@ public class BattleServerDriver {
     */
    private void validateArgs(String[] args) {
       final String PORT_ERR_MSG = "Invalid port number. Should be [1024-65535]";
-      final String SIZE_ERR_MSG = "Invalid grid size. Should be [5-10]";
+      final String SIZE_ERR_MSG = "Invalid grid size. Should be [5-10000]";
+      final String MODE_ERR_MSG =
+              "Invalid server mode. Should be thread|nio|virtual";
+      final String VIRTUAL_ERR_MSG = "Virtual threads require Java 21";
       if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
          this.usage();
       }
@@ -81,12 +95,23 @@ public class BattleServerDriver {
          System.err.println(PORT_ERR_MSG);
          System.exit(1);
       }
-      if (args.length == 2) {
+      if (args.length > SIZE_ARG) {
          if (!this.validateSize(args[SIZE_ARG])) {
             System.err.println(SIZE_ERR_MSG);
             System.exit(1);
          }
       }
+      if (args.length > MODE_ARG) {
+         ServerMode mode = ServerMode.getByName(args[MODE_ARG]);
+         if (mode == null) {
+            System.err.println(MODE_ERR_MSG);
+            System.exit(1);
+         }
+         if (mode == ServerMode.VIRTUAL && !VirtualThreads.isSupported()) {
+            System.err.println(VIRTUAL_ERR_MSG);
+            System.exit(1);
+         }
+      }
    }
 
    /**
@@ -98,7 +123,7 @@ public class BattleServerDriver {
    private int getGridSize(String[] args) {
       final int DEFAULT_SIZE = 10;
       int gridSize;
-      if (args.length == MAX_ARGS) {
+      if (args.length > SIZE_ARG) {
          gridSize = Integer.parseInt(args[SIZE_ARG]);
       } else {
          gridSize = DEFAULT_SIZE;
@@ -106,6 +131,22 @@ public class BattleServerDriver {
       return gridSize;
    }
 
+   /**
+    * Finds the appropriate server mode.
+    *
+    * @param args Command line arguments to the program.
+    * @return The server mode.
+    */
+   private ServerMode getMode(String[] args) {
+      ServerMode mode;
+      if (args.length > MODE_ARG) {
+         mode = ServerMode.getByName(args[MODE_ARG]);
+      } else {
+         mode = ServerMode.THREAD;
+      }
+      return mode;
+   }
+
    /**
     * Validates that a string passed in is an integer between 0 and 65535.
     *
@@ -132,7 +173,7 @@ public class BattleServerDriver {
     */
    private boolean validateSize(String sizeStr) {
       final int MIN_SIZE = 5;
-      final int MAX_SIZE = 10;
+      final int MAX_SIZE = 10000;
       int sizeNum;
       try {
          sizeNum = Integer.parseInt(sizeStr);
@@ -146,7 +187,8 @@ public class BattleServerDriver {
     * Prints a message indicating how the program should be used.
     */
    private void usage() {
-      final String USG_MSG ="java server.BattleServerDriver <port> [grid size]";
+      final String USG_MSG ="java server.BattleServerDriver <port> [grid size] " +
+                            "[thread|nio|virtual]";
       System.err.println(USG_MSG);
       System.exit(1);
    }
@@ -0,0 +1,240 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * A Board kept as bitsets, one bit per square. Three planes hold the id of
+ * the ship on each square, and two more mark hits and misses. A square is
+ * occupied if any ship plane has its bit set. A 10x10 board fits each plane
+ * in two longs, so the whole board is ten longs, and firing, counting and
+ * drawing are done a word at a time.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class BitBoard implements Board {
+
+   /** The number of planes that hold ship ids. Ids run from 1 to 5. */
+   private static final int ID_PLANES = 3;
+
+   /** The plane that marks hits. */
+   private static final int HITS = ID_PLANES;
+
+   /** The plane that marks misses. */
+   private static final int MISSES = ID_PLANES + 1;
+
+   /** The number of planes. */
+   private static final int NUM_PLANES = ID_PLANES + 2;
+
+   /** The symbol the owner sees for each ship id. */
+   private static final byte[] SYMBOLS = new byte[1 << ID_PLANES];
+
+   static {
+      for (Ship ship : Ship.values()) {
+         if (ship.id > 0) {
+            SYMBOLS[ship.id] = (byte) ship.symbol;
+         }
+      }
+   }
+
+   /** The size of this board. */
+   private int size;
+
+   /** The number of longs in each plane. */
+   private int words;
+
+   /** Every plane, one after another. */
+   private long[] bits;
+
+   /**
+    * Constructor for an empty BitBoard.
+    *
+    * @param size The size of the square board.
+    */
+   public BitBoard(int size) {
+      this.size = size;
+      this.words = (size * size + Long.SIZE - 1) / Long.SIZE;
+      this.bits = new long[NUM_PLANES * this.words];
+   }
+
+   /**
+    * Accessor for the size of this board.
+    *
+    * @return The number of rows, and of columns.
+    */
+   @Override
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether a square has no ship on it.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if the square has no ship. False otherwise.
+    */
+   @Override
+   public boolean isEmpty(int i, int j) {
+      int square = i * this.size + j;
+      return (this.occupied(square >>> 6) & (1L << square)) == 0;
+   }
+
+   /**
+    * Puts part of a ship on an empty square.
+    *
+    * @param ship The ship.
+    * @param i The row of the square.
+    * @param j The column of the square.
+    */
+   @Override
+   public void put(Ship ship, int i, int j) {
+      int square = i * this.size + j;
+      for (int plane = 0; plane < ID_PLANES; plane++) {
+         if ((ship.id >>> plane & 1) != 0) {
+            this.bits[plane * this.words + (square >>> 6)] |= 1L << square;
+         }
+      }
+   }
+
+   /**
+    * Fires at a square.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if a ship was hit that had not been hit there before.
+    */
+   @Override
+   public boolean fire(int i, int j) {
+      int square = i * this.size + j;
+      int word = square >>> 6;
+      long bit = 1L << square;
+      int hits = HITS * this.words + word;
+      if ((this.occupied(word) & bit) == 0) {
+         this.bits[MISSES * this.words + word] |= bit;
+         return false;
+      }
+      boolean hit = (this.bits[hits] & bit) == 0;
+      this.bits[hits] |= bit;
+      return hit;
+   }
+
+   /**
+    * Counts the squares with a ship on them that have not been hit.
+    *
+    * @return The number of ship squares left.
+    */
+   @Override
+   public int getRemaining() {
+      int remaining = 0;
+      for (int word = 0; word < this.words; word++) {
+         long afloat = this.occupied(word) & ~this.bits[HITS * this.words + word];
+         remaining += Long.bitCount(afloat);
+      }
+      return remaining;
+   }
+
+   /**
+    * Lists every square that has been fired on, hit or miss. Only the set
+    * bits of the hit and miss planes are visited.
+    *
+    * @return The number of each square fired on, row by row, in order.
+    */
+   @Override
+   public int[] getShots() {
+      int count = 0;
+      for (int word = 0; word < this.words; word++) {
+         count += Long.bitCount(this.fired(word));
+      }
+      int[] shots = new int[count];
+      count = 0;
+      for (int word = 0; word < this.words; word++) {
+         for (long fired = this.fired(word); fired != 0; fired &= fired - 1) {
+            shots[count++] = (word << 6) + Long.numberOfTrailingZeros(fired);
+         }
+      }
+      return shots;
+   }
+
+   /**
+    * Returns the symbol on each square, as the owner or an enemy sees it.
+    * Only the set bits of each plane are visited.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @return The symbol on each square, row by row.
+    */
+   @Override
+   public byte[] getCells(boolean friendly) {
+      byte[] cells = new byte[this.size * this.size];
+      Arrays.fill(cells, (byte) Ship.EMPTY.symbol);
+      for (int word = 0; word < this.words; word++) {
+         int base = word << 6;
+         if (friendly) {
+            for (long ships = this.occupied(word); ships != 0; ships &= ships - 1) {
+               int bit = Long.numberOfTrailingZeros(ships);
+               cells[base + bit] = SYMBOLS[this.idAt(word, bit)];
+            }
+         }
+         this.mark(cells, base, this.bits[HITS * this.words + word],
+                   (byte) Ship.HIT.symbol);
+         this.mark(cells, base, this.bits[MISSES * this.words + word],
+                   (byte) Ship.MISS.symbol);
+      }
+      return cells;
+   }
+
+   /**
+    * Finds which squares of a word have a ship on them.
+    *
+    * @param word The index of the word.
+    * @return A bit for every occupied square.
+    */
+   private long occupied(int word) {
+      long occupied = 0;
+      for (int plane = 0; plane < ID_PLANES; plane++) {
+         occupied |= this.bits[plane * this.words + word];
+      }
+      return occupied;
+   }
+
+   /**
+    * Finds which squares of a word have been fired on.
+    *
+    * @param word The index of the word.
+    * @return A bit for every square hit or missed.
+    */
+   private long fired(int word) {
+      return this.bits[HITS * this.words + word]
+              | this.bits[MISSES * this.words + word];
+   }
+
+   /**
+    * Reads the id of the ship on a square from the id planes.
+    *
+    * @param word The index of the square's word.
+    * @param bit The square's bit in the word.
+    * @return The ship's id.
+    */
+   private int idAt(int word, int bit) {
+      int id = 0;
+      for (int plane = 0; plane < ID_PLANES; plane++) {
+         id |= (int) (this.bits[plane * this.words + word] >>> bit & 1) << plane;
+      }
+      return id;
+   }
+
+   /**
+    * Puts a symbol on every square whose bit is set in a word.
+    *
+    * @param cells The symbol on each square.
+    * @param base The index of the word's first square.
+    * @param word The bits to mark.
+    * @param symbol The symbol to put.
+    */
+   private void mark(byte[] cells, int base, long word, byte symbol) {
+      for (; word != 0; word &= word - 1) {
+         cells[base + Long.numberOfTrailingZeros(word)] = symbol;
+      }
+   }
+}
@@ -0,0 +1,134 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The simplest strategy: fire at a random square not yet tried of the
+ * first opponent still in the game, paying no heed to what the shots did.
+ * It is the yardstick the other strategies are measured against.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Blind implements Strategy {
+
+   /** The player's name in the game. */
+   private String name;
+
+   /** The size of the grids. */
+   private int size;
+
+   /** The opponents still in the game, in the order they joined. */
+   private List<String> opponents;
+
+   /** The squares of each opponent's grid not yet fired at. */
+   private Map<String, Shuffle> targets;
+
+   /** The opponent of the shot fired last, or null. */
+   private String victim;
+
+   /** Where the randomness comes from. */
+   private SplittableRandom random;
+
+   /**
+    * Constructor for a Blind player.
+    *
+    * @param name The player's name in the game.
+    * @param size The size of the grids.
+    * @param random Where the randomness comes from.
+    */
+   public Blind(String name, int size, SplittableRandom random) {
+      this.name = name;
+      this.size = size;
+      this.random = random;
+      this.opponents = new ArrayList<>();
+      this.targets = new HashMap<>();
+   }
+
+   /**
+    * Accessor for the player's name.
+    *
+    * @return The player's name in the game.
+    */
+   @Override
+   public String getName() {
+      return this.name;
+   }
+
+   /**
+    * Takes note of a player who joined the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void joined(String player) {
+      if (!player.equals(this.name) && !this.opponents.contains(player)) {
+         this.opponents.add(player);
+      }
+   }
+
+   /**
+    * Takes note of a player who is out of the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void left(String player) {
+      this.opponents.remove(player);
+      this.targets.remove(player);
+   }
+
+   /**
+    * Indicates whether the shot fired last was aimed at a player.
+    *
+    * @param player The player's name.
+    * @return True if the shot fired last was at them.
+    */
+   @Override
+   public boolean isAimingAt(String player) {
+      return player.equals(this.victim);
+   }
+
+   /**
+    * Picks a square not yet tried of the first opponent still in the game.
+    *
+    * @return The attack to send, or null if there is nobody left to fire at.
+    */
+   @Override
+   public String aim() {
+      if (this.opponents.isEmpty()) {
+         return null;
+      }
+      String target = this.opponents.get(0);
+      Shuffle squares = this.targets.get(target);
+      if (squares == null) {
+         squares = new Shuffle(this.size, this.random.split());
+         this.targets.put(target, squares);
+      }
+      if (!squares.hasNext()) {
+         this.left(target); // Nothing left to fire at. They must be gone.
+         return this.aim();
+      }
+      int square = squares.next();
+      this.victim = target;
+      return "/attack " + target + " " + square / this.size + " "
+             + square % this.size;
+   }
+
+   /**
+    * Takes in what the shot fired last did, which changes nothing.
+    *
+    * @param victim The player the shot was fired at.
+    * @param shot What the shot did.
+    * @param ship The ship it sank, or null.
+    */
+   @Override
+   public void fired(String victim, Shot shot, Ship ship) {
+      this.victim = null;
+   }
+}
@@ -0,0 +1,94 @@
+package server;
+
+/**
+ * A Board stores what is on each square of one player's grid: which ship,
+ * if any, and whether the square has been fired at. Grid decides where the
+ * ships go and what the players see; a Board only remembers. Boards can be
+ * stored in different ways, chosen with
+ * -Dbattleship.board=auto|bits|array|sparse.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public interface Board {
+
+   /**
+    * Accessor for the size of this board.
+    *
+    * @return The number of rows, and of columns.
+    */
+   int getSize();
+
+   /**
+    * Indicates whether a square has no ship on it.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if the square has no ship. False otherwise.
+    */
+   boolean isEmpty(int i, int j);
+
+   /**
+    * Puts part of a ship on an empty square.
+    *
+    * @param ship The ship.
+    * @param i The row of the square.
+    * @param j The column of the square.
+    */
+   void put(Ship ship, int i, int j);
+
+   /**
+    * Fires at a square. A ship that is hit burns, and water that is hit is
+    * marked as a miss.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if a ship was hit that had not been hit there before.
+    */
+   boolean fire(int i, int j);
+
+   /**
+    * Counts the squares with a ship on them that have not been hit.
+    *
+    * @return The number of ship squares left.
+    */
+   int getRemaining();
+
+   /**
+    * Lists every square that has been fired on, hit or miss.
+    *
+    * @return The number of each square fired on, row by row, in order.
+    */
+   int[] getShots();
+
+   /**
+    * Returns the symbol on each square, as the owner or an enemy sees it.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @return The symbol on each square, row by row.
+    */
+   byte[] getCells(boolean friendly);
+
+   /**
+    * Returns the symbol on each square of a window onto the board. By
+    * default the window is cut out of the whole board.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @param top The row at the top of the window.
+    * @param left The column at the left of the window.
+    * @param rows The number of rows in the window.
+    * @param cols The number of columns in the window.
+    * @return The symbol on each square of the window, row by row.
+    */
+   default byte[] getCells(boolean friendly, int top, int left, int rows,
+                           int cols) {
+      byte[] all = this.getCells(friendly);
+      int size = this.getSize();
+      byte[] cells = new byte[rows * cols];
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(all, (top + i) * size + left, cells, i * cols, cols);
+      }
+      return cells;
+   }
+}
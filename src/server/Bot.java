@@ -0,0 +1,200 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * How a bot plays by default: which player to fire at and where. It keeps a
+ * Density of every opponent's grid and learns from each of its own shots.
+ * It finishes off a ship it has wounded before anything else, and otherwise
+ * stays on one opponent until they are out of the game, so its shots are
+ * not spread thin over every grid.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Bot implements Strategy {
+
+   /** The bot's name in the game. */
+   private String name;
+
+   /** The size of the grids. */
+   private int size;
+
+   /** The opponents still in the game, in the order they joined. */
+   private List<String> opponents;
+
+   /** What the bot knows of each opponent's grid. */
+   private Map<String, Density> grids;
+
+   /** The opponent the bot fires at when no ship is wounded, or null. */
+   private String focus;
+
+   /** The opponent of the shot fired last, or null. */
+   private String victim;
+
+   /** The row of the shot fired last. */
+   private int x;
+
+   /** The column of the shot fired last. */
+   private int y;
+
+   /** Where the randomness for breaking ties comes from. */
+   private SplittableRandom random;
+
+   /**
+    * Constructor for a Bot.
+    *
+    * @param name The bot's name in the game.
+    * @param size The size of the grids.
+    * @param random Where the randomness for breaking ties comes from.
+    */
+   public Bot(String name, int size, SplittableRandom random) {
+      this.name = name;
+      this.size = size;
+      this.random = random;
+      this.opponents = new ArrayList<>();
+      this.grids = new HashMap<>();
+   }
+
+   /**
+    * Accessor for the bot's name.
+    *
+    * @return The bot's name in the game.
+    */
+   @Override
+   public String getName() {
+      return this.name;
+   }
+
+   /**
+    * Takes note of a player who joined the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void joined(String player) {
+      if (!player.equals(this.name) && !this.opponents.contains(player)) {
+         this.opponents.add(player);
+      }
+   }
+
+   /**
+    * Takes note of a player who is out of the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void left(String player) {
+      this.opponents.remove(player);
+      this.grids.remove(player);
+      if (player.equals(this.focus)) {
+         this.focus = null;
+      }
+   }
+
+   /**
+    * Indicates whether the shot fired last, whose outcome is not yet known,
+    * was aimed at a player.
+    *
+    * @param player The player's name.
+    * @return True if the bot is waiting to hear about a shot at them.
+    */
+   @Override
+   public boolean isAimingAt(String player) {
+      return player.equals(this.victim);
+   }
+
+   /**
+    * Picks the next shot and remembers it, so that what it did can be taken
+    * in once the game says.
+    *
+    * @return The attack to send, or null if there is nobody left to fire at.
+    */
+   @Override
+   public String aim() {
+      String target = null;
+      for (String opponent : this.opponents) {
+         Density grid = this.grids.get(opponent);
+         if (grid != null && grid.isWounded()) {
+            target = opponent;
+            break;
+         }
+      }
+      if (target == null) {
+         if (this.focus == null && !this.opponents.isEmpty()) {
+            this.focus = this.opponents.get(0);
+         }
+         target = this.focus;
+      }
+      if (target == null) {
+         return null;
+      }
+      int square = this.gridOf(target).next();
+      if (square < 0) {
+         this.left(target); // Nothing left to fire at. They must be gone.
+         return this.aim();
+      }
+      this.victim = target;
+      this.x = square / this.size;
+      this.y = square % this.size;
+      return "/attack " + target + " " + this.x + " " + this.y;
+   }
+
+   /**
+    * Takes in what the shot fired last did.
+    *
+    * @param victim The player the shot was fired at.
+    * @param shot What the shot did.
+    * @param ship The ship it sank, or null.
+    */
+   @Override
+   public void fired(String victim, Shot shot, Ship ship) {
+      if (victim.equals(this.victim) && this.grids.containsKey(victim)) {
+         this.grids.get(victim).record(this.x, this.y, shot, ship);
+      }
+      this.victim = null;
+   }
+
+   /**
+    * Takes in every shot anyone has fired at an opponent. A square of a ship
+    * that sank is taken as a miss: no ship still afloat can lie over it,
+    * which is all the bot needs to know of it.
+    *
+    * @param player The opponent.
+    * @param sight What can be seen of their grid.
+    */
+   @Override
+   public void recall(String player, Sighting sight) {
+      Density grid = this.gridOf(player);
+      for (int square : sight.getMisses()) {
+         grid.record(square / this.size, square % this.size, Shot.MISS, null);
+      }
+      for (int square : sight.getSunk()) {
+         grid.record(square / this.size, square % this.size, Shot.MISS, null);
+      }
+      for (int square : sight.getHits()) {
+         grid.record(square / this.size, square % this.size, Shot.HIT, null);
+      }
+   }
+
+   /**
+    * Finds what the bot knows of an opponent's grid, starting afresh the
+    * first time the bot fires at them.
+    *
+    * @param opponent The opponent's name.
+    * @return What the bot knows of their grid.
+    */
+   private Density gridOf(String opponent) {
+      Density grid = this.grids.get(opponent);
+      if (grid == null) {
+         grid = new Density(this.size, this.random.split());
+         this.grids.put(opponent, grid);
+      }
+      return grid;
+   }
+}
@@ -0,0 +1,282 @@
+package server;
+
+import common.Agent;
+import common.GridView;
+
+import java.util.List;
+
+/**
+ * A BotAgent seats a Bot in a room as if it were a client. The room sends it
+ * everything it sends a player, and the agent reads the announcements to
+ * learn whose turn it is, what its own shots did and who is out of the
+ * game. Its commands reach the server the way a client's do, so the room
+ * takes its turns in order with everyone else's.
+ *
+ * A bot decides a move in microseconds, on the room's own thread, but sends
+ * it only once -Dbattleship.bot.millis (200 by default) have passed. A game
+ * of nothing but bots then takes little of the server's time however many
+ * are running, and people watching can follow it. Such a game runs on the
+ * lobby's bot shards, so it never takes a turn from a room with people
+ * playing in it.
+ *
+ * The move is sent from the lobby's timer thread. The server's listeners
+ * are kept in a copy-on-write list, so that is safe even while the room is
+ * letting the bot go. Until the game says what a move did, announcements
+ * that it is the bot's turn again, such as after someone surrenders, are
+ * not taken as a call for another move. The bot only remembers one shot,
+ * so a second would take in the first one's outcome at the wrong square.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class BotAgent extends Agent {
+
+   /** How long a bot waits before sending a move, in milliseconds. */
+   private static final long BOT_MILLIS =
+           Long.getLong("battleship.bot.millis", 200);
+
+   /** The strategy of the bot playing through this agent. */
+   private Strategy bot;
+
+   /** The lobby whose timer paces the bot's moves. */
+   private Lobby lobby;
+
+   /** True while the bot is still in a game in play. */
+   private boolean playing;
+
+   /** True while the bot may fire: on its turn, or while a volley is open. */
+   private boolean turn;
+
+   /**
+    * True from when the bot aims a shot until the game says what it did or
+    * turns it away.
+    */
+   private boolean pending;
+
+   /**
+    * How many moves the bot has decided. A move waiting to be sent is
+    * dropped if a later one replaced it.
+    */
+   private volatile int moves;
+
+   /** True once the room has let the bot go. */
+   private volatile boolean closed;
+
+   /**
+    * Constructor for a BotAgent.
+    *
+    * @param bot The strategy of the bot playing through this agent.
+    * @param lobby The lobby whose timer paces the bot's moves.
+    */
+   public BotAgent(Strategy bot, Lobby lobby) {
+      this.bot = bot;
+      this.lobby = lobby;
+   }
+
+   /**
+    * Sends a command from the bot straight away, as a client would.
+    *
+    * @param command The command.
+    */
+   void send(String command) {
+      if (!this.closed) {
+         this.notifyReceipt(command);
+      }
+   }
+
+   /**
+    * Sends a move once the bot's delay has passed, unless the bot has
+    * decided another since.
+    *
+    * @param command The move.
+    * @param move The number of the move.
+    */
+   private void send(String command, int move) {
+      if (move == this.moves) {
+         this.send(command);
+      }
+   }
+
+   /**
+    * Reads a message from the room one line at a time, and moves if it is
+    * the bot's turn.
+    *
+    * @param message The message sent to the bot.
+    */
+   @Override
+   public void sendMessage(String message) {
+      boolean move = false;
+      for (String line : message.split("\n")) {
+         move = this.read(line, move);
+      }
+      if (move && this.playing) {
+         this.move();
+      }
+   }
+
+   /**
+    * Decides the bot's next shot and sends it once the bot's delay has
+    * passed.
+    */
+   private void move() {
+      String command = this.bot.aim();
+      if (command != null) {
+         int move = ++this.moves;
+         this.pending = true;
+         this.lobby.schedule(() -> this.send(command, move), BOT_MILLIS);
+      }
+   }
+
+   /**
+    * Picks a game back up once the bot has its seat back after the server
+    * restarted. The bot takes in what can be seen of every grid, forgets
+    * the players no longer in the game, and moves if it may fire. Called on
+    * the room's thread.
+    *
+    * @param seats The name of every player who has joined the game.
+    * @param game The game.
+    */
+   void resume(List<String> seats, Game game) {
+      String name = this.bot.getName();
+      for (String seat : seats) {
+         Sighting sight = game.sight(seat);
+         if (sight == null) {
+            this.left(seat);
+         } else if (!seat.equals(name)) {
+            this.bot.recall(seat, sight);
+         }
+      }
+      this.playing = game.isInPlay() && game.isPlayer(name);
+      this.turn = this.playing && (game.isSimultaneous()
+                                   || name.equals(game.getCurrentPlayer()));
+      if (this.turn) {
+         this.move();
+      }
+   }
+
+   /**
+    * Takes in one line of a message. The bot moves when its turn comes or
+    * a volley opens, unless its last move has yet to land, and aims again
+    * if the player it aimed at leaves the game or its attack is turned away
+    * before the shot lands.
+    *
+    * @param line The line.
+    * @param move Whether an earlier line said the bot should move.
+    * @return Whether the bot should move once the message is read.
+    */
+   private boolean read(String line, boolean move) {
+      final String TURN = " it is your turn";
+      final String FIRE_AT_WILL = "Everyone fire at will";
+      final String ELIMINATED = " has been eliminated!";
+      final String SURRENDER = "!!! ";
+      final String SURRENDERED = " surrendered";
+      final String REFUSED = "Invalid command: /attack ";
+      final String FAILED = "Move Failed";
+      final String BEGINS = "The game begins";
+      final String GAME_OVER = "GAME OVER";
+      String name = this.bot.getName();
+      String left = null;
+      if (line.startsWith(Strategy.SHOTS)) {
+         if (Strategy.readShot(this.bot, line)) {
+            this.pending = false;
+         }
+      } else if (line.equals(name + TURN) || line.equals(FIRE_AT_WILL)) {
+         this.turn = true;
+         move |= !this.pending;
+      } else if (line.endsWith(TURN)) {
+         this.turn = false;
+         move = false;
+      } else if (line.endsWith(ELIMINATED)) {
+         left = line.substring(0, line.length() - ELIMINATED.length());
+      } else if (line.startsWith(SURRENDER) && line.endsWith(SURRENDERED)) {
+         left = line.substring(SURRENDER.length(),
+                               line.length() - SURRENDERED.length());
+      } else if (line.startsWith(REFUSED)) {
+         int end = line.indexOf(' ', REFUSED.length());
+         left = line.substring(REFUSED.length(), end < 0 ? line.length() : end);
+         // A move replaced since may still be on its way.
+         this.pending &= !this.bot.isAimingAt(left);
+      } else if (line.startsWith(FAILED)) {
+         this.pending = false;
+      } else if (line.equals(BEGINS)) {
+         this.playing = true;
+      } else if (line.startsWith(GAME_OVER)) {
+         this.playing = false;
+         this.turn = false;
+         this.pending = false;
+         move = false;
+      }
+      if (left != null) {
+         move |= this.turn && this.bot.isAimingAt(left);
+         this.left(left);
+      }
+      return move;
+   }
+
+   /**
+    * Takes note of a player who is out of the game, who may be the bot.
+    *
+    * @param player The player's name.
+    */
+   private void left(String player) {
+      if (player.equals(this.bot.getName())) {
+         this.playing = false;
+      }
+      this.bot.left(player);
+   }
+
+   /**
+    * Bots need no grids drawn.
+    *
+    * @param player The player whose grid it is.
+    * @param view The part of the grid shown.
+    */
+   @Override
+   public void sendGrid(String player, GridView view) {
+   }
+
+   /**
+    * Takes note of a player the room has seated.
+    *
+    * @param id The player's id.
+    * @param name The player's name.
+    */
+   @Override
+   public void sendPlayer(int id, String name) {
+      this.bot.joined(name);
+   }
+
+   /**
+    * Nothing waits to be sent to a bot.
+    */
+   @Override
+   public void flush() {
+   }
+
+   /**
+    * Indicates whether the bot is still in its room.
+    *
+    * @return True until the bot is let go. False after.
+    */
+   @Override
+   public boolean isConnected() {
+      return !this.closed;
+   }
+
+   /**
+    * Lets the bot go. Moves it was waiting to send are dropped.
+    */
+   @Override
+   public void close() {
+      this.closed = true;
+   }
+
+   /**
+    * Lets the bot go at once.
+    */
+   @Override
+   protected void abort() {
+      this.closed = true;
+   }
+}
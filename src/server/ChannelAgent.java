@@ -0,0 +1,345 @@
+package server;
+
+import common.Agent;
+import common.Broadcast;
+import common.FrameDecoder;
+import common.GridView;
+import common.LineDecoder;
+import common.Outbox;
+import common.Protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A ChannelAgent is the non-blocking counterpart of a ConnectionAgent. It
+ * does not own a thread. Instead an EventLoop tells it when its channel can be
+ * read or written, and it notifies its observers of each complete command.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class ChannelAgent extends Agent {
+
+   /** The size of the buffer used to read from the channel. */
+   private static final int BUFFER_SIZE = 4096;
+
+   /** The channel used for communication with a remote host. */
+   private SocketChannel channel;
+
+   /** The loop that services this agent. */
+   private EventLoop loop;
+
+   /** This agent's registration with the loop's selector. */
+   private SelectionKey key;
+
+   /** Bytes read from the channel but not yet examined. */
+   private ByteBuffer in;
+
+   /** Cuts text commands out of the bytes read. */
+   private LineDecoder lines;
+
+   /** Messages waiting to be written to the channel. */
+   private Outbox out;
+
+   /** True while this agent is waiting for its loop to write it out. */
+   private AtomicBoolean writeRequested;
+
+   /** True once the connection should close after its last write. */
+   private volatile boolean closing;
+
+   /** True once the first byte has told us which protocol the client uses. */
+   private boolean detected;
+
+   /** True if the client speaks the binary protocol. */
+   private volatile boolean binary;
+
+   /** Cuts binary frames out of the bytes read, once we know it is binary. */
+   private FrameDecoder frames;
+
+   /** Player ids sent by the client. Clients never send any. */
+   private Map<String, Integer> roster;
+
+   /**
+    * Constructor.
+    *
+    * @param channel The channel through which to communicate with a remote host.
+    * @param loop The loop that will service this agent.
+    * @throws IOException if the channel cannot be made non-blocking.
+    */
+   public ChannelAgent(SocketChannel channel, EventLoop loop)
+           throws IOException {
+      this.channel = channel;
+      this.channel.configureBlocking(false);
+      this.loop = loop;
+      this.in = ByteBuffer.allocate(BUFFER_SIZE);
+      this.lines = new LineDecoder();
+      this.out = newOutbox();
+      this.writeRequested = new AtomicBoolean(false);
+      this.roster = new HashMap<>();
+   }
+
+   /**
+    * Queues a message to be sent across the network at the next flush.
+    *
+    * @param message The message to be sent across the network.
+    */
+   @Override
+   public void sendMessage(String message) {
+      if (this.binary) {
+         this.enqueue(Protocol.encodeMessage(message));
+      } else {
+         String text = message + System.lineSeparator();
+         this.enqueue(text.getBytes(StandardCharsets.UTF_8));
+      }
+   }
+
+   /**
+    * Queues this agent's own view of a broadcast's encoded bytes.
+    *
+    * @param broadcast The message being broadcast.
+    */
+   @Override
+   public void sendBroadcast(Broadcast broadcast) {
+      this.enqueue(this.binary ? broadcast.asBinary() : broadcast.asText());
+   }
+
+   /**
+    * Asks the loop to write out everything queued on its next pass. However
+    * many times this is called before then, the loop writes once, with a
+    * single gathering write where the channel allows.
+    */
+   @Override
+   public void flush() {
+      if (this.writeRequested.compareAndSet(false, true)) {
+         this.loop.requestWrite(this);
+      }
+   }
+
+   /**
+    * Queues a grid to be sent across the network.
+    *
+    * @param player The player whose grid it is.
+    * @param view The window onto the grid.
+    */
+   @Override
+   public void sendGrid(String player, GridView view) {
+      this.enqueue(this.binary ? view.asBinary() : view.asText(), player);
+   }
+
+   /**
+    * Queues the id of a player to be sent, if the client speaks binary.
+    *
+    * @param id The player's id.
+    * @param name The player's name.
+    */
+   @Override
+   public void sendPlayer(int id, String name) {
+      if (this.binary) {
+         this.enqueue(Protocol.encodePlayer(id, name));
+      }
+   }
+
+   /**
+    * Indicates whether the client speaks the binary protocol.
+    *
+    * @return True if the client speaks the binary protocol. False otherwise.
+    */
+   @Override
+   public boolean isBinary() {
+      return this.binary;
+   }
+
+   /**
+    * Indicates whether this agent is connected to a remote host.
+    *
+    * @return True if we are connected. False otherwise.
+    */
+   @Override
+   public boolean isConnected() {
+      return this.channel.isConnected();
+   }
+
+   /**
+    * Closes this connection once everything queued has been written. The
+    * loop does the closing.
+    */
+   @Override
+   public void close() {
+      this.closing = true;
+      this.flush();
+   }
+
+   /**
+    * Closes this connection at once, throwing away anything still queued.
+    */
+   @Override
+   protected void abort() {
+      this.closeQuietly();
+   }
+
+   /**
+    * Registers this agent's channel with a selector. Called by the loop's
+    * thread.
+    *
+    * @param selector The selector of the loop that services this agent.
+    */
+   void register(Selector selector) {
+      try {
+         this.key = this.channel.register(selector, SelectionKey.OP_READ, this);
+         this.write(); // Anything flushed before we were registered.
+      } catch (IOException ioe) {
+         this.closeQuietly();
+         this.hangUp();
+      }
+   }
+
+   /**
+    * Reads whatever the channel has available and notifies all observers of
+    * every complete command. The first byte ever read decides whether the
+    * client speaks text or binary. When the client hangs up or the
+    * connection fails, observers are told this source has closed. Called by
+    * the loop's thread.
+    */
+   void read() {
+      try {
+         if (this.channel.read(this.in) < 0) {
+            this.closeQuietly();
+            this.hangUp();
+            return;
+         }
+         this.in.flip();
+         if (!this.detected && this.in.hasRemaining()) {
+            this.detected = true;
+            if (this.in.get(this.in.position()) == Protocol.HELLO) {
+               this.in.get();
+               this.frames = new FrameDecoder();
+               this.binary = true;
+            }
+         }
+         if (this.binary) {
+            this.readFrames();
+         } else {
+            this.readLines();
+         }
+         this.in.clear();
+      } catch (IOException | RuntimeException e) {
+         // The connection failed or sent a malformed frame.
+         this.closeQuietly();
+         this.hangUp();
+      }
+   }
+
+   /**
+    * Notifies all observers of every complete line in the input buffer.
+    *
+    * @throws IOException if a line is too long.
+    */
+   private void readLines() throws IOException {
+      String command;
+      while ((command = this.lines.next(this.in)) != null) {
+         this.notifyReceipt(command);
+      }
+   }
+
+   /**
+    * Notifies all observers of the text of every complete frame in the input
+    * buffer.
+    *
+    * @throws IOException if a frame is malformed.
+    */
+   private void readFrames() throws IOException {
+      ByteBuffer body;
+      while ((body = this.frames.next(this.in)) != null) {
+         String command = Protocol.decode(body, this.roster);
+         if (command != null) {
+            this.notifyReceipt(command);
+         }
+      }
+   }
+
+   /**
+    * Queues bytes for the next flush, or flushes right away if messages are
+    * not being coalesced.
+    *
+    * @param bytes The bytes to send.
+    */
+   private void enqueue(byte[] bytes) {
+      this.enqueue(ByteBuffer.wrap(bytes));
+   }
+
+   /**
+    * Queues bytes for the next flush, or flushes right away if messages are
+    * not being coalesced.
+    *
+    * @param bytes The bytes to send.
+    */
+   private void enqueue(ByteBuffer bytes) {
+      this.enqueue(bytes, null);
+   }
+
+   /**
+    * Queues bytes for the next flush, or flushes right away if messages are
+    * not being coalesced. A client whose queue overflows may be
+    * disconnected.
+    *
+    * @param bytes The bytes to send.
+    * @param key What the message is the latest state of, or null.
+    */
+   private void enqueue(ByteBuffer bytes, Object key) {
+      if (!this.out.add(bytes, key)) {
+         this.disconnect();
+      } else if (!COALESCE) {
+         this.flush();
+      }
+   }
+
+   /**
+    * Writes as much queued output as the channel will accept. If some is left
+    * over the loop is asked to tell us when the channel is writable again.
+    * Called by the loop's thread.
+    */
+   void write() {
+      if (this.key == null || !this.key.isValid()) {
+         return;
+      }
+      this.writeRequested.set(false);
+      try {
+         if (this.out.writeTo(this.channel)) {
+            if (this.closing) {
+               this.closeQuietly();
+               return;
+            }
+            this.key.interestOps(SelectionKey.OP_READ);
+         } else {
+            this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+         }
+      } catch (IOException ioe) {
+         this.closeQuietly();
+         this.hangUp();
+      }
+   }
+
+   /**
+    * Closes this connection right away, ignoring any further error. Called
+    * by the loop's thread, or by any thread to abort the connection.
+    */
+   private void closeQuietly() {
+      if (this.key != null) {
+         this.key.cancel();
+      }
+      try {
+         this.channel.close();
+      } catch (IOException ioe) {
+         ioe.printStackTrace();
+      }
+   }
+}
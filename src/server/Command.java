@@ -0,0 +1,156 @@
+package server;
+
+import common.Commands;
+
+/**
+ * A command sent by a player, parsed once into its parts. A Command never
+ * changes after it is made. One that is not well formed keeps its text, so
+ * the player can be told what was wrong with it.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Command {
+
+   /** The kind of command. */
+   private CommandType type;
+
+   /** The command as the player typed it. */
+   private String text;
+
+   /** True if the command has the right words for its kind. */
+   private boolean wellFormed;
+
+   /** The player the command names, or null if it names nobody. */
+   private String player;
+
+   /** The row of an attack, or the top row of a window to show. */
+   private int x;
+
+   /** The column of an attack, or the left column of a window to show. */
+   private int y;
+
+   /**
+    * Constructor for a Command.
+    *
+    * @param type The kind of command.
+    * @param text The command as the player typed it.
+    * @param wellFormed True if the command has the right words for its kind.
+    * @param player The player the command names, or null.
+    * @param x The row of an attack or window.
+    * @param y The column of an attack or window.
+    */
+   private Command(CommandType type, String text, boolean wellFormed,
+                   String player, int x, int y) {
+      this.type = type;
+      this.text = text;
+      this.wellFormed = wellFormed;
+      this.player = player;
+      this.x = x;
+      this.y = y;
+   }
+
+   /**
+    * Parses a text command. The words are read in place and the numbers of
+    * an attack or a window are parsed straight out of the text.
+    *
+    * @param text The command as the player typed it.
+    * @return The parsed command.
+    */
+   public static Command parse(String text) {
+      final int PLAYER_WORD = 1;
+      final int X_WORD = 2;
+      final int Y_WORD = 3;
+      CommandType type = CommandType.of(text);
+      int words = Commands.countWords(text);
+      if (!type.accepts(words)) {
+         return new Command(type, text, false, null, 0, 0);
+      }
+      String player = null;
+      int x = 0;
+      int y = 0;
+      if (words > PLAYER_WORD) {
+         int start = Commands.wordStart(text, PLAYER_WORD);
+         player = text.substring(start, Commands.wordEnd(text, start));
+      }
+      if (words > Y_WORD) {
+         try {
+            x = parseWord(text, X_WORD);
+            y = parseWord(text, Y_WORD);
+         } catch (NumberFormatException nfe) {
+            return new Command(type, text, false, null, 0, 0);
+         }
+      }
+      return new Command(type, text, true, player, x, y);
+   }
+
+   /**
+    * Parses a word of a command as a number, without copying it.
+    *
+    * @param text The command.
+    * @param n Which word to parse, counting from 0.
+    * @return The number.
+    * @throws NumberFormatException if the word is not a number.
+    */
+   private static int parseWord(String text, int n) {
+      int start = Commands.wordStart(text, n);
+      return Integer.parseInt(text, start, Commands.wordEnd(text, start), 10);
+   }
+
+   /**
+    * Accessor for the kind of command.
+    *
+    * @return The kind of command.
+    */
+   public CommandType getType() {
+      return this.type;
+   }
+
+   /**
+    * Accessor for the command as the player typed it.
+    *
+    * @return The text of the command.
+    */
+   public String getText() {
+      return this.text;
+   }
+
+   /**
+    * Indicates whether the command has the right words for its kind.
+    *
+    * @return True if the command is well formed. False otherwise.
+    */
+   public boolean isWellFormed() {
+      return this.wellFormed;
+   }
+
+   /**
+    * Accessor for the player the command names: the name to join as, the
+    * victim of an attack or the owner of a grid to show.
+    *
+    * @return The player the command names, or null.
+    */
+   public String getPlayer() {
+      return this.player;
+   }
+
+   /**
+    * Accessor for the row of an attack, or the top row of a window to show.
+    *
+    * @return The row, or 0 if the command names none.
+    */
+   public int getX() {
+      return this.x;
+   }
+
+   /**
+    * Accessor for the column of an attack, or the left column of a window to
+    * show.
+    *
+    * @return The column, or 0 if the command names none.
+    */
+   public int getY() {
+      return this.y;
+   }
+}
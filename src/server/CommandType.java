@@ -0,0 +1,122 @@
+package server;
+
+import common.Commands;
+
+/**
+ * An enum for the kinds of command a player can send to a game.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public enum CommandType {
+
+   /** Join the game under a name. */
+   JOIN("/join", 2),
+
+   /** Start the game. */
+   PLAY("/play", 1),
+
+   /** Fire at a square of another player's grid. */
+   ATTACK("/attack", 4),
+
+   /** Surrender. */
+   QUIT("/quit", 1),
+
+   /** Display a player's grid, or a window onto it at a row and column. */
+   SHOW("/show", 2, 4),
+
+   /** Seat a bot in the game, under a name or one the room picks. */
+   BOT("/bot", 1, 2),
+
+   /** Ask where on a player's grid a ship is most likely to be. */
+   HINT("/hint", 2),
+
+   /** Anything else. */
+   UNKNOWN("", 0);
+
+   /**
+    * Every kind of command, kept so that finding a command's kind does not
+    * copy the array that values() returns each time.
+    */
+   private static final CommandType[] TYPES = values();
+
+   /** The first word of the command. */
+   private String name;
+
+   /** The number of words in a well-formed command of this kind. */
+   private int numWords;
+
+   /** The number of words when the optional ones are given too. */
+   private int fullWords;
+
+   /**
+    * Constructor for a kind of command with no optional words.
+    *
+    * @param name The first word of the command.
+    * @param numWords The number of words in a well-formed command.
+    */
+   CommandType(String name, int numWords) {
+      this(name, numWords, numWords);
+   }
+
+   /**
+    * Constructor for the CommandType enum.
+    *
+    * @param name The first word of the command.
+    * @param numWords The number of words in a well-formed command.
+    * @param fullWords The number of words with the optional ones.
+    */
+   CommandType(String name, int numWords, int fullWords) {
+      this.name = name;
+      this.numWords = numWords;
+      this.fullWords = fullWords;
+   }
+
+   /**
+    * Finds the kind of a command from its first word.
+    *
+    * @param command The text command.
+    * @return The kind of command, or UNKNOWN.
+    */
+   public static CommandType of(String command) {
+      int end = Commands.wordEnd(command, 0);
+      for (CommandType type : TYPES) {
+         if (type.name.length() == end && command.startsWith(type.name)) {
+            return type;
+         }
+      }
+      return UNKNOWN;
+   }
+
+   /**
+    * Accessor for the number of words in a well-formed command of this kind.
+    *
+    * @return The number of words, counting the first.
+    */
+   public int getNumWords() {
+      return this.numWords;
+   }
+
+   /**
+    * Indicates whether a command of this kind may have the given number of
+    * words.
+    *
+    * @param words The number of words, counting the first.
+    * @return True if that many words is well formed. False otherwise.
+    */
+   public boolean accepts(int words) {
+      return this != UNKNOWN && (words == this.numWords
+                                 || words == this.fullWords);
+   }
+
+   /**
+    * Returns the first word of the command.
+    *
+    * @return The first word of the command.
+    */
+   @Override
+   public String toString() {
+      return this.name;
+   }
+}
@@ -0,0 +1,490 @@
+package server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A bot's picture of one enemy grid: for every square it has not fired at,
+ * how many places a ship could still lie over it. Squares with more ways
+ * to hold a ship are better shots. The picture is built once and then kept
+ * up to date one shot at a time: a miss or a sunk ship rules out only the
+ * placements through its squares, and a hit only favours the placements
+ * through it, so taking in a shot touches a few dozen squares however big
+ * the grid is.
+ *
+ * The squares are kept sorted by density in buckets, so the densest square
+ * is found without a search and a square moves down a bucket in constant
+ * time. Squares next to hits that have not sunk yet are scored separately,
+ * by how many hits the placements through them cover, and are always fired
+ * at first. A large grid is hunted one window at a time, since ships are
+ * spread evenly and a window is as good a place to look as any.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Density {
+
+   /** The most rows and columns hunted at a time. */
+   private static final int MAX_WINDOW = 256;
+
+   /** A square that has not been fired at. */
+   private static final byte UNKNOWN = 0;
+
+   /** A square fired at that held no ship. */
+   private static final byte MISS = 1;
+
+   /** A square hit on a ship that has not sunk yet, as far as we know. */
+   private static final byte HIT = 2;
+
+   /** A square of a ship that has sunk. */
+   private static final byte SUNK = 3;
+
+   /** How many kinds of ship there are of each length. */
+   private static final int[] WEIGHTS = weights();
+
+   /** The most placements, weighted, that can lie over one square. */
+   private static final int MAX_DENSITY = maxDensity();
+
+   /** The size of the enemy grid. */
+   private int size;
+
+   /** The row of the enemy grid at the top of the window. */
+   private int top;
+
+   /** The column of the enemy grid at the left of the window. */
+   private int left;
+
+   /** The number of rows in the window. */
+   private int rows;
+
+   /** The number of columns in the window. */
+   private int cols;
+
+   /** What is known about each square of the window. */
+   private byte[] state;
+
+   /** The weighted number of placements over each square of the window. */
+   private int[] density;
+
+   /** The squares of the window sorted by density, lowest first. */
+   private int[] order;
+
+   /** Where each square is in order. */
+   private int[] where;
+
+   /** Where the squares of each density start in order. */
+   private int[] first;
+
+   /** The highest density any square might still have. */
+   private int highest;
+
+   /** Where the sweep for squares left over has got to in the window. */
+   private int sweep;
+
+   /** The score of each square next to a hit that has not sunk. */
+   private Map<Integer, Integer> boost;
+
+   /** Where the randomness for breaking ties comes from. */
+   private SplittableRandom random;
+
+   /**
+    * Constructor for a Density of a grid nothing is known about.
+    *
+    * @param size The size of the enemy grid.
+    * @param random Where the randomness for breaking ties comes from.
+    */
+   public Density(int size, SplittableRandom random) {
+      this.size = size;
+      this.random = random;
+      this.boost = new HashMap<>();
+      int window = Math.min(size, MAX_WINDOW);
+      this.state = new byte[window * window];
+      this.density = new int[window * window];
+      this.order = new int[window * window];
+      this.where = new int[window * window];
+      this.first = new int[MAX_DENSITY + 2];
+      this.top = 0;
+      this.left = 0;
+      this.build();
+   }
+
+   /**
+    * Counts how many kinds of ship there are of each length.
+    *
+    * @return The number of kinds, indexed by length.
+    */
+   private static int[] weights() {
+      int[] weights = new int[Ship.CARRIER.getLength() + 1];
+      for (int id = 1; Ship.getById(id) != null; id++) {
+         weights[Ship.getById(id).getLength()]++;
+      }
+      return weights;
+   }
+
+   /**
+    * Works out the most placements, weighted, that can lie over a square:
+    * every ship lying across it or down it at every offset.
+    *
+    * @return The highest possible density.
+    */
+   private static int maxDensity() {
+      int max = 0;
+      for (int length = 1; length < WEIGHTS.length; length++) {
+         max += 2 * length * WEIGHTS[length];
+      }
+      return max;
+   }
+
+   /**
+    * Counts the placements over every square of a fresh window and sorts the
+    * squares into buckets by density. Done once per window.
+    */
+   private void build() {
+      this.rows = Math.min(this.size - this.top, MAX_WINDOW);
+      this.cols = Math.min(this.size - this.left, MAX_WINDOW);
+      int squares = this.rows * this.cols;
+      Arrays.fill(this.state, 0, squares, UNKNOWN);
+      Arrays.fill(this.density, 0, squares, 0);
+      for (int length = 1; length < WEIGHTS.length; length++) {
+         if (WEIGHTS[length] == 0) {
+            continue;
+         }
+         for (int r = 0; r < this.rows; r++) {
+            for (int c = 0; c < this.cols; c++) {
+               if (c + length <= this.cols) {
+                  for (int k = 0; k < length; k++) {
+                     this.density[r * this.cols + c + k] += WEIGHTS[length];
+                  }
+               }
+               if (r + length <= this.rows) {
+                  for (int k = 0; k < length; k++) {
+                     this.density[(r + k) * this.cols + c] += WEIGHTS[length];
+                  }
+               }
+            }
+         }
+      }
+      int[] counts = new int[MAX_DENSITY + 2];
+      for (int square = 0; square < squares; square++) {
+         counts[this.density[square] + 1]++;
+      }
+      for (int d = 1; d < counts.length; d++) {
+         counts[d] += counts[d - 1];
+      }
+      System.arraycopy(counts, 0, this.first, 0, counts.length);
+      for (int square = 0; square < squares; square++) {
+         int at = counts[this.density[square]]++;
+         this.order[at] = square;
+         this.where[square] = at;
+      }
+      this.highest = MAX_DENSITY;
+      this.sweep = 0;
+      this.boost.clear();
+   }
+
+   /**
+    * Indicates whether a ship on this grid has been hit and not yet sunk.
+    *
+    * @return True if there are squares next to such a hit. False otherwise.
+    */
+   public boolean isWounded() {
+      return !this.boost.isEmpty();
+   }
+
+   /**
+    * Picks the next square to fire at: the best square next to a hit if
+    * there is one, otherwise one of the densest squares, at random. A window
+    * with nothing left to find is swapped for the next one.
+    *
+    * @return The square's number on the enemy grid, row by row, or -1 if
+    *         every square has been fired at.
+    */
+   public int next() {
+      int best = -1;
+      int bestScore = 0;
+      for (Map.Entry<Integer, Integer> entry : this.boost.entrySet()) {
+         int square = entry.getKey();
+         int score = entry.getValue() * (MAX_DENSITY + 1) + this.density[square];
+         if (score > bestScore) {
+            best = square;
+            bestScore = score;
+         }
+      }
+      if (best < 0) {
+         while (this.highest > 0
+                 && this.first[this.highest] == this.first[this.highest + 1]) {
+            this.highest--;
+         }
+         if (this.highest > 0) {
+            int from = this.first[this.highest];
+            best = this.order[from + this.random.nextInt(
+                    this.first[this.highest + 1] - from)];
+         } else {
+            best = this.leftOver();
+            if (best < 0) {
+               return this.nextWindow() ? this.next() : -1;
+            }
+         }
+      }
+      return (this.top + best / this.cols) * this.size + this.left
+             + best % this.cols;
+   }
+
+   /**
+    * Finds a square of the window not yet fired at that no placement lies
+    * over. A ship can still be there if it runs off the window's edge, or if
+    * a ship that sank next to it was taken for another, so such squares are
+    * swept in order once nothing better is left.
+    *
+    * @return The square, in the window, or -1 if there is none.
+    */
+   private int leftOver() {
+      int squares = this.rows * this.cols;
+      while (this.sweep < squares && this.state[this.sweep] != UNKNOWN) {
+         this.sweep++;
+      }
+      return this.sweep < squares ? this.sweep : -1;
+   }
+
+   /**
+    * Moves on to the next window of a large grid, row by row.
+    *
+    * @return True if there was another window. False otherwise.
+    */
+   private boolean nextWindow() {
+      if (this.left + this.cols < this.size) {
+         this.left += this.cols;
+      } else if (this.top + this.rows < this.size) {
+         this.left = 0;
+         this.top += this.rows;
+      } else {
+         return false;
+      }
+      this.build();
+      return true;
+   }
+
+   /**
+    * Takes in what a shot did. Shots outside the window are ignored.
+    *
+    * @param i The row of the square fired at.
+    * @param j The column of the square fired at.
+    * @param shot What the shot did.
+    * @param ship The ship that sank, for a shot that sank one. Else null.
+    */
+   public void record(int i, int j, Shot shot, Ship ship) {
+      int r = i - this.top;
+      int c = j - this.left;
+      if (r < 0 || r >= this.rows || c < 0 || c >= this.cols) {
+         return;
+      }
+      int square = r * this.cols + c;
+      if (this.state[square] != UNKNOWN) {
+         return;
+      }
+      if (shot == Shot.MISS) {
+         this.block(square);
+         this.fired(square);
+         this.state[square] = MISS;
+      } else {
+         this.fired(square);
+         this.state[square] = HIT;
+         this.update(square, false);
+         if (ship != null) {
+            this.sink(r, c, ship.getLength());
+         }
+      }
+   }
+
+   /**
+    * Marks the squares of a ship that sank, which is the line of hits of
+    * its length through the square that sank it, and rules out every
+    * placement over them. If no such line is found, only the square that
+    * sank it is marked.
+    *
+    * @param r The row in the window of the square that sank the ship.
+    * @param c The column in the window of the square that sank the ship.
+    * @param length The length of the ship.
+    */
+   private void sink(int r, int c, int length) {
+      for (int across = 1; across >= 0; across--) {
+         for (int k = 0; k < length; k++) {
+            int r0 = across == 1 ? r : r - k;
+            int c0 = across == 1 ? c - k : c;
+            if (this.isHitLine(r0, c0, length, across == 1)) {
+               for (int n = 0; n < length; n++) {
+                  int square = across == 1 ? r0 * this.cols + c0 + n
+                          : (r0 + n) * this.cols + c0;
+                  this.block(square);
+                  this.state[square] = SUNK;
+               }
+               return;
+            }
+         }
+      }
+      int square = r * this.cols + c;
+      this.block(square);
+      this.state[square] = SUNK;
+   }
+
+   /**
+    * Indicates whether a line of squares is all hits on ships not yet sunk.
+    *
+    * @param r The row in the window of the line's first square.
+    * @param c The column in the window of the line's first square.
+    * @param length The length of the line.
+    * @param across True for a line across. False for a line down.
+    * @return True if every square of the line is such a hit.
+    */
+   private boolean isHitLine(int r, int c, int length, boolean across) {
+      if (r < 0 || c < 0 || (across ? c + length > this.cols
+              : r + length > this.rows)) {
+         return false;
+      }
+      for (int n = 0; n < length; n++) {
+         int square = across ? r * this.cols + c + n : (r + n) * this.cols + c;
+         if (this.state[square] != HIT) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Rules out every placement over a square that had not been ruled out.
+    * Called before the square's state changes.
+    *
+    * @param square The square, in the window.
+    */
+   private void block(int square) {
+      this.update(square, true);
+   }
+
+   /**
+    * Changes the squares of one placement that have not been fired at:
+    * either takes the placement out of their density, along with the score
+    * its hits gave them, or adds one hit to their score.
+    *
+    * @param placement The placement's first square, in the window.
+    * @param length The length of the ship.
+    * @param step 1 for a ship across, or the window's width for one down.
+    * @param block True to rule the placement out. False for a new hit in it.
+    */
+   private void adjust(int placement, int length, int step, boolean block) {
+      int hits = block ? -this.hitsIn(placement, length, step) : 1;
+      for (int n = 0; n < length; n++) {
+         int square = placement + n * step;
+         if (this.state[square] != UNKNOWN) {
+            continue;
+         }
+         if (block) {
+            for (int w = 0; w < WEIGHTS[length]; w++) {
+               this.lower(square);
+            }
+         }
+         if (hits != 0) {
+            this.boost.merge(square, hits * WEIGHTS[length],
+                             (a, b) -> a + b == 0 ? null : a + b);
+         }
+      }
+   }
+
+   /**
+    * Counts the hits on ships not yet sunk in one placement.
+    *
+    * @param placement The placement's first square, in the window.
+    * @param length The length of the ship.
+    * @param step 1 for a ship across, or the window's width for one down.
+    * @return The number of hits.
+    */
+   private int hitsIn(int placement, int length, int step) {
+      int hits = 0;
+      for (int n = 0; n < length; n++) {
+         if (this.state[placement + n * step] == HIT) {
+            hits++;
+         }
+      }
+      return hits;
+   }
+
+   /**
+    * Adjusts every placement over a square that is still possible: on the
+    * window, and clear of misses and sunk ships.
+    *
+    * @param square The square, in the window.
+    * @param block True to rule the placements out. False for a new hit.
+    */
+   private void update(int square, boolean block) {
+      int r = square / this.cols;
+      int c = square % this.cols;
+      for (int length = 1; length < WEIGHTS.length; length++) {
+         if (WEIGHTS[length] == 0) {
+            continue;
+         }
+         for (int k = 0; k < length; k++) {
+            int across = r * this.cols + c - k;
+            if (c - k >= 0 && c - k + length <= this.cols
+                    && this.isOpen(across, length, 1)) {
+               this.adjust(across, length, 1, block);
+            }
+            int down = (r - k) * this.cols + c;
+            if (r - k >= 0 && r - k + length <= this.rows
+                    && this.isOpen(down, length, this.cols)) {
+               this.adjust(down, length, this.cols, block);
+            }
+         }
+      }
+   }
+
+   /**
+    * Indicates whether a placement is clear of misses and sunk ships.
+    *
+    * @param placement The placement's first square, in the window.
+    * @param length The length of the ship.
+    * @param step 1 for a ship across, or the window's width for one down.
+    * @return True if a ship could still lie there.
+    */
+   private boolean isOpen(int placement, int length, int step) {
+      for (int n = 0; n < length; n++) {
+         byte known = this.state[placement + n * step];
+         if (known == MISS || known == SUNK) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Takes a square that has just been fired at out of the running.
+    *
+    * @param square The square, in the window.
+    */
+   private void fired(int square) {
+      while (this.density[square] > 0) {
+         this.lower(square);
+      }
+      this.boost.remove(square);
+   }
+
+   /**
+    * Lowers a square's density by one, moving it to the top of the bucket
+    * below by swapping it with the first square of its own bucket.
+    *
+    * @param square The square, in the window.
+    */
+   private void lower(int square) {
+      int d = this.density[square];
+      int at = this.where[square];
+      int start = this.first[d];
+      int other = this.order[start];
+      this.order[at] = other;
+      this.where[other] = at;
+      this.order[start] = square;
+      this.where[square] = start;
+      this.first[d]++;
+      this.density[square] = d - 1;
+   }
+}
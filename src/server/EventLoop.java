@@ -0,0 +1,121 @@
+package server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An EventLoop services many non-blocking ChannelAgents from a single thread
+ * using a Selector. Agents are handed to a loop after they are accepted and
+ * stay on that loop for as long as they are connected.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class EventLoop implements Runnable {
+
+   /** The selector that tells this loop which agents are ready. */
+   private Selector selector;
+
+   /** Agents waiting to be registered with the selector. */
+   private Queue<ChannelAgent> registrations;
+
+   /** Agents flushed by some other thread since the last pass. */
+   private Queue<ChannelAgent> writes;
+
+   /** The thread in which this loop runs. */
+   private volatile Thread thread;
+
+   /**
+    * Constructor for an EventLoop.
+    *
+    * @throws IOException if the selector cannot be opened.
+    */
+   public EventLoop() throws IOException {
+      this.selector = Selector.open();
+      this.registrations = new ConcurrentLinkedQueue<>();
+      this.writes = new ConcurrentLinkedQueue<>();
+   }
+
+   /**
+    * Hands an agent to this loop. The agent is registered with the selector
+    * by the loop's own thread.
+    *
+    * @param agent The agent to service.
+    */
+   public void register(ChannelAgent agent) {
+      this.registrations.add(agent);
+      this.selector.wakeup();
+   }
+
+   /**
+    * Asks this loop to write an agent's queued output. If we are already on
+    * the loop's thread the output is written right away. Otherwise it is
+    * written on the loop's next pass, together with everything else queued
+    * for that agent by then.
+    *
+    * @param agent The agent with output to write.
+    */
+   void requestWrite(ChannelAgent agent) {
+      if (Thread.currentThread() == this.thread) {
+         agent.write();
+      } else {
+         this.writes.add(agent);
+         this.selector.wakeup();
+      }
+   }
+
+   /**
+    * Waits for agents to become readable or writable and services them until
+    * this loop's thread is interrupted.
+    */
+   @Override
+   public void run() {
+      this.thread = Thread.currentThread();
+      while (!this.thread.isInterrupted() && this.selector.isOpen()) {
+         try {
+            this.selector.select();
+            this.registerPending();
+            this.writePending();
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               ChannelAgent agent = (ChannelAgent) key.attachment();
+               if (key.isValid() && key.isReadable()) {
+                  agent.read();
+               }
+               if (key.isValid() && key.isWritable()) {
+                  agent.write();
+               }
+            }
+         } catch (IOException ioe) {
+            ioe.printStackTrace();
+         }
+      }
+   }
+
+   /**
+    * Registers every agent that was handed to this loop since the last pass.
+    */
+   private void registerPending() {
+      ChannelAgent agent;
+      while ((agent = this.registrations.poll()) != null) {
+         agent.register(this.selector);
+      }
+   }
+
+   /**
+    * Writes the output of every agent that was flushed since the last pass.
+    */
+   private void writePending() {
+      ChannelAgent agent;
+      while ((agent = this.writes.poll()) != null) {
+         agent.write();
+      }
+   }
+}
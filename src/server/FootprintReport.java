@@ -0,0 +1,153 @@
+package server;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import common.VirtualThreads;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports how much memory each idle connection costs a BattleServer in a
+ * given mode. A server is started in this JVM, the requested number of idle
+ * clients connect to it, and the growth in heap and platform threads is
+ * divided by the number of clients. Platform threads also reserve a native
+ * stack that is not part of the heap, so that reservation is estimated from
+ * the JVM's ThreadStackSize.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class FootprintReport {
+
+   /** The number of command line arguments. */
+   private final static int NUM_ARGS = 3;
+
+   /** How long to let the server settle after the clients connect. */
+   private final static int SETTLE_MILLIS = 2000;
+
+   /** The grid size used by the server under test. */
+   private final static int GRID_SIZE = 10;
+
+   /**
+    * Entry point into the program.
+    *
+    * @param args The port, the server mode and the number of connections.
+    */
+   public static void main(String[] args) {
+      if (args.length != NUM_ARGS) {
+         System.err.println("java server.FootprintReport <port> " +
+                            "<thread|nio|virtual> <connections>");
+         System.exit(1);
+      }
+      int port = Integer.parseInt(args[0]);
+      ServerMode mode = ServerMode.getByName(args[1]);
+      int connections = Integer.parseInt(args[2]);
+      if (mode == null) {
+         System.err.println("Invalid server mode: " + args[1]);
+         System.exit(1);
+      }
+      if (mode == ServerMode.VIRTUAL && !VirtualThreads.isSupported()) {
+         System.err.println("Virtual threads require Java 21");
+         System.exit(1);
+      }
+      try {
+         new FootprintReport().go(port, mode, connections);
+         System.exit(0); // The server under test has non-daemon threads.
+      } catch (IOException | InterruptedException e) {
+         e.printStackTrace();
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Runs the measurement and prints the report.
+    *
+    * @param port The port the server under test listens on.
+    * @param mode How the server under test services its connections.
+    * @param connections The number of idle clients to connect.
+    * @throws IOException if a client cannot connect.
+    * @throws InterruptedException if interrupted while waiting to settle.
+    */
+   private void go(int port, ServerMode mode, int connections)
+           throws IOException, InterruptedException {
+      BattleServer server = new BattleServer(port, GRID_SIZE, mode);
+      Thread listener = new Thread(() -> {
+         try {
+            server.listen();
+         } catch (IOException ioe) {
+            ioe.printStackTrace();
+         }
+      });
+      listener.setDaemon(true);
+      listener.start();
+      Thread.sleep(SETTLE_MILLIS);
+
+      long heapBefore = this.usedHeap();
+      int threadsBefore = this.liveThreads();
+      List<Socket> clients = new ArrayList<>();
+      InetAddress host = InetAddress.getLoopbackAddress();
+      for (int i = 0; i < connections; i++) {
+         clients.add(new Socket(host, port));
+      }
+      Thread.sleep(SETTLE_MILLIS);
+      long heapAfter = this.usedHeap();
+      int threadsAfter = this.liveThreads();
+
+      long heapPerConn = (heapAfter - heapBefore) / connections;
+      double threadsPerConn = (double) (threadsAfter - threadsBefore) / connections;
+      long stackPerConn = (long) (threadsPerConn * this.stackSize());
+      System.out.println("mode                      " + mode);
+      System.out.println("connections               " + connections);
+      System.out.println("platform threads added    " + (threadsAfter - threadsBefore));
+      System.out.println("heap bytes / connection   " + heapPerConn);
+      System.out.println("stack bytes / connection  " + stackPerConn + " (reserved)");
+      System.out.println("total bytes / connection  " + (heapPerConn + stackPerConn));
+      System.out.println("(heap includes the idle client sockets held by this report)");
+      for (Socket client : clients) {
+         client.close();
+      }
+   }
+
+   /**
+    * Collects garbage and returns the number of heap bytes still in use.
+    *
+    * @return The number of heap bytes in use.
+    * @throws InterruptedException if interrupted while waiting for the GC.
+    */
+   private long usedHeap() throws InterruptedException {
+      MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+         Thread.sleep(100);
+      }
+      return memory.getHeapMemoryUsage().getUsed();
+   }
+
+   /**
+    * Returns the number of live platform threads. Virtual threads are not
+    * counted.
+    *
+    * @return The number of live platform threads.
+    */
+   private int liveThreads() {
+      return ManagementFactory.getThreadMXBean().getThreadCount();
+   }
+
+   /**
+    * Returns the native stack each platform thread reserves.
+    *
+    * @return The stack size in bytes.
+    */
+   private long stackSize() {
+      HotSpotDiagnosticMXBean hotspot = ManagementFactory
+              .getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+      String kilobytes = hotspot.getVMOption("ThreadStackSize").getValue();
+      return Long.parseLong(kilobytes) * 1024;
+   }
+}
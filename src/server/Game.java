@@ -1,48 +1,58 @@
 package server;
 
+import common.GridView;
+import common.Protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
 
 /**
  * This class implements the logic for a game of Battleship. Multiple players
  * may join and each will have their own grid.
  *
+ * Players either take turns, or, in a simultaneous game, everyone still
+ * playing aims one shot per volley and the volley's shots land together once
+ * everyone has aimed or the room closes the volley.
+ *
  * @author Gatlin Cruz
  * @author Tommy Meek
  * @version November, 2020
  */
 public class Game {
 
-   /** The number of responses returned by the execute method. */
-   final int NUM_RESPONSES = 4;
-
-   /** The index that indicates if the sender should be removed. */
-   final int QUIT_INDEX = 0;
-
-   /** The index that indicates if the response should be global or private. */
-   final int PRIVATE_INDEX = 1;
-
-   /** The index that contains the contents of the response message. */
-   final int MSG_INDEX = 2;
-
-   /** The index that indicates if a player was eliminated. */
-   final int ELIMINATE_INDEX = 3;
+   /** The most rows and columns of a grid shown at once. */
+   public static final int MAX_VIEW = 20;
 
-   /** Flag indicating the response message is private. */
-   final String PRIVATE = "p";
+   /**
+    * The seed of every game, for games that play out the same way each time.
+    * Set it with -Dbattleship.seed. Each game picks its own seed otherwise.
+    */
+   private static final Long SEED = Long.getLong("battleship.seed");
 
-   /** Flag indicating the response message is global. */
-   final String GLOBAL = "g";
+   /**
+    * True if games are played in simultaneous volleys instead of turns. Set
+    * it with -Dbattleship.turns=simultaneous.
+    */
+   private static final boolean SIMULTANEOUS = "simultaneous".equalsIgnoreCase(
+           System.getProperty("battleship.turns", "sequential"));
 
-   /** Flag indicating the sender should be removed from the server. */
-   final String REMOVE = "r";
+   /** What everyone is told when a volley opens. */
+   private static final String FIRE_AT_WILL = "Everyone fire at will";
 
-   /** Flag indicating the sender should not be removed from the server. */
-   final String STAY = "";
+   /** The seed this game's randomness started from. */
+   private long seed;
 
-   /** Flag indicating no player was eliminated. */
-   final String NOBODY = "";
+   /** Where this game's randomness comes from. */
+   private SplittableRandom random;
 
    /** The size of the grids in this game. */
    private int size;
@@ -50,17 +60,29 @@ public class Game {
    /** The number of ships on each grid in this game. */
    private int numShips;
 
+   /** How many players have been dealt a grid. */
+   private int joins;
+
    /** True if the game is in progress. False otherwise. */
    private boolean inPlay;
 
-   /** Whose turn it is. */
-   private int current;
+   /** The seat of the player whose turn it is, or null before anyone joins. */
+   private Seat current;
 
-   /** A list of grids. One for each player. */
-   private List<Grid> grids;
+   /** The seat of every active player in the game, by name. */
+   private Map<String, Seat> players;
 
-   /** A list of active players in the game. */
-   private List<String> players;
+   /** True if players fire in volleys instead of taking turns. */
+   private boolean simultaneous;
+
+   /** The shot each player has aimed this volley, in the order aimed. */
+   private Map<String, Command> volley;
+
+   /** How many volleys have been resolved. */
+   private int volleys;
+
+   /** What to do for each kind of well-formed command. */
+   private Map<CommandType, BiFunction<Command, String, Result>> handlers;
 
    /**
     * Constructor for the Game class
@@ -68,12 +90,42 @@ public class Game {
     * @param size The size of the grids.
     */
    public Game(int size) {
+      this(size, SEED != null ? SEED : ThreadLocalRandom.current().nextLong());
+   }
+
+   /**
+    * Constructor for a Game whose fleets are drawn from a given seed.
+    *
+    * @param size The size of the grids.
+    * @param seed The seed of the game's randomness.
+    */
+   public Game(int size, long seed) {
+      this(size, seed, SIMULTANEOUS);
+   }
+
+   /**
+    * Constructor for a Game whose fleets are drawn from a given seed.
+    *
+    * @param size The size of the grids.
+    * @param seed The seed of the game's randomness.
+    * @param simultaneous True if players fire in volleys instead of turns.
+    */
+   public Game(int size, long seed, boolean simultaneous) {
+      this.seed = seed;
+      this.simultaneous = simultaneous;
+      this.volley = new LinkedHashMap<>();
+      this.random = new SplittableRandom(seed);
       this.numShips = getNumShips(size);
       this.size = size;
       this.inPlay = false;
-      this.current = 0;
-      this.grids = new ArrayList<>();
-      this.players = new ArrayList<>();
+      this.current = null;
+      this.players = new HashMap<>();
+      this.handlers = new EnumMap<>(CommandType.class);
+      this.handlers.put(CommandType.JOIN, (c, sender) -> this.join(c.getPlayer()));
+      this.handlers.put(CommandType.PLAY, (c, sender) -> this.play());
+      this.handlers.put(CommandType.ATTACK, this::attack);
+      this.handlers.put(CommandType.QUIT, (c, sender) -> this.quit(sender));
+      this.handlers.put(CommandType.SHOW, this::show);
    }
 
    /**
@@ -83,217 +135,385 @@ public class Game {
     * @return the number of ships on each grid.
     */
    private int getNumShips(int size) {
-      Random rand = new Random();
       int numShips = 0;
       switch (size) {
          case 5:
-            numShips = rand.nextInt(2) + 1; // 1-2
+            numShips = this.random.nextInt(2) + 1; // 1-2
             break;
          case 6:
          case 7:
-            numShips = rand.nextInt(2) + 2; // 2-3
+            numShips = this.random.nextInt(2) + 2; // 2-3
             break;
          case 8:
          case 9:
-            numShips = rand.nextInt(3) + 3; // 3-5
+            numShips = this.random.nextInt(3) + 3; // 3-5
             break;
          case 10:
-            numShips = rand.nextInt(3) + 4; // 4-6
+            numShips = this.random.nextInt(3) + 4; // 4-6
             break;
+         default:
+            // One ship for every two rows, give or take a fifth.
+            int base = size / 2;
+            numShips = base - base / 5 + this.random.nextInt(2 * (base / 5) + 1);
       }
       return numShips;
    }
 
    /**
-    * Executes a command according to what the command is.
+    * Parses and executes a text command.
     *
     * @param command The command entered by a user.
     * @param sender The player who sent the command.
-    * @return An array of Strings. Index 0 is a flag indicating if the user
-    *         that sent the message should be removed. "r" means remove them.
-    *         Empty string means do not. Index 1 is a flag indicating if the
-    *         response is global or private. "g" means global. "p" means
-    *         private. Index 2 is the response indicating the result of the
-    *         execution. Index 3 names a player who may have been eliminated.
-    */
-   public String[] execute(String command, String sender) {
-      String[] commands = command.split(" ");
-      String[] response = new String[NUM_RESPONSES];
-      if (this.validateCommand(commands)) {
-         switch (commands[0]) {
-            case "/join":
-               response = this.join(commands[1]);
-               break;
-            case "/play":
-               response = this.play();
-               break;
-            case "/attack":
-               int x = Integer.parseInt(commands[2]);
-               int y = Integer.parseInt(commands[3]);
-               response = this.attack(commands[1], sender, x, y);
-               break;
-            case "/quit":
-               response = this.quit(sender);
-               break;
-            case "/show":
-               response = this.show(commands[1], sender);
-               break;
-         }
-      } else {
-         response[QUIT_INDEX] = STAY;
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Invalid command: " + command;
-         response[ELIMINATE_INDEX] = NOBODY;
+    * @return What happened as a result of the command.
+    */
+   public Result execute(String command, String sender) {
+      return this.execute(Command.parse(command), sender);
+   }
+
+   /**
+    * Executes a command by looking up what to do for its kind.
+    *
+    * @param command The parsed command.
+    * @param sender The player who sent the command.
+    * @return What happened as a result of the command.
+    */
+   public Result execute(Command command, String sender) {
+      BiFunction<Command, String, Result> handler =
+              this.handlers.get(command.getType());
+      if (handler == null || !command.isWellFormed()) {
+         return this.invalid(command);
       }
-      return response;
+      return handler.apply(command, sender);
    }
 
    /**
     * Adds a new player to this game and creates a new grid for that player.
     *
     * @param player The new player's name.
-    * @return A string indicating what happened as a result of the command.
-    */
-   public String[] join(String player) {
-      String[] response = new String[NUM_RESPONSES];
-      response[ELIMINATE_INDEX] = NOBODY;
-      if (this.players.contains(player)) {
-         response[QUIT_INDEX] = REMOVE;
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = player + " is already in the game.";
+    * @return What happened as a result of the command.
+    */
+   public Result join(String player) {
+      Result result;
+      if (this.players.containsKey(player)) {
+         result = new Result(Result.REMOVE, player + " is already in the game.");
       } else if (this.inPlay) {
-         response[QUIT_INDEX] = REMOVE;
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Game already in progress";
+         result = new Result(Result.REMOVE, "Game already in progress");
       } else {
-         this.grids.add(new Grid(this.size, this.numShips));
-         this.players.add(player);
-         response[QUIT_INDEX] = STAY;
-         response[PRIVATE_INDEX] = GLOBAL;
-         response[MSG_INDEX] = "!!! " + player + " has joined";
+         Grid grid = new Grid(this.size, this.numShips, this.random.split());
+         this.joins++;
+         Seat seat = new Seat(player, grid);
+         if (this.current == null) {
+            this.current = seat;
+         } else {
+            seat.insertBefore(this.current); // Last in the turn order.
+         }
+         this.players.put(player, seat);
+         result = new Result(Result.GLOBAL, "!!! " + player + " has joined");
       }
-      return response;
+      return result;
+   }
+
+   /**
+    * Writes this game's state to a snapshot: how many grids were dealt,
+    * whether it is in play, the open volley, and every player still in it,
+    * with their grid, in turn order from the player whose turn it is. The
+    * size, seed and mode are the room's to write.
+    *
+    * @param out Where to write.
+    */
+   void write(ByteArrayOutputStream out) {
+      Protocol.writeVarint(out, this.joins);
+      out.write(this.inPlay ? 1 : 0);
+      Protocol.writeVarint(out, this.volleys);
+      Protocol.writeVarint(out, this.players.size());
+      Seat seat = this.current;
+      for (int n = 0; n < this.players.size(); n++) {
+         Protocol.writeString(out, seat.getName());
+         seat.getGrid().write(out);
+         seat = seat.getNext();
+      }
+      Protocol.writeVarint(out, this.volley.size());
+      for (Map.Entry<String, Command> shot : this.volley.entrySet()) {
+         Protocol.writeString(out, shot.getKey());
+         Protocol.writeString(out, shot.getValue().getPlayer());
+         Protocol.writeVarint(out, shot.getValue().getX());
+         Protocol.writeVarint(out, shot.getValue().getY());
+      }
+   }
+
+   /**
+    * Reads a game written to a snapshot. The randomness is wound on past
+    * the grids already dealt, so anyone who joins later is dealt the grid
+    * they would have been without the restart.
+    *
+    * @param in Where to read.
+    * @param size The size of the grids.
+    * @param seed The seed of the game's randomness.
+    * @param simultaneous True if players fire in volleys instead of turns.
+    * @return The game.
+    */
+   static Game read(ByteBuffer in, int size, long seed, boolean simultaneous) {
+      Game game = new Game(size, seed, simultaneous);
+      game.joins = Protocol.readVarint(in);
+      for (int n = 0; n < game.joins; n++) {
+         game.random.split();
+      }
+      game.inPlay = in.get() == 1;
+      game.volleys = Protocol.readVarint(in);
+      int numPlayers = Protocol.readVarint(in);
+      for (int n = 0; n < numPlayers; n++) {
+         String name = Protocol.readString(in);
+         Seat seat = new Seat(name, Grid.read(in, size));
+         if (game.current == null) {
+            game.current = seat;
+         } else {
+            seat.insertBefore(game.current);
+         }
+         game.players.put(name, seat);
+      }
+      int aimed = Protocol.readVarint(in);
+      for (int n = 0; n < aimed; n++) {
+         String attacker = Protocol.readString(in);
+         String victim = Protocol.readString(in);
+         int x = Protocol.readVarint(in);
+         int y = Protocol.readVarint(in);
+         game.volley.put(attacker,
+                         Command.parse("/attack " + victim + " " + x + " " + y));
+      }
+      return game;
    }
 
    /**
     * Initiates a game of Battleship.
     *
-    * @return A string indicating what happened as a result of the command.
+    * @return What happened as a result of the command.
     */
-   private String[] play() {
-      String[] response = new String[NUM_RESPONSES];
-      response[QUIT_INDEX] = STAY;
-      response[ELIMINATE_INDEX] = NOBODY;
+   private Result play() {
+      Result result;
       if (this.inPlay) {
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Game already in progress";
+         result = new Result(0, "Game already in progress");
       } else if (this.players.size() < 2) {
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Not enough players to play the game";
+         result = new Result(0, "Not enough players to play the game");
       } else {
          this.inPlay = true;
-         response[PRIVATE_INDEX] = GLOBAL;
-         response[MSG_INDEX] = "The game begins\n" + this.players.get(0) +
-                               " it is your turn";
+         String turn = this.simultaneous ? FIRE_AT_WILL
+                 : this.current.getName() + " it is your turn";
+         result = new Result(Result.GLOBAL, "The game begins\n" + turn);
       }
-      return response;
+      return result;
    }
 
    /**
     * Launch an attack against a location in another player's grid.
     *
-    * @param victim The player against whom the attack is directed.
+    * @param command The attack, naming the victim and the location.
     * @param sender The player who sent the command.
-    * @param x The x-coordinate of the location to be attacked.
-    * @param y The y-coordinate of the location to be attacked.
-    * @return A string indicating what happened as a result of the attack.
-    */
-   private String[] attack(String victim, String sender, int x, int y) {
-      String[] response = new String[NUM_RESPONSES];
-      response[QUIT_INDEX] = STAY;
-      String attacker = this.players.get(this.current);
-      response[ELIMINATE_INDEX] = NOBODY;
+    * @return What happened as a result of the attack.
+    */
+   private Result attack(Command command, String sender) {
+      String victim = command.getPlayer();
+      int x = command.getX();
+      int y = command.getY();
+      if (!this.isOnGrid(x, y) || !this.players.containsKey(victim)) {
+         return this.invalid(command);
+      }
+      Result result;
+      String attacker = this.current.getName();
       if (!this.inPlay) {
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Play not in progress";
-         response[ELIMINATE_INDEX] = NOBODY;
+         result = new Result(0, "Play not in progress");
+      } else if (this.simultaneous) {
+         result = this.aim(command, sender);
       } else if (!attacker.equals(sender) || sender.equals(victim)) {
-         response[PRIVATE_INDEX] = PRIVATE;
-         response[MSG_INDEX] = "Move Failed, player turn: " + attacker;
-         response[ELIMINATE_INDEX] = NOBODY;
+         result = new Result(0, "Move Failed, player turn: " + attacker);
       } else {
-         Grid victimsGrid = this.getGridByPlayerName(victim);
-         victimsGrid.shotsFired(x, y);
-         response[PRIVATE_INDEX] = GLOBAL;
-         response[MSG_INDEX] = "Shots Fired at " + victim + " by " + attacker;
-         if (victimsGrid.getTotalSquares() == 0) {
-            int eliminatedIndex = this.getPlayerIndexByName(victim);
-            response[ELIMINATE_INDEX] = Integer.toString(eliminatedIndex);
-            response[MSG_INDEX] += "\n" + victim + " has been eliminated!";
-            response[MSG_INDEX] += this.checkForEndGame(victim);
+         List<String> eliminated = new ArrayList<>();
+         String message = this.fire(attacker, command, eliminated);
+         if (!eliminated.isEmpty()) {
+            message += "\n" + victim + " has been eliminated!";
+            message += this.checkForEndGame(victim);
          }
-         this.current = (this.current + 1) % this.players.size();
+         this.current = this.current.getNext();
          if (this.inPlay) {
-            String newPlayer = this.players.get(this.current);
-            response[MSG_INDEX] += "\n" + newPlayer + " it is your turn";
+            String newPlayer = this.current.getName();
+            message += "\n" + newPlayer + " it is your turn";
+         }
+         result = new Result(Result.GLOBAL, message, eliminated);
+      }
+      return result;
+   }
+
+   /**
+    * Fires one shot and describes what it did.
+    *
+    * @param attacker The player firing.
+    * @param command The attack, naming the victim and the location.
+    * @param eliminated Where to add the victim if the shot eliminated them.
+    * @return A line telling everyone what happened.
+    */
+   private String fire(String attacker, Command command,
+                       List<String> eliminated) {
+      String victim = command.getPlayer();
+      int x = command.getX();
+      int y = command.getY();
+      Grid victimsGrid = this.players.get(victim).getGrid();
+      Shot shot = victimsGrid.shotsFired(x, y);
+      String outcome = shot.toString();
+      if (shot == Shot.SUNK || shot == Shot.ELIMINATED) {
+         outcome = "sunk " + victimsGrid.getVessel(x, y).getKind().name();
+      }
+      if (shot == Shot.ELIMINATED) {
+         eliminated.add(victim);
+      }
+      return "Shots Fired at " + victim + " by " + attacker + ": " + outcome;
+   }
+
+   /**
+    * Aims a player's shot for this volley, replacing any shot they aimed
+    * before. The volley is resolved as soon as everyone still playing has
+    * aimed.
+    *
+    * @param command The attack, naming the victim and the location.
+    * @param sender The player who sent the command.
+    * @return A private note that the shot is aimed, or the whole volley.
+    */
+   private Result aim(Command command, String sender) {
+      if (!this.players.containsKey(sender)) {
+         return new Result(0, "Move Failed, you are not playing");
+      }
+      if (sender.equals(command.getPlayer())) {
+         return new Result(0, "Move Failed, you cannot fire at yourself");
+      }
+      this.volley.put(sender, command);
+      if (this.volley.size() == this.players.size()) {
+         return this.resolveVolley();
+      }
+      return new Result(0, "Aimed at " + command.getPlayer() + " "
+                           + command.getX() + " " + command.getY());
+   }
+
+   /**
+    * Lands every shot aimed this volley, then takes out everyone left with no
+    * ships and opens the next volley. Every shot lands before anyone is taken
+    * out, so a player sunk this volley still fires. The room calls this when
+    * a volley's time is up.
+    *
+    * @return What happened, or null if the game is not in progress or nobody
+    *         aimed a shot.
+    */
+   public Result resolveVolley() {
+      if (!this.inPlay) {
+         return null;
+      }
+      this.volleys++;
+      if (this.volley.isEmpty()) {
+         return null;
+      }
+      StringBuilder message = new StringBuilder();
+      List<String> eliminated = new ArrayList<>();
+      for (Map.Entry<String, Command> shot : this.volley.entrySet()) {
+         if (message.length() > 0) {
+            message.append('\n');
          }
+         message.append(this.fire(shot.getKey(), shot.getValue(), eliminated));
       }
-      return response;
+      this.volley.clear();
+      for (String loser : eliminated) {
+         message.append('\n').append(loser).append(" has been eliminated!");
+         this.unseat(loser);
+      }
+      message.append(this.checkForWinner());
+      if (this.inPlay) {
+         message.append('\n').append(FIRE_AT_WILL);
+      }
+      return new Result(Result.GLOBAL, message.toString(), eliminated);
    }
 
    /**
-    * Forfeit the game.
+    * Forfeit the game. In a simultaneous game, anyone whose shot this
+    * volley was aimed at the quitter is told to aim again, and the volley
+    * is resolved at once if everyone left has aimed.
     *
     * @param quitter The player who sent the command.
     * @return An indication that the player surrendered.
     */
-   private String[] quit(String quitter) {
-      String[] response = new String[NUM_RESPONSES];
-      response[QUIT_INDEX] = REMOVE;
-      response[PRIVATE_INDEX] = PRIVATE;
-      response[ELIMINATE_INDEX] = NOBODY;
-      response[MSG_INDEX] = NOBODY;
-      if (this.players.contains(quitter)) {
-         response[MSG_INDEX] += "!!! " + quitter + " surrendered";
-         String currentPlayer = this.players.get(this.current);
-         response[PRIVATE_INDEX] = GLOBAL;
+   private Result quit(String quitter) {
+      int flags = Result.REMOVE;
+      String message = "";
+      if (this.players.containsKey(quitter)) {
+         message += "!!! " + quitter + " surrendered";
+         flags |= Result.GLOBAL;
          if (this.inPlay) {
-            response[MSG_INDEX] += this.checkForEndGame(quitter);
-            if (currentPlayer.equals(quitter)) {
-               this.current++;
-               this.current = Math.floorMod(this.current, this.players.size());
-            }
-            if (inPlay) {
-               String newPlayer = this.players.get(this.current);
-               response[MSG_INDEX] += "\n" + newPlayer + " it is your turn";
+            List<String> dropped = this.aimingAt(quitter);
+            message += this.checkForEndGame(quitter);
+            if (inPlay && !this.simultaneous) {
+               String newPlayer = this.current.getName();
+               message += "\n" + newPlayer + " it is your turn";
+            } else if (this.inPlay) {
+               for (String shooter : dropped) {
+                  message += "\n" + shooter + " your shot at " + quitter
+                             + " was dropped, aim again";
+               }
+               // Everyone left may have aimed already.
+               if (!this.volley.isEmpty()
+                       && this.volley.size() == this.players.size()) {
+                  Result volley = this.resolveVolley();
+                  return new Result(flags, message + "\n" + volley.getMessage(),
+                                    volley.getEliminated());
+               }
             }
          }
       }
-      return response;
+      return new Result(flags, message);
    }
 
    /**
-    * Display a player's current grid.
+    * Finds the players whose shot this volley is aimed at a player.
     *
-    * @param player The player whose grid we want to show.
+    * @param victim The player.
+    * @return The players aiming at them, in no particular order.
+    */
+   private List<String> aimingAt(String victim) {
+      List<String> shooters = new ArrayList<>();
+      for (Map.Entry<String, Command> aim : this.volley.entrySet()) {
+         if (aim.getValue().getPlayer().equals(victim)) {
+            shooters.add(aim.getKey());
+         }
+      }
+      return shooters;
+   }
+
+   /**
+    * Display a player's current grid, or the window onto it that starts at
+    * the row and column the command names.
+    *
+    * @param command The command naming the player whose grid we want to show.
     * @param sender The player who sent the command.
     * @return A string representation of a player's grid.
     */
-   private String[] show(String player, String sender) {
-      String[] response = new String[NUM_RESPONSES];
-      response[QUIT_INDEX] = STAY;
-      response[PRIVATE_INDEX] = PRIVATE;
-      response[ELIMINATE_INDEX] = NOBODY;
+   private Result show(Command command, String sender) {
+      String player = command.getPlayer();
+      if (!this.players.containsKey(player)
+              || !this.isOnGrid(command.getX(), command.getY())) {
+         return this.invalid(command);
+      }
+      String message;
       if (this.inPlay) {
-         if (sender.equals(player)) {
-            response[MSG_INDEX] = this.getGridByPlayerName(player).drawSelf();
-         } else {
-            response[MSG_INDEX]=this.getGridByPlayerName(player).drawOpponent();
-         }
+         message = this.view(player, sender, command.getX(),
+                             command.getY()).getText();
       } else {
-         response[MSG_INDEX] = "Play not in progress";
+         message = "Play not in progress";
       }
-      return response;
+      return new Result(0, message);
+   }
+
+   /**
+    * Tells the sender their command was not valid.
+    *
+    * @param command The command that was not valid.
+    * @return A private reply naming the command.
+    */
+   private Result invalid(Command command) {
+      return new Result(0, "Invalid command: " + command.getText());
    }
 
    /**
@@ -304,137 +524,174 @@ public class Game {
     * @return A string that may indicate a winner. If not, an empty string.
     */
    private String checkForEndGame(String loser) {
+      this.unseat(loser);
+      return this.checkForWinner();
+   }
+
+   /**
+    * Takes a player out of the game and the turn order, along with any shot
+    * they aimed or that was aimed at them this volley. If it was their turn,
+    * it becomes the next player's.
+    *
+    * @param loser The player leaving the game.
+    */
+   private void unseat(String loser) {
+      Seat seat = this.players.remove(loser);
+      this.volley.remove(loser);
+      // Shots aimed at them this volley have nowhere to land.
+      this.volley.values().removeIf(aim -> aim.getPlayer().equals(loser));
+      if (seat == this.current) {
+         this.current = this.players.isEmpty() ? null : seat.getNext();
+      }
+      seat.unlink();
+   }
+
+   /**
+    * Ends the game if at most one player is left.
+    *
+    * @return A string that may indicate a winner. If not, an empty string.
+    */
+   private String checkForWinner() {
       String result = "";
-      int loserIndex = this.getPlayerIndexByName(loser);
-      this.grids.remove(this.getGridByPlayerName(loser));
-      this.players.remove(loser);
       if (this.players.size() == 1) {
-         result = "\nGAME OVER: " + this.players.get(0) + " wins!";
+         result = "\nGAME OVER: " + this.current.getName() + " wins!";
+         this.inPlay = false;
+      } else if (this.players.isEmpty()) {
+         result = "\nGAME OVER: nobody wins!";
          this.inPlay = false;
-      } else {
-         if (loserIndex <= this.current) {
-            this.current--; // prevent bug where next player is skipped
-            this.current = Math.floorMod(this.current, this.players.size());
-         }
       }
       return result;
    }
 
    /**
-    * Ensures that a given command is valid.
+    * Returns the top left window onto a player's grid as the sender is
+    * allowed to see it. Grids no bigger than MAX_VIEW are shown whole.
     *
-    * @param commands A command as an array of Strings.
-    * @return True if the command is valid. False otherwise.
+    * @param player The player whose grid we want to show.
+    * @param sender The player who sent the command.
+    * @return The window, or null if the grid cannot be shown.
     */
-   private boolean validateCommand(String[] commands) {
-      boolean isValid = false;
-      if(commands[0].equals("/join") && commands.length == 2) {
-         isValid = true;
-      }
-      else if(commands[0].equals("/play") && commands.length == 1) {
-         isValid = true;
-      }
-      else if(commands[0].equals("/attack") && commands.length == 4) {
-         isValid = this.validateAttack(commands);
-      }
-      else if(commands[0].equals("/quit") && commands.length == 1) {
-         isValid = true;
-      }
-      else if(commands[0].equals("/show") && commands.length == 2) {
-         isValid = this.validateShow(commands);
-      }
-      return isValid;
+   public GridView view(String player, String sender) {
+      return this.view(player, sender, 0, 0);
    }
 
    /**
-    * Ensures that an /attack command is in a valid format.
+    * Returns a window of at most MAX_VIEW rows and columns onto a player's
+    * grid, as the sender is allowed to see it.
     *
-    * @param commands An /attack command.
-    * @return True if the /attack command is valid. False otherwise.
+    * @param player The player whose grid we want to show.
+    * @param sender The player who sent the command.
+    * @param top The row at the top of the window.
+    * @param left The column at the left of the window.
+    * @return The window, or null if the grid cannot be shown.
     */
-   private boolean validateAttack(String[] commands) {
-      boolean isValid = false;
-      try {
-         int i = Integer.parseInt(commands[2]);
-         int j = Integer.parseInt(commands[3]);
-         if (i >= 0 && i < this.size && j >= 0 && j < this.size &&
-                 this.players.contains(commands[1]))
-            isValid = true;
-      }
-      catch (NumberFormatException nfe) {
-         return false;
+   public GridView view(String player, String sender, int top, int left) {
+      GridView window = null;
+      if (this.inPlay && this.players.containsKey(player)
+              && this.isOnGrid(top, left)) {
+         String view = sender.equals(player) ? "Friendly" : "Enemy";
+         int rows = Math.min(MAX_VIEW, this.size - top);
+         int cols = Math.min(MAX_VIEW, this.size - left);
+         window = this.players.get(player).getGrid().getView(view, top, left,
+                                                              rows, cols);
       }
-      return isValid;
+      return window;
    }
 
    /**
-    * Ensures that a /show command is in a valid format.
+    * Indicates whether a square is on the grids of this game.
     *
-    * @param commands A /show command.
-    * @return True if the /show command is valid. False otherwise.
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if the square is on the grids. False otherwise.
     */
-   private boolean validateShow(String[] commands) {
-      boolean isValid = false;
-      if(this.players.contains(commands[1]))
-         isValid = true;
-      return isValid;
+   private boolean isOnGrid(int i, int j) {
+      return i >= 0 && i < this.size && j >= 0 && j < this.size;
    }
 
    /**
-    * Finds the grid belonging to the specified player.
+    * Takes down what every player can see of a player's grid.
     *
-    * @param player The name of the player whose grid we want.
-    * @return The grid belonging to that player.
+    * @param player The player.
+    * @return What can be seen of their grid, or null if they are not in
+    *         the game.
     */
-   private Grid getGridByPlayerName(String player) {
-      return this.grids.get(this.players.indexOf(player));
+   public Sighting sight(String player) {
+      Seat seat = this.players.get(player);
+      return seat == null ? null : seat.getGrid().sight();
    }
 
    /**
-    * Finds the turn order of the player whose name is supplied.
+    * Gets the name of the current player.
     *
-    * @param player The name of the player whose index we want.
-    * @return The turn order of that player.
+    * @return The player at the specified position.
     */
-   public int getPlayerIndexByName(String player) {
-      return this.players.indexOf(player);
+   public String getCurrentPlayer() {
+      return this.current == null ? null : this.current.getName();
    }
 
    /**
-    * Gets the player's name at the specified position.
+    * Accessor for the size of the grids in this game.
     *
-    * @param playerNum Which player to return.
-    * @return The player at the specified position.
+    * @return The size of the grids.
     */
-   public String getPlayerAt(int playerNum) {
-      return this.players.get(playerNum);
+   public int getSize() {
+      return this.size;
    }
 
    /**
-    * Gets the name of the current player.
+    * Indicates whether the game is in progress.
     *
-    * @return The player at the specified position.
+    * @return True if the game is in progress. False otherwise.
     */
-   public String getCurrentPlayer() {
-      return this.players.get(this.current);
+   public boolean isInPlay() {
+      return this.inPlay;
    }
 
    /**
-    * Returns the number of active player.
+    * Indicates whether players fire in volleys instead of taking turns.
     *
-    * @return the number of active players
+    * @return True if the game is simultaneous. False otherwise.
     */
-   public int getNumPlayers() {
-      return this.players.size();
+   public boolean isSimultaneous() {
+      return this.simultaneous;
+   }
+
+   /**
+    * Accessor for the number of volleys resolved so far. It changes each time
+    * a volley is resolved, so the room can tell a volley is still open.
+    *
+    * @return The number of volleys resolved.
+    */
+   public int getVolleys() {
+      return this.volleys;
+   }
+
+   /**
+    * Accessor for the number of ships on each grid in this game.
+    *
+    * @return The number of ships per grid.
+    */
+   public int getShipsPerGrid() {
+      return this.numShips;
+   }
+
+   /**
+    * Accessor for the seed this game's randomness started from.
+    *
+    * @return The seed.
+    */
+   public long getSeed() {
+      return this.seed;
    }
 
    /**
-    * Gets the turn order of the current player.
+    * Returns the number of active player.
     *
-    * @return The current turn order.
+    * @return the number of active players
     */
-   public int getCurrent() {
-      return this.current;
+   public int getNumPlayers() {
+      return this.players.size();
    }
 
    /**
@@ -444,7 +701,7 @@ public class Game {
     * @return True if the supplied name is a current player. False otherwise.
     */
    public boolean isPlayer(String player) {
-      return this.players.contains(player);
+      return this.players.containsKey(player);
    }
 
    /**
@@ -1,8 +1,15 @@
 package server;
 
+import common.GridView;
+import common.Protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * This class models a single player's grid in a game of Battleship. It keeps
@@ -15,98 +22,267 @@ import java.util.Random;
  */
 public class Grid {
 
+   /**
+    * How boards are stored: 'bits', 'array', 'sparse' or 'auto' (the
+    * default), which picks bits for small grids and sparse for large ones.
+    * Set it with -Dbattleship.board.
+    */
+   private static final String BOARD = System.getProperty("battleship.board",
+                                                          "auto");
+
+   /** The largest grid stored as bits when the board kind is 'auto'. */
+   private static final int MAX_BITS_SIZE = 32;
+
    /** The size of this grid. */
    private int size;
 
-   /** An array containing all the Ships on this grid. Visible to the player. */
-   private Ship[][] grid;
+   /** What is on each square of this grid. Visible to the player. */
+   private Board board;
+
+   /**
+    * Every ship on the grid: first those lying across, in the order of their
+    * first squares row by row, then those lying down, in the order of their
+    * first squares column by column. The board says whether a square holds
+    * a ship, and a binary search of this finds which.
+    */
+   private Vessel[] ships;
 
-   /** The number of positions with a ship on them. */
-   private int totalSquares;
+   /** How many of the ships lie across. */
+   private int across;
 
-   /** A list of all the ships on the grid. */
-   private List<Ship> ships;
+   /** How many ships on the grid have not sunk. */
+   private int afloat;
+
+   /** How many shots have landed on this grid. Any shot may change a view. */
+   private int version;
+
+   /** The last window built for each viewer, the owner first. */
+   private GridView[] views;
+
+   /** The version of this grid each window was built from. */
+   private int[] viewVersions;
 
    /**
     * Constructor for a Grid.
     *
     * @param size The size of the square grid.
+    * @param numShips The number of ships on this grid.
+    * @param random Where the randomness for placing the ships comes from.
+    */
+   public Grid(int size, int numShips, SplittableRandom random) {
+      this(size);
+      this.setUp(numShips, random);
+   }
+
+   /**
+    * Constructor for a Grid with no ships on it yet.
+    *
+    * @param size The size of the square grid.
     */
-   public Grid(int size, int numShips) {
-      this.totalSquares = 0;
+   private Grid(int size) {
       this.size = size;
-      this.ships = new ArrayList<>();
-      this.grid = new Ship[size][size];
-      this.setUp(numShips);
+      this.board = newBoard(size);
+      this.views = new GridView[2];
+      this.viewVersions = new int[2];
+   }
+
+   /**
+    * Makes an empty board of the configured kind.
+    *
+    * @param size The size of the square board.
+    * @return The new board.
+    */
+   private static Board newBoard(int size) {
+      Board board;
+      if (BOARD.equalsIgnoreCase("array")) {
+         board = new ArrayBoard(size);
+      } else if (BOARD.equalsIgnoreCase("sparse")
+                 || (!BOARD.equalsIgnoreCase("bits") && size > MAX_BITS_SIZE)) {
+         board = new SparseBoard(size);
+      } else {
+         board = new BitBoard(size);
+      }
+      return board;
    }
 
    /**
     * Populates the grid with all the ships.
     *
     * @param numShips The number of ships on this grid.
+    * @param random Where the randomness for placing the ships comes from.
     */
-   private void setUp(int numShips) {
+   private void setUp(int numShips, SplittableRandom random) {
+      Placements placements = new Placements(this.board, random);
+      List<Vessel> vessels = new ArrayList<>();
       for (int i = 0; i < numShips; i++) {
-         this.placeShip();
+         vessels.add(placements.place());
       }
-      for (int i = 0; i < this.size; i++) {
-         for (int j = 0; j < this.size; j++) {
-            if (this.grid[i][j] == null) {
-               this.grid[i][j] = Ship.EMPTY;
-            }
+      this.index(vessels);
+   }
+
+   /**
+    * Keeps the ships that are already on the board, sorted so that the ship
+    * on any square can be found by a binary search. They all start afloat.
+    *
+    * @param vessels The ships.
+    */
+   private void index(List<Vessel> vessels) {
+      this.ships = new Vessel[vessels.size()];
+      this.across = 0;
+      for (Vessel vessel : vessels) {
+         if (!vessel.isVertical()) {
+            this.ships[this.across++] = vessel;
          }
       }
+      int n = this.across;
+      for (Vessel vessel : vessels) {
+         if (vessel.isVertical()) {
+            this.ships[n++] = vessel;
+         }
+      }
+      Comparator<Vessel> order = Comparator.comparingInt(this::keyOf);
+      Arrays.sort(this.ships, 0, this.across, order);
+      Arrays.sort(this.ships, this.across, n, order);
+      this.afloat = this.ships.length;
    }
 
    /**
-    * Places a single ship on the board in a valid position.
+    * Numbers the first square of a ship the way it lies: row by row for a
+    * ship lying across, column by column for one lying down.
+    *
+    * @param vessel The ship.
+    * @return The number of its first square.
     */
-   private void placeShip() {
-      int SHIP_TYPES = 5;
-      Random rand = new Random();
-      boolean placed = false;
-      while (!placed) {
-         int i = rand.nextInt(this.size);
-         int j = rand.nextInt(this.size);
-         int shipId = rand.nextInt(SHIP_TYPES) + 1; // between 1 and SHIP_TYPES
-         boolean direction = rand.nextBoolean();//true: vertical. false: horiznt
-         Ship ship = Ship.getById(shipId);
+   private int keyOf(Vessel vessel) {
+      return vessel.isVertical()
+              ? vessel.getCol(0) * this.size + vessel.getRow(0)
+              : this.square(vessel.getRow(0), vessel.getCol(0));
+   }
 
-         // place vertically
-         if (direction && this.size - i >= ship.getLength()) {
-            int validSpaces = 0;
-            for (int k = 0; k < ship.getLength(); k++) {
-               if (this.grid[i + k][j] == null) {
-                  validSpaces++;
-               }
-            }
-            if (validSpaces == ship.getLength()) {
-               for (int k = 0; k < ship.getLength(); k++) {
-                  this.grid[i + k][j] = ship;
-               }
-               placed = true;
-               this.totalSquares += ship.getLength();
-               this.ships.add(ship);
-            }
+   /**
+    * Finds the ship on a square. Only a square the board says holds a ship
+    * is searched for: among the ships lying across in its row, and then
+    * among those lying down in its column.
+    *
+    * @param i The i index of the grid.
+    * @param j The j index of the grid.
+    * @return The ship, or null if the square is open water.
+    */
+   private Vessel find(int i, int j) {
+      if (this.board.isEmpty(i, j)) {
+         return null;
+      }
+      Vessel vessel = this.floor(0, this.across, this.square(i, j));
+      if (vessel == null || vessel.getRow(0) != i
+              || j >= vessel.getCol(0) + vessel.getKind().getLength()) {
+         vessel = this.floor(this.across, this.ships.length,
+                             j * this.size + i);
+      }
+      return vessel;
+   }
 
-            // place horizontally
-         } else if (!direction && this.size - j >= ship.getLength()) {
-            int validSpaces = 0;
-            for (int k = 0; k < ship.getLength(); k++) {
-               if (this.grid[i][j + k] == null) {
-                  validSpaces++;
-               }
-            }
-            if (validSpaces == ship.getLength()) {
-               for (int k = 0; k < ship.getLength(); k++) {
-                  this.grid[i][j + k] = ship;
-               }
-               placed = true;
-               this.totalSquares += ship.getLength();
-               this.ships.add(ship);
+   /**
+    * Finds the last of a run of the ships whose first square is numbered no
+    * higher than a given number.
+    *
+    * @param from The index of the first ship in the run.
+    * @param to The index after the last ship in the run.
+    * @param key The number, counted the way the ships in the run lie.
+    * @return The ship, or null if every ship in the run starts later.
+    */
+   private Vessel floor(int from, int to, int key) {
+      int low = from;
+      int high = to;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (this.keyOf(this.ships[mid]) <= key) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low > from ? this.ships[low - 1] : null;
+   }
+
+   /**
+    * Writes this grid to a snapshot: each ship as its kind, orientation and
+    * top left square, then every square fired on. The shots are written as
+    * one bit per square or as the gaps between them, whichever is smaller,
+    * so a small grid takes a few bytes and a large one only as many as it
+    * has shots.
+    *
+    * @param out Where to write.
+    */
+   void write(ByteArrayOutputStream out) {
+      Protocol.writeVarint(out, this.ships.length);
+      for (Vessel vessel : this.ships) {
+         Protocol.writeVarint(out, vessel.getKind().ordinal() << 1
+                                   | (vessel.isVertical() ? 1 : 0));
+         Protocol.writeVarint(out, vessel.getRow(0));
+         Protocol.writeVarint(out, vessel.getCol(0));
+      }
+      int[] shots = this.board.getShots();
+      ByteArrayOutputStream gaps = new ByteArrayOutputStream();
+      int last = -1;
+      for (int shot : shots) {
+         Protocol.writeVarint(gaps, shot - last - 1);
+         last = shot;
+      }
+      int bitmap = (this.size * this.size + 7) / 8;
+      if (gaps.size() < bitmap) {
+         Protocol.writeVarint(out, shots.length << 1);
+         out.writeBytes(gaps.toByteArray());
+      } else {
+         byte[] bits = new byte[bitmap];
+         for (int shot : shots) {
+            bits[shot >>> 3] |= (byte) (1 << (shot & 7));
+         }
+         Protocol.writeVarint(out, shots.length << 1 | 1);
+         out.writeBytes(bits);
+      }
+   }
+
+   /**
+    * Reads a grid written to a snapshot. The ships are put back where they
+    * were and the shots fired again, so every ship knows how badly it is
+    * hit and the grid knows how many are afloat.
+    *
+    * @param in Where to read.
+    * @param size The size of the square grid.
+    * @return The grid.
+    */
+   static Grid read(ByteBuffer in, int size) {
+      Grid grid = new Grid(size);
+      int numShips = Protocol.readVarint(in);
+      List<Vessel> vessels = new ArrayList<>();
+      for (int i = 0; i < numShips; i++) {
+         int kind = Protocol.readVarint(in);
+         Vessel vessel = new Vessel(Ship.values()[kind >>> 1],
+                                    Protocol.readVarint(in),
+                                    Protocol.readVarint(in), (kind & 1) == 1);
+         for (int k = 0; k < vessel.getKind().getLength(); k++) {
+            grid.board.put(vessel.getKind(), vessel.getRow(k), vessel.getCol(k));
+         }
+         vessels.add(vessel);
+      }
+      grid.index(vessels);
+      int shots = Protocol.readVarint(in);
+      if ((shots & 1) == 0) {
+         int square = -1;
+         for (int n = 0; n < shots >>> 1; n++) {
+            square += Protocol.readVarint(in) + 1;
+            grid.shotsFired(square / size, square % size);
+         }
+      } else {
+         byte[] bits = new byte[(size * size + 7) / 8];
+         in.get(bits);
+         for (int square = 0; square < size * size; square++) {
+            if ((bits[square >>> 3] & 1 << (square & 7)) != 0) {
+               grid.shotsFired(square / size, square % size);
             }
          }
       }
+      return grid;
    }
 
    /**
@@ -129,20 +305,91 @@ public class Grid {
 
    /**
     * Called when an opponent fires. Determines if it's a hit and updates grids.
+    * The ship on the square is found by a binary search of the ships, so
+    * whether the shot sank it, or the whole fleet, is known without looking
+    * at the rest of the grid.
     *
     * @param i The i index of the grid.
     * @param j The j index of the grid.
+    * @return What the shot did.
     */
-   public void shotsFired(int i, int j) {
-      if (i < this.size && i >= 0 && j < this.size && j >= 0) {
-         Ship target = this.grid[i][j];
-         if (target != Ship.EMPTY && target != Ship.HIT && target != Ship.MISS){
-            this.grid[i][j] = Ship.HIT;
-            this.totalSquares--;
-         } else if (target == Ship.EMPTY) {
-            this.grid[i][j] = Ship.MISS;
+   public Shot shotsFired(int i, int j) {
+      if (i >= this.size || i < 0 || j >= this.size || j < 0) {
+         return Shot.MISS;
+      }
+      boolean newHit = this.board.fire(i, j);
+      this.version++;
+      Vessel vessel = this.find(i, j);
+      if (vessel == null) {
+         return Shot.MISS;
+      }
+      if (!newHit || !vessel.hit()) {
+         return Shot.HIT;
+      }
+      this.afloat--;
+      return this.afloat == 0 ? Shot.ELIMINATED : Shot.SUNK;
+   }
+
+   /**
+    * Takes down what every player can see of this grid: which of the
+    * squares fired on were misses, hits on ships still afloat, or parts of
+    * ships that sank.
+    *
+    * @return What can be seen of this grid now.
+    */
+   public Sighting sight() {
+      int[] shots = this.board.getShots();
+      int[] misses = new int[shots.length];
+      int[] hits = new int[shots.length];
+      int[] sunk = new int[shots.length];
+      int numMisses = 0;
+      int numHits = 0;
+      int numSunk = 0;
+      for (int square : shots) {
+         Vessel vessel = this.find(square / this.size, square % this.size);
+         if (vessel == null) {
+            misses[numMisses++] = square;
+         } else if (vessel.isSunk()) {
+            sunk[numSunk++] = square;
+         } else {
+            hits[numHits++] = square;
          }
       }
+      return new Sighting(this, this.size, this.afloat,
+                          Arrays.copyOf(misses, numMisses),
+                          Arrays.copyOf(hits, numHits),
+                          Arrays.copyOf(sunk, numSunk));
+   }
+
+   /**
+    * Returns the ship on a square.
+    *
+    * @param i The i index of the grid.
+    * @param j The j index of the grid.
+    * @return The ship, or null if the square is open water.
+    */
+   public Vessel getVessel(int i, int j) {
+      return this.find(i, j);
+   }
+
+   /**
+    * Accessor for the number of ships on this grid that have not sunk.
+    *
+    * @return The number of ships afloat.
+    */
+   public int getShipsAfloat() {
+      return this.afloat;
+   }
+
+   /**
+    * Numbers a square of this grid.
+    *
+    * @param i The i index of the grid.
+    * @param j The j index of the grid.
+    * @return The square's number, row by row.
+    */
+   private int square(int i, int j) {
+      return i * this.size + j;
    }
 
    /**
@@ -151,7 +398,61 @@ public class Grid {
     * @return The number of active ship squares in this grid.
     */
    public int getTotalSquares() {
-      return totalSquares;
+      return this.board.getRemaining();
+   }
+
+   /**
+    * Returns the symbol in each cell of this grid as seen by the given viewer.
+    *
+    * @param view The version of this grid to build. Either Friendly or Enemy.
+    * @return The symbol in each cell, row by row.
+    */
+   public byte[] getCells(String view) {
+      return this.board.getCells(this.isFriendly(view));
+   }
+
+   /**
+    * Returns a window onto this grid as seen by the given viewer. The last
+    * window built for each viewer is kept until a shot lands, so showing the
+    * same window again, to anyone, costs nothing and it is drawn and encoded
+    * only once.
+    *
+    * @param view The version of this grid to build. Either Friendly or Enemy.
+    * @param top The row at the top of the window.
+    * @param left The column at the left of the window.
+    * @param rows The number of rows in the window.
+    * @param cols The number of columns in the window.
+    * @return The window.
+    */
+   public GridView getView(String view, int top, int left, int rows,
+                           int cols) {
+      boolean friendly = this.isFriendly(view);
+      int viewer = friendly ? 0 : 1;
+      GridView cached = this.views[viewer];
+      if (cached != null && this.viewVersions[viewer] == this.version
+              && cached.getTop() == top && cached.getLeft() == left
+              && cached.getRows() == rows && cached.getCols() == cols) {
+         return cached;
+      }
+      byte[] cells = this.board.getCells(friendly, top, left, rows, cols);
+      GridView window = new GridView(top, left, rows, cols, cells);
+      this.views[viewer] = window;
+      this.viewVersions[viewer] = this.version;
+      return window;
+   }
+
+   /**
+    * Checks which version of this grid is wanted.
+    *
+    * @param view Either Friendly or Enemy.
+    * @return True for Friendly. False for Enemy.
+    */
+   private boolean isFriendly(String view) {
+      boolean friendly = view.equalsIgnoreCase("friendly");
+      if (!friendly && !view.equalsIgnoreCase("enemy")) {
+         throw new IllegalStateException("Unexpected value: " + view);
+      }
+      return friendly;
    }
 
    /**
@@ -161,21 +462,7 @@ public class Grid {
     * @return A String representation of this grid
     */
    private String buildView(String view) {
-      StringBuilder str = new StringBuilder(" ");
-      // Top row numbering all the columns of the grid.
-      for (int i = 0; i < this.size; i++) {
-         str.append("   ").append(i);
-      }
-      String divider = "\n  +" + "---+".repeat(this.size) + "\n";
-      str.append(divider);
-      for (int i = 0; i < this.size; i++) {
-         str.append(i).append(" |");
-         for (int j = 0; j < this.size; j++) {
-            str.append(" ").append(this.grid[i][j].show(view)).append(" |");
-         }
-         str.append(divider);
-      }
-      return str.toString();
+      return this.getView(view, 0, 0, this.size, this.size).getText();
    }
 
 }
@@ -0,0 +1,543 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Finds the square of a player's grid most likely to hold a ship, for the
+ * '/hint' command. It deals out fleets at random that agree with what
+ * everyone can see of the grid: no ship over a miss or a sunk ship, and
+ * every hit on a ship still afloat covered. The square covered in the most
+ * of them is the hint.
+ *
+ * The fleets are dealt in parallel on the lobby's hint threads, never on a
+ * room's thread, until -Dbattleship.hint.millis (20 by default) have passed
+ * or enough have been dealt. They are kept between hints: a shot changes
+ * one square, so only the fleets it rules out are thrown away and the rest
+ * count towards the next hint. Hints on one grid are worked out one after
+ * another, so the fleets kept are only ever touched by one of them.
+ *
+ * Grids bigger than 64x64 are sampled in a 64x64 window, around the first
+ * hit on a ship afloat if there is one.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Hint {
+
+   /**
+    * How long a hint may spend dealing fleets, in milliseconds. Set it with
+    * -Dbattleship.hint.millis.
+    */
+   private static final long HINT_MILLIS =
+           Long.getLong("battleship.hint.millis", 20);
+
+   /** The kinds of ship a grid is dealt, each as likely as the others. */
+   private static final Ship[] FLEET = {Ship.CARRIER, Ship.BATTLESHIP,
+           Ship.CRUISER, Ship.SUBMARINE, Ship.DESTROYER};
+
+   /** The length of the longest ship. */
+   private static final int MAX_LENGTH = 5;
+
+   /** The most rows and columns sampled at a time. */
+   private static final int MAX_WINDOW = 64;
+
+   /** The most fleets kept. */
+   private static final int MAX_SAMPLES = 10000;
+
+   /** How many random places to try for a ship before leaving it out. */
+   private static final int MAX_TRIES = 64;
+
+   /** How many fleets a part deals between looks at the clock. */
+   private static final int CLOCK_EVERY = 16;
+
+   /** How many parts the dealing is split into, one per processor. */
+   private static final int PARTS = Runtime.getRuntime().availableProcessors();
+
+   /** The threads that deal the fleets. */
+   private Executor pool;
+
+   /** Where the randomness comes from. */
+   private SplittableRandom random;
+
+   /** The last hint asked for, which the next one waits for. */
+   private CompletableFuture<?> pending;
+
+   /** The grid the fleets kept were dealt for, or null. */
+   private Grid grid;
+
+   /** The size of the grid. */
+   private int size;
+
+   /** The row of the grid at the top of the window. */
+   private int top;
+
+   /** The column of the grid at the left of the window. */
+   private int left;
+
+   /** The number of rows and of columns in the window. */
+   private int window;
+
+   /** How many ships each fleet has. */
+   private int ships;
+
+   /** The fleets kept, each as the squares of the window its ships cover. */
+   private List<int[]> samples;
+
+   /** How many of the fleets kept cover each square of the window. */
+   private int[] counts;
+
+   /** The squares of the window a ship cannot be on: misses and sunk ships. */
+   private boolean[] blocked;
+
+   /** The squares of the window hit on ships that have not sunk. */
+   private int[] hits;
+
+   /**
+    * Constructor for a Hint on one player's grid.
+    *
+    * @param pool The threads that deal the fleets.
+    * @param random Where the randomness comes from.
+    */
+   public Hint(Executor pool, SplittableRandom random) {
+      this.pool = pool;
+      this.random = random;
+      this.pending = CompletableFuture.completedFuture(null);
+      this.samples = new ArrayList<>();
+   }
+
+   /**
+    * Asks for a hint on the grid as it is now. The hint is worked out once
+    * those asked for before it are done. Called on the room's thread, which
+    * does not wait for it.
+    *
+    * @param sight What can be seen of the grid.
+    * @return The hint, as the row and column to fire at and how often a
+    *         ship was there, or null if there is nowhere left to fire.
+    */
+   public CompletableFuture<String> ask(Sighting sight) {
+      CompletableFuture<String> answer = this.pending.thenComposeAsync(
+              done -> this.solve(sight), this.pool);
+      this.pending = answer.exceptionally(ex -> null);
+      return answer;
+   }
+
+   /**
+    * Brings the fleets kept up to date with the grid, then deals more in
+    * parallel until the time is up and picks the square covered most.
+    *
+    * @param sight What can be seen of the grid.
+    * @return The hint, once it is worked out.
+    */
+   private CompletableFuture<String> solve(Sighting sight) {
+      this.prepare(sight);
+      long deadline = System.nanoTime() + HINT_MILLIS * 1000000;
+      int quota = Math.max(0, MAX_SAMPLES - this.samples.size()) / PARTS;
+      List<CompletableFuture<List<int[]>>> parts = new ArrayList<>();
+      for (int n = 0; n < PARTS; n++) {
+         SplittableRandom part = this.random.split();
+         parts.add(CompletableFuture.supplyAsync(
+                 () -> this.deal(quota, deadline, part), this.pool));
+      }
+      return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+              .thenApply(done -> {
+                 for (CompletableFuture<List<int[]>> part : parts) {
+                    for (int[] sample : part.join()) {
+                       this.keep(sample);
+                    }
+                 }
+                 return this.pick();
+              });
+   }
+
+   /**
+    * Places the window, marks what can be seen in it and throws away every
+    * fleet kept that no longer agrees with it. Everything is thrown away if
+    * the grid, the window or the number of ships has changed.
+    *
+    * @param sight What can be seen of the grid.
+    */
+   private void prepare(Sighting sight) {
+      int oldTop = this.top;
+      int oldLeft = this.left;
+      int oldShips = this.ships;
+      boolean fresh = sight.getGrid() != this.grid;
+      this.grid = sight.getGrid();
+      this.size = sight.getSize();
+      this.window = Math.min(this.size, MAX_WINDOW);
+      if (fresh) {
+         this.top = (this.size - this.window) / 2;
+         this.left = this.top;
+      }
+      int[] seen = sight.getHits();
+      if (seen.length > 0 && !this.isWellInside(seen[0])) {
+         int row = seen[0] / this.size;
+         int col = seen[0] % this.size;
+         this.top = Math.max(0, Math.min(row - this.window / 2,
+                                         this.size - this.window));
+         this.left = Math.max(0, Math.min(col - this.window / 2,
+                                          this.size - this.window));
+      }
+      this.mark(sight);
+      if (this.isFull() && seen.length == 0) {
+         this.top = this.random.nextInt(this.size - this.window + 1);
+         this.left = this.random.nextInt(this.size - this.window + 1);
+         this.mark(sight);
+      }
+      long area = (long) this.window * this.window;
+      this.ships = area == (long) this.size * this.size ? sight.getAfloat()
+              : (int) Math.max(1, Math.round(sight.getAfloat() * (double) area
+                                             / ((long) this.size * this.size)));
+      if (fresh || this.top != oldTop || this.left != oldLeft
+              || this.ships != oldShips) {
+         this.samples.clear();
+         this.counts = new int[this.window * this.window];
+         return;
+      }
+      Iterator<int[]> kept = this.samples.iterator();
+      while (kept.hasNext()) {
+         int[] sample = kept.next();
+         if (!this.agrees(sample)) {
+            kept.remove();
+            for (int square : sample) {
+               this.counts[square]--;
+            }
+         }
+      }
+   }
+
+   /**
+    * Indicates whether a square lies in the window with room for any ship
+    * through it, or as close to that as the grid's edge allows.
+    *
+    * @param square The square, numbered row by row on the grid.
+    * @return True if the window need not move for it. False otherwise.
+    */
+   private boolean isWellInside(int square) {
+      final int MARGIN = MAX_LENGTH - 1;
+      int row = square / this.size;
+      int col = square % this.size;
+      return (row - this.top >= MARGIN || this.top == 0)
+             && (this.top + this.window - 1 - row >= MARGIN
+                 || this.top + this.window == this.size)
+             && (col - this.left >= MARGIN || this.left == 0)
+             && (this.left + this.window - 1 - col >= MARGIN
+                 || this.left + this.window == this.size);
+   }
+
+   /**
+    * Marks the misses, the sunk ships and the hits in the window.
+    *
+    * @param sight What can be seen of the grid.
+    */
+   private void mark(Sighting sight) {
+      this.blocked = new boolean[this.window * this.window];
+      for (int square : sight.getMisses()) {
+         this.block(square);
+      }
+      for (int square : sight.getSunk()) {
+         this.block(square);
+      }
+      int[] seen = sight.getHits();
+      int[] inside = new int[seen.length];
+      int count = 0;
+      for (int square : seen) {
+         int at = this.toWindow(square);
+         if (at >= 0) {
+            inside[count++] = at;
+         }
+      }
+      this.hits = Arrays.copyOf(inside, count);
+   }
+
+   /**
+    * Marks a square a ship cannot be on, if it is in the window.
+    *
+    * @param square The square, numbered row by row on the grid.
+    */
+   private void block(int square) {
+      int at = this.toWindow(square);
+      if (at >= 0) {
+         this.blocked[at] = true;
+      }
+   }
+
+   /**
+    * Finds a square of the grid in the window.
+    *
+    * @param square The square, numbered row by row on the grid.
+    * @return The square numbered row by row in the window, or -1 if it is
+    *         not in the window.
+    */
+   private int toWindow(int square) {
+      int row = square / this.size - this.top;
+      int col = square % this.size - this.left;
+      if (row < 0 || row >= this.window || col < 0 || col >= this.window) {
+         return -1;
+      }
+      return row * this.window + col;
+   }
+
+   /**
+    * Indicates whether every square of the window has been fired on.
+    *
+    * @return True if there is nothing left to fire at in the window.
+    */
+   private boolean isFull() {
+      int fired = this.hits.length;
+      for (boolean square : this.blocked) {
+         if (square) {
+            fired++;
+         }
+      }
+      return fired == this.blocked.length;
+   }
+
+   /**
+    * Indicates whether a fleet agrees with what can be seen: none of its
+    * ships is over a miss or a sunk ship, and it covers every hit.
+    *
+    * @param sample The squares the fleet's ships cover.
+    * @return True if the fleet could still be the real one.
+    */
+   private boolean agrees(int[] sample) {
+      int covered = 0;
+      for (int square : sample) {
+         if (this.blocked[square]) {
+            return false;
+         }
+      }
+      for (int hit : this.hits) {
+         for (int square : sample) {
+            if (square == hit) {
+               covered++;
+               break;
+            }
+         }
+      }
+      return covered == this.hits.length;
+   }
+
+   /**
+    * Deals fleets until a part's share is dealt or the time is up. Runs on
+    * a hint thread, alongside the other parts; it only reads what prepare
+    * set up.
+    *
+    * @param quota How many fleets this part may deal.
+    * @param deadline When to stop, as System.nanoTime() reads.
+    * @param random Where this part's randomness comes from.
+    * @return The fleets dealt.
+    */
+   private List<int[]> deal(int quota, long deadline, SplittableRandom random) {
+      List<int[]> dealt = new ArrayList<>();
+      boolean[] occupied = new boolean[this.window * this.window];
+      int[] squares = new int[MAX_LENGTH * (this.ships + this.hits.length)];
+      int tries = 0;
+      while (dealt.size() < quota
+              && (++tries % CLOCK_EVERY != 0 || System.nanoTime() < deadline)) {
+         int[] sample = this.dealOne(occupied, squares, random);
+         if (sample != null) {
+            dealt.add(sample);
+         }
+      }
+      return dealt;
+   }
+
+   /**
+    * Deals one fleet: first a ship through each hit not yet covered, then
+    * ships anywhere they fit until the fleet is complete.
+    *
+    * @param occupied Scratch space, all false, for the squares taken.
+    * @param squares Scratch space for the squares the ships cover.
+    * @param random Where the randomness comes from.
+    * @return The squares the fleet's ships cover, or null if the hits could
+    *         not all be covered.
+    */
+   private int[] dealOne(boolean[] occupied, int[] squares,
+                         SplittableRandom random) {
+      int count = 0;
+      int placed = 0;
+      boolean failed = false;
+      for (int hit : this.hits) {
+         if (!occupied[hit]) {
+            int added = this.placeThrough(hit, occupied, squares, count, random);
+            if (added == 0) {
+               failed = true;
+               break;
+            }
+            count += added;
+            placed++;
+         }
+      }
+      for (; !failed && placed < this.ships; placed++) {
+         count += this.placeAnywhere(occupied, squares, count, random);
+      }
+      for (int n = 0; n < count; n++) {
+         occupied[squares[n]] = false;
+      }
+      return failed ? null : Arrays.copyOf(squares, count);
+   }
+
+   /**
+    * Puts down a ship of a random kind that covers a square, somewhere
+    * chosen at random among the places it fits.
+    *
+    * @param hit The square to cover, in the window.
+    * @param occupied The squares taken.
+    * @param squares Where to add the squares the ship covers.
+    * @param count How many squares have been added so far.
+    * @param random Where the randomness comes from.
+    * @return How many squares were added, or 0 if no ship fits there.
+    */
+   private int placeThrough(int hit, boolean[] occupied, int[] squares,
+                            int count, SplittableRandom random) {
+      int row = hit / this.window;
+      int col = hit % this.window;
+      int[] fits = new int[2 * MAX_LENGTH];
+      int start = random.nextInt(FLEET.length);
+      for (int n = 0; n < FLEET.length; n++) {
+         int length = FLEET[(start + n) % FLEET.length].getLength();
+         int found = 0;
+         for (int k = 0; k < length; k++) {
+            if (this.fits(occupied, row, col - k, length, false)) {
+               fits[found++] = (row * this.window + col - k) << 1;
+            }
+            if (this.fits(occupied, row - k, col, length, true)) {
+               fits[found++] = (((row - k) * this.window + col) << 1) | 1;
+            }
+         }
+         if (found > 0) {
+            int pick = fits[random.nextInt(found)];
+            return this.put(pick >> 1, length, (pick & 1) == 1, occupied,
+                            squares, count);
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Puts down a ship of a random kind anywhere it fits, if one of a few
+    * random places will do.
+    *
+    * @param occupied The squares taken.
+    * @param squares Where to add the squares the ship covers.
+    * @param count How many squares have been added so far.
+    * @param random Where the randomness comes from.
+    * @return How many squares were added, or 0 if the ship was left out.
+    */
+   private int placeAnywhere(boolean[] occupied, int[] squares, int count,
+                             SplittableRandom random) {
+      for (int tries = 0; tries < MAX_TRIES; tries++) {
+         int length = FLEET[random.nextInt(FLEET.length)].getLength();
+         boolean vertical = random.nextBoolean();
+         int row = random.nextInt(this.window);
+         int col = random.nextInt(this.window);
+         if (this.fits(occupied, row, col, length, vertical)) {
+            return this.put(row * this.window + col, length, vertical,
+                            occupied, squares, count);
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Indicates whether a ship fits in the window clear of misses, sunk
+    * ships and the ships already put down.
+    *
+    * @param occupied The squares taken.
+    * @param row The row of the ship's top left square.
+    * @param col The column of the ship's top left square.
+    * @param length The length of the ship.
+    * @param vertical True if the ship lies down. False if it lies across.
+    * @return True if the ship fits. False otherwise.
+    */
+   private boolean fits(boolean[] occupied, int row, int col, int length,
+                        boolean vertical) {
+      if (row < 0 || col < 0 || (vertical ? row + length : col + length)
+              > this.window || (vertical ? col : row) >= this.window) {
+         return false;
+      }
+      int step = vertical ? this.window : 1;
+      int square = row * this.window + col;
+      for (int k = 0; k < length; k++, square += step) {
+         if (this.blocked[square] || occupied[square]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Puts a ship down.
+    *
+    * @param first The ship's top left square, in the window.
+    * @param length The length of the ship.
+    * @param vertical True if the ship lies down. False if it lies across.
+    * @param occupied The squares taken.
+    * @param squares Where to add the squares the ship covers.
+    * @param count How many squares have been added so far.
+    * @return The length of the ship.
+    */
+   private int put(int first, int length, boolean vertical, boolean[] occupied,
+                   int[] squares, int count) {
+      int step = vertical ? this.window : 1;
+      for (int k = 0; k < length; k++) {
+         occupied[first + k * step] = true;
+         squares[count + k] = first + k * step;
+      }
+      return length;
+   }
+
+   /**
+    * Keeps a fleet and counts the squares it covers.
+    *
+    * @param sample The squares the fleet's ships cover.
+    */
+   private void keep(int[] sample) {
+      this.samples.add(sample);
+      for (int square : sample) {
+         this.counts[square]++;
+      }
+   }
+
+   /**
+    * Picks the square not yet fired on that the most fleets cover. If no
+    * fleet covers any, one is picked at random.
+    *
+    * @return The row and column of the square on the grid and how often a
+    *         ship was there, or null if every square has been fired on.
+    */
+   private String pick() {
+      boolean[] hit = new boolean[this.blocked.length];
+      for (int square : this.hits) {
+         hit[square] = true;
+      }
+      int best = -1;
+      int open = 0;
+      for (int square = 0; square < this.counts.length; square++) {
+         if (this.blocked[square] || hit[square]) {
+            continue;
+         }
+         open++;
+         if (best < 0 || this.counts[square] > this.counts[best]
+                 || (this.counts[best] == 0 && this.random.nextInt(open) == 0)) {
+            best = square;
+         }
+      }
+      if (best < 0) {
+         return null;
+      }
+      double share = this.samples.isEmpty() ? 0
+              : 100.0 * this.counts[best] / this.samples.size();
+      return String.format("%d %d (a ship there in %.1f%% of %d layouts)",
+                           this.top + best / this.window,
+                           this.left + best % this.window, share,
+                           this.samples.size());
+   }
+}
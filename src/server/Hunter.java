@@ -0,0 +1,198 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The strategy most people play by: fire at random until a shot hits, then
+ * try the squares next to the hit, and next to any hit that follows, until
+ * the ship sinks. Then go back to firing at random.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Hunter implements Strategy {
+
+   /** The player's name in the game. */
+   private String name;
+
+   /** The size of the grids. */
+   private int size;
+
+   /** The opponents still in the game, in the order they joined. */
+   private List<String> opponents;
+
+   /** The squares of each opponent's grid in the order to hunt them. */
+   private Map<String, Shuffle> hunt;
+
+   /** The squares of each opponent's grid already fired at. */
+   private Map<String, BitSet> fired;
+
+   /** The squares next to hits on each opponent's grid, to try next. */
+   private Map<String, Deque<Integer>> targets;
+
+   /** The opponent of the shot fired last, or null. */
+   private String victim;
+
+   /** The square of the shot fired last. */
+   private int square;
+
+   /** Where the randomness comes from. */
+   private SplittableRandom random;
+
+   /**
+    * Constructor for a Hunter.
+    *
+    * @param name The player's name in the game.
+    * @param size The size of the grids.
+    * @param random Where the randomness comes from.
+    */
+   public Hunter(String name, int size, SplittableRandom random) {
+      this.name = name;
+      this.size = size;
+      this.random = random;
+      this.opponents = new ArrayList<>();
+      this.hunt = new HashMap<>();
+      this.fired = new HashMap<>();
+      this.targets = new HashMap<>();
+   }
+
+   /**
+    * Accessor for the player's name.
+    *
+    * @return The player's name in the game.
+    */
+   @Override
+   public String getName() {
+      return this.name;
+   }
+
+   /**
+    * Takes note of a player who joined the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void joined(String player) {
+      if (!player.equals(this.name) && !this.opponents.contains(player)) {
+         this.opponents.add(player);
+         this.hunt.put(player, new Shuffle(this.size, this.random.split()));
+         this.fired.put(player, new BitSet());
+         this.targets.put(player, new ArrayDeque<>());
+      }
+   }
+
+   /**
+    * Takes note of a player who is out of the game.
+    *
+    * @param player The player's name.
+    */
+   @Override
+   public void left(String player) {
+      this.opponents.remove(player);
+      this.hunt.remove(player);
+      this.fired.remove(player);
+      this.targets.remove(player);
+   }
+
+   /**
+    * Indicates whether the shot fired last was aimed at a player.
+    *
+    * @param player The player's name.
+    * @return True if the shot fired last was at them.
+    */
+   @Override
+   public boolean isAimingAt(String player) {
+      return player.equals(this.victim);
+   }
+
+   /**
+    * Picks a square next to a hit if there is one to try, otherwise a
+    * square not yet tried of the first opponent still in the game.
+    *
+    * @return The attack to send, or null if there is nobody left to fire at.
+    */
+   @Override
+   public String aim() {
+      for (String opponent : this.opponents) {
+         Deque<Integer> next = this.targets.get(opponent);
+         while (!next.isEmpty()) {
+            int square = next.pop();
+            if (!this.fired.get(opponent).get(square)) {
+               return this.shoot(opponent, square);
+            }
+         }
+      }
+      if (this.opponents.isEmpty()) {
+         return null;
+      }
+      String target = this.opponents.get(0);
+      Shuffle squares = this.hunt.get(target);
+      while (squares.hasNext()) {
+         int square = squares.next();
+         if (!this.fired.get(target).get(square)) {
+            return this.shoot(target, square);
+         }
+      }
+      this.left(target); // Nothing left to fire at. They must be gone.
+      return this.aim();
+   }
+
+   /**
+    * Fires at a square and remembers it.
+    *
+    * @param target The opponent to fire at.
+    * @param square The square, numbered row by row.
+    * @return The attack to send.
+    */
+   private String shoot(String target, int square) {
+      this.fired.get(target).set(square);
+      this.victim = target;
+      this.square = square;
+      return "/attack " + target + " " + square / this.size + " "
+             + square % this.size;
+   }
+
+   /**
+    * Takes in what the shot fired last did. The squares next to a hit are
+    * tried next, until the ship sinks.
+    *
+    * @param victim The player the shot was fired at.
+    * @param shot What the shot did.
+    * @param ship The ship it sank, or null.
+    */
+   @Override
+   public void fired(String victim, Shot shot, Ship ship) {
+      Deque<Integer> next = this.targets.get(victim);
+      if (!victim.equals(this.victim) || next == null || shot == Shot.MISS) {
+         this.victim = null;
+         return;
+      }
+      this.victim = null;
+      if (ship != null) {
+         next.clear();
+         return;
+      }
+      int row = this.square / this.size;
+      int col = this.square % this.size;
+      if (row > 0) {
+         next.push(this.square - this.size);
+      }
+      if (row < this.size - 1) {
+         next.push(this.square + this.size);
+      }
+      if (col > 0) {
+         next.push(this.square - 1);
+      }
+      if (col < this.size - 1) {
+         next.push(this.square + 1);
+      }
+   }
+}
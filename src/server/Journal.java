@@ -0,0 +1,592 @@
+package server;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * An append-only record of everything that changed a game, kept so the games
+ * in progress can be rebuilt after the server restarts. A game's fleets come
+ * from its seed, so the room's opening and the commands its game ran are
+ * enough to play it back to where it was.
+ *
+ * The file is mapped into memory a segment at a time, so appending a record
+ * is a few writes to memory and no system call. The pages are forced to
+ * disk by sync, which the lobby's timer calls every few milliseconds, so one
+ * force covers every move made since the last. A move is therefore durable
+ * a few milliseconds after it is answered.
+ *
+ * Every record has a sequence number, one more than the record before. When
+ * a snapshot of the games is taken the journal is rotated: the file is
+ * renamed after the last sequence number in it and a new one is started.
+ * A rotated file is cut down to the records in it, so the files kept take
+ * no more room than their records. Once the snapshot is safely written the
+ * older rotated files are deleted, keeping the newest few for Replay, and a
+ * restart plays back only what came after the snapshot. Files that are only
+ * read are mapped read-only and never grown.
+ *
+ * Every record starts with the same fixed header of ints, aligned to eight
+ * bytes, and some carry UTF-8 text after it:
+ *
+ * <pre>
+ * offset 0   length of the record, 0 at the end of the journal, or -1 if
+ *            the rest of the segment is empty
+ * offset 4   kind: OPEN, COMMAND, VOLLEY or CLOSE
+ * offset 5   COMMAND: the CommandType. OPEN: 1 if the game is simultaneous
+ * offset 6   COMMAND: the Result flags
+ * offset 7   COMMAND: how many players were eliminated
+ * offset 8   the room number
+ * offset 12  COMMAND: the sender's player id, or -1. OPEN: the grid size
+ * offset 16  COMMAND: the victim's player id, or -1. OPEN: the seed, as a
+ *            long over this field and the next
+ * offset 20  COMMAND: the row
+ * offset 24  COMMAND: the column
+ * offset 28  the length of the text: the room id for OPEN, the player's
+ *            name for a JOIN, or for a BOT, which is a JOIN by a bot the
+ *            server seated
+ * offset 32  the sequence number, as a long
+ * </pre>
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Journal {
+
+   /** Record kind: a room opened. */
+   static final byte OPEN = 1;
+
+   /** Record kind: a room's game ran a command. */
+   static final byte COMMAND = 2;
+
+   /** Record kind: a room closed a volley whose time was up. */
+   static final byte VOLLEY = 3;
+
+   /** Record kind: a room closed. */
+   static final byte CLOSE = 4;
+
+   /** The size of the fixed part of every record. */
+   private static final int HEADER = 40;
+
+   /** How much of the file is mapped at a time. */
+   private static final int SEGMENT_SIZE = 1 << 24;
+
+   /** The length that marks the rest of a segment as empty. */
+   private static final int SKIP = -1;
+
+   /** Where the journal file is, or null if journaling is off. */
+   private Path path;
+
+   /** The journal file, or null if journaling is off. */
+   private FileChannel channel;
+
+   /** True if the journal is only read, as Replay does, and never added to. */
+   private boolean readOnly;
+
+   /** The segment being appended to. */
+   private volatile MappedByteBuffer segment;
+
+   /** The offset in the file at which the current segment starts. */
+   private long segmentStart;
+
+   /** Where the next record goes in the current segment. */
+   private int position;
+
+   /** The number the next room to open will be given. */
+   private int nextRoom;
+
+   /** The sequence number the next record will be given. */
+   private long nextSeq;
+
+   /** The last sequence number a snapshot covers, or 0 if there is none. */
+   private long covered;
+
+   /** True if records were appended since the last sync. */
+   private volatile boolean dirty;
+
+   /** Guards appending, which any shard may do. */
+   private ReentrantLock lock;
+
+   /**
+    * Constructor for a Journal that records nothing.
+    */
+   public Journal() {
+      this.lock = new ReentrantLock();
+      this.nextSeq = 1;
+   }
+
+   /**
+    * Constructor for a Journal kept in a file. Records already in the file
+    * stay there; new ones are appended after them once they have been
+    * replayed.
+    *
+    * @param path The journal file.
+    * @throws IOException if the file cannot be opened.
+    */
+   public Journal(Path path) throws IOException {
+      this(path, false);
+   }
+
+   /**
+    * Constructor for a Journal kept in a file, which may be opened only to
+    * read it. A journal opened that way must already exist, and nothing can
+    * be appended to it.
+    *
+    * @param path The journal file.
+    * @param readOnly True to only read the journal.
+    * @throws IOException if the file cannot be opened.
+    */
+   public Journal(Path path, boolean readOnly) throws IOException {
+      this();
+      this.path = path.toAbsolutePath();
+      this.readOnly = readOnly;
+      this.channel = readOnly ? FileChannel.open(this.path) : open(this.path);
+   }
+
+   /**
+    * Indicates whether anything is being recorded.
+    *
+    * @return True if records are kept in a file. False otherwise.
+    */
+   public boolean isEnabled() {
+      return this.channel != null;
+   }
+
+   /**
+    * Notes that a snapshot holds everything up to a sequence number, so
+    * replay skips those records, and that its rooms are numbered below a
+    * given number. Called before replay.
+    *
+    * @param seq The last sequence number the snapshot covers.
+    * @param room A number above that of every room in the snapshot.
+    */
+   public void resume(long seq, int room) {
+      this.covered = seq;
+      this.nextSeq = Math.max(this.nextSeq, seq + 1);
+      this.nextRoom = Math.max(this.nextRoom, room);
+   }
+
+   /**
+    * Plays every record in the journal after the last snapshot back to a
+    * listener, in the order they were appended, and gets ready to append
+    * after the last of them. Rotated files come first, oldest first, and
+    * any the snapshot covers are not read at all. A record cut short by a
+    * crash ends a file. Called once, before anything is appended.
+    *
+    * @param listener Where to send the records.
+    * @throws IOException if the file cannot be read.
+    */
+   public void replay(JournalListener listener) throws IOException {
+      if (this.channel == null) {
+         return;
+      }
+      for (Path rotated : this.rotated(Long.MAX_VALUE)) {
+         if (markOf(rotated) > this.covered) {
+            try (FileChannel file = FileChannel.open(rotated)) {
+               this.scan(file, listener);
+            }
+         }
+      }
+      this.scan(this.channel, listener);
+   }
+
+   /**
+    * Plays every record in one file back to a listener, and leaves the
+    * journal ready to append after the last of them.
+    *
+    * @param file The file to read.
+    * @param listener Where to send the records.
+    * @throws IOException if the file cannot be read.
+    */
+   private void scan(FileChannel file, JournalListener listener)
+           throws IOException {
+      boolean append = file == this.channel && !this.readOnly;
+      this.segmentStart = 0;
+      this.map(file, append);
+      while (true) {
+         int length;
+         if (this.position + HEADER <= this.segment.limit()) {
+            length = this.segment.getInt(this.position);
+         } else {
+            // A file cut down to its records ends inside its last segment.
+            length = this.segment.limit() < SEGMENT_SIZE ? 0 : SKIP;
+         }
+         if (length == SKIP) {
+            this.segmentStart += SEGMENT_SIZE;
+            this.map(file, append);
+            continue;
+         }
+         if (length < HEADER
+                 || this.position + length > this.segment.limit()) {
+            break; // The end of the file, or a record cut short.
+         }
+         byte kind = this.segment.get(this.position + 4);
+         if (kind < OPEN || kind > CLOSE) {
+            break;
+         }
+         this.play(this.segment, this.position, listener);
+         this.position += align(length);
+      }
+   }
+
+   /**
+    * Plays one record back to a listener.
+    *
+    * @param buffer The segment holding the record.
+    * @param at Where the record starts.
+    * @param listener Where to send the record.
+    */
+   private void play(MappedByteBuffer buffer, int at,
+                     JournalListener listener) {
+      byte kind = buffer.get(at + 4);
+      int room = buffer.getInt(at + 8);
+      long seq = buffer.getLong(at + 32);
+      if (kind == OPEN) {
+         this.nextRoom = Math.max(this.nextRoom, room + 1);
+      }
+      this.nextSeq = Math.max(this.nextSeq, seq + 1);
+      if (seq <= this.covered) {
+         return; // The snapshot already holds what it did.
+      }
+      byte[] text = new byte[buffer.getInt(at + 28)];
+      buffer.get(at + HEADER, text);
+      String str = new String(text, StandardCharsets.UTF_8);
+      switch (kind) {
+         case OPEN:
+            listener.roomOpened(seq, room, str, buffer.getInt(at + 12),
+                                buffer.getLong(at + 16), buffer.get(at + 5) == 1);
+            break;
+         case COMMAND:
+            listener.commandRun(seq, room,
+                                CommandType.values()[buffer.get(at + 5)],
+                                buffer.getInt(at + 12), buffer.getInt(at + 16),
+                                buffer.getInt(at + 20), buffer.getInt(at + 24),
+                                str);
+            break;
+         case VOLLEY:
+            listener.volleyClosed(seq, room);
+            break;
+         case CLOSE:
+            listener.roomClosed(seq, room);
+            break;
+         default:
+            throw new IllegalStateException("Unexpected record: " + kind);
+      }
+   }
+
+   /**
+    * Records that a room opened.
+    *
+    * @param id The room's id.
+    * @param game The room's new game.
+    * @return The number that names the room in later records.
+    */
+   public int openRoom(String id, Game game) {
+      this.lock.lock();
+      try {
+         int room = this.nextRoom++;
+         int at = this.reserve(id);
+         if (at >= 0) {
+            this.segment.put(at + 5, (byte) (game.isSimultaneous() ? 1 : 0));
+            this.segment.putInt(at + 12, game.getSize());
+            this.segment.putLong(at + 16, game.getSeed());
+            this.commit(at, OPEN, room, id);
+         }
+         return room;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Records a command a room's game ran, and what came of it.
+    *
+    * @param room The room number.
+    * @param command The command.
+    * @param sender The sender's player id, or -1 if they are not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param result What came of the command.
+    * @return The record's sequence number, or 0 if nothing is recorded.
+    */
+   public long commandRun(int room, Command command, int sender, int victim,
+                          Result result) {
+      String name = command.getType() == CommandType.JOIN
+              || command.getType() == CommandType.BOT ? command.getPlayer() : "";
+      this.lock.lock();
+      try {
+         int at = this.reserve(name);
+         if (at >= 0) {
+            this.segment.put(at + 5, (byte) command.getType().ordinal());
+            this.segment.put(at + 6, (byte) result.getFlags());
+            this.segment.put(at + 7, (byte) result.getEliminated().size());
+            this.segment.putInt(at + 12, sender);
+            this.segment.putInt(at + 16, victim);
+            this.segment.putInt(at + 20, command.getX());
+            this.segment.putInt(at + 24, command.getY());
+            return this.commit(at, COMMAND, room, name);
+         }
+         return 0;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Records that a room closed a volley whose time was up.
+    *
+    * @param room The room number.
+    * @return The record's sequence number, or 0 if nothing is recorded.
+    */
+   public long volleyClosed(int room) {
+      return this.mark(VOLLEY, room);
+   }
+
+   /**
+    * Records that a room closed. Its game will not be rebuilt.
+    *
+    * @param room The room number.
+    * @return The record's sequence number, or 0 if nothing is recorded.
+    */
+   public long roomClosed(int room) {
+      return this.mark(CLOSE, room);
+   }
+
+   /**
+    * Forces everything appended since the last sync to disk. Called
+    * regularly by the lobby's timer.
+    */
+   public void sync() {
+      if (this.dirty) {
+         this.dirty = false;
+         this.segment.force();
+      }
+   }
+
+   /**
+    * Starts a new journal file, renaming the current one after the last
+    * sequence number in it and cutting it down to the records it holds.
+    * Records appended from now on have higher numbers and go in the new
+    * file. Nothing is renamed if the current file is empty.
+    *
+    * @return The last sequence number appended before the rotation.
+    * @throws IOException if the new file cannot be started.
+    */
+   public long rotate() throws IOException {
+      this.lock.lock();
+      try {
+         long mark = this.nextSeq - 1;
+         if (this.channel == null
+                 || (this.segmentStart == 0 && this.position == 0)) {
+            return mark;
+         }
+         // The open file follows the rename, so nothing is lost if it fails.
+         Files.move(this.path, this.path.resolveSibling(
+                 this.path.getFileName() + "." + mark));
+         this.segment.force();
+         this.channel.truncate(this.segmentStart + this.position);
+         this.channel.close();
+         this.channel = open(this.path);
+         this.segmentStart = 0;
+         this.map(this.channel, true);
+         return mark;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Deletes the rotated files that a snapshot has made unnecessary, except
+    * the newest few. A restart never reads those it keeps, but Replay does,
+    * so games that began before the snapshot can still be played back from
+    * their opening.
+    *
+    * @param mark The last sequence number the snapshot covers.
+    * @param keep How many of those files to keep, or -1 to keep them all.
+    * @throws IOException if the files cannot be listed or deleted.
+    */
+   public void deleteRotated(long mark, int keep) throws IOException {
+      if (this.channel == null || keep < 0) {
+         return;
+      }
+      List<Path> covered = this.rotated(mark);
+      for (Path rotated : covered.subList(0, Math.max(0, covered.size() - keep))) {
+         Files.deleteIfExists(rotated);
+      }
+   }
+
+   /**
+    * Closes the journal file. Nothing more can be read or appended.
+    *
+    * @throws IOException if the file cannot be closed.
+    */
+   public void close() throws IOException {
+      if (this.channel != null) {
+         this.channel.close();
+         this.channel = null;
+      }
+   }
+
+   /**
+    * Lists the rotated journal files, oldest first.
+    *
+    * @param mark The highest last sequence number to list.
+    * @return The files renamed after a sequence number no higher than mark.
+    * @throws IOException if the directory cannot be listed.
+    */
+   private List<Path> rotated(long mark) throws IOException {
+      List<Path> files = new ArrayList<>();
+      String prefix = this.path.getFileName() + ".";
+      try (Stream<Path> siblings = Files.list(this.path.getParent())) {
+         siblings.forEach(file -> {
+            String name = file.getFileName().toString();
+            if (name.startsWith(prefix)
+                    && name.substring(prefix.length()).matches("\\d+")
+                    && markOf(file) <= mark) {
+               files.add(file);
+            }
+         });
+      }
+      files.sort(Comparator.comparingLong(Journal::markOf));
+      return files;
+   }
+
+   /**
+    * Reads the last sequence number in a rotated file from its name.
+    *
+    * @param rotated The rotated file.
+    * @return The sequence number after the last dot in its name.
+    */
+   private static long markOf(Path rotated) {
+      String name = rotated.getFileName().toString();
+      return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+   }
+
+   /**
+    * Opens a journal file for reading and appending.
+    *
+    * @param path The file.
+    * @return The open file.
+    * @throws IOException if the file cannot be opened.
+    */
+   private static FileChannel open(Path path) throws IOException {
+      return FileChannel.open(path, StandardOpenOption.CREATE,
+                              StandardOpenOption.READ, StandardOpenOption.WRITE);
+   }
+
+   /**
+    * Appends a record with nothing but its kind and room.
+    *
+    * @param kind The kind of record.
+    * @param room The room number.
+    * @return The record's sequence number, or 0 if nothing is recorded.
+    */
+   private long mark(byte kind, int room) {
+      this.lock.lock();
+      try {
+         int at = this.reserve("");
+         if (at >= 0) {
+            return this.commit(at, kind, room, "");
+         }
+         return 0;
+      } finally {
+         this.lock.unlock();
+      }
+   }
+
+   /**
+    * Makes room for a record, moving on to a new segment if this one is too
+    * full. Called with the lock held.
+    *
+    * @param text The text the record will carry.
+    * @return Where the record starts, or -1 if nothing is being recorded.
+    */
+   private int reserve(String text) {
+      if (this.channel == null || this.readOnly) {
+         return -1;
+      }
+      int length = align(HEADER + text.getBytes(StandardCharsets.UTF_8).length);
+      if (this.position + length > SEGMENT_SIZE) {
+         if (this.position + HEADER <= SEGMENT_SIZE) {
+            this.segment.putInt(this.position, SKIP);
+         }
+         this.segment.force();
+         this.segmentStart += SEGMENT_SIZE;
+         try {
+            this.map(this.channel, true);
+         } catch (IOException ioe) {
+            ioe.printStackTrace();
+            this.channel = null; // Carry on without a journal.
+            return -1;
+         }
+      }
+      int at = this.position;
+      this.position += length;
+      return at;
+   }
+
+   /**
+    * Fills in the rest of a record and then its length, which is written
+    * last so that a record cut short by a crash reads as the end of the
+    * journal. Called with the lock held.
+    *
+    * @param at Where the record starts.
+    * @param kind The kind of record.
+    * @param room The room number.
+    * @param text The text the record carries.
+    * @return The record's sequence number.
+    */
+   private long commit(int at, byte kind, int room, String text) {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      long seq = this.nextSeq++;
+      this.segment.put(at + 4, kind);
+      this.segment.putInt(at + 8, room);
+      this.segment.putInt(at + 28, bytes.length);
+      this.segment.putLong(at + 32, seq);
+      this.segment.put(at + HEADER, bytes);
+      this.segment.putInt(at, HEADER + bytes.length);
+      this.dirty = true;
+      return seq;
+   }
+
+   /**
+    * Maps the segment of a file that starts at segmentStart and starts at
+    * its beginning. A segment to append to is mapped whole, and mapping past
+    * the end of the file grows it. A segment only read is mapped read-only,
+    * and no further than the end of the file.
+    *
+    * @param file The file to map.
+    * @param append True if records will be appended to the segment.
+    * @throws IOException if the segment cannot be mapped.
+    */
+   private void map(FileChannel file, boolean append) throws IOException {
+      if (append) {
+         this.segment = file.map(FileChannel.MapMode.READ_WRITE,
+                                 this.segmentStart, SEGMENT_SIZE);
+      } else {
+         long size = Math.max(0, file.size() - this.segmentStart);
+         this.segment = file.map(FileChannel.MapMode.READ_ONLY,
+                                 this.segmentStart,
+                                 Math.min(size, SEGMENT_SIZE));
+      }
+      this.position = 0;
+   }
+
+   /**
+    * Rounds a record length up to the next multiple of eight.
+    *
+    * @param length The length of a record.
+    * @return The space it takes in the journal.
+    */
+   private static int align(int length) {
+      return (length + 7) & ~7;
+   }
+}
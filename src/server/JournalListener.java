@@ -0,0 +1,57 @@
+package server;
+
+/**
+ * Something a Journal plays its records back to, one call per record, in
+ * the order they were appended. Each call carries the record's sequence
+ * number.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public interface JournalListener {
+
+   /**
+    * Called for a room that opened.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param id The room's id.
+    * @param size The size of the grids.
+    * @param seed The seed of the room's game.
+    * @param simultaneous True if the game is played in volleys.
+    */
+   void roomOpened(long seq, int room, String id, int size, long seed,
+                   boolean simultaneous);
+
+   /**
+    * Called for a command a room's game ran.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param type The kind of command.
+    * @param sender The sender's player id, or -1 if they were not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    */
+   void commandRun(long seq, int room, CommandType type, int sender,
+                   int victim, int x, int y, String name);
+
+   /**
+    * Called for a volley that a room closed when its time was up.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   void volleyClosed(long seq, int room);
+
+   /**
+    * Called for a room that closed.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   void roomClosed(long seq, int room);
+}
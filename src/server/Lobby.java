@@ -0,0 +1,382 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Lobby keeps the rooms of a BattleServer by id and spreads them across a
+ * fixed number of shards, one per available processor. A room always runs on
+ * the shard its id hashes to, except that a game left to nothing but bots
+ * runs on a bot shard of its own, so bots never hold up people playing. The
+ * lobby also rebuilds the rooms a snapshot and the journal after it recorded,
+ * before the server takes any connections, and takes a new snapshot every so
+ * often.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Lobby implements JournalListener {
+
+   /** The room players join when they do not name one. */
+   public static final String DEFAULT_ROOM = "lobby";
+
+   /**
+    * How often the journal is forced to disk, in milliseconds. Set it with
+    * -Dbattleship.journal.sync.millis.
+    */
+   private static final long SYNC_MILLIS =
+           Long.getLong("battleship.journal.sync.millis", 20);
+
+   /**
+    * How often a snapshot of every room is taken, in milliseconds. Set it
+    * with -Dbattleship.snapshot.millis.
+    */
+   private static final long SNAPSHOT_MILLIS =
+           Long.getLong("battleship.snapshot.millis", 60000);
+
+   /**
+    * How long the players of a game rebuilt after a restart have to take
+    * their seats back, in milliseconds; five snapshots by default. Those
+    * who do not come back in time surrender. Set it with
+    * -Dbattleship.reclaim.millis.
+    */
+   private static final long RECLAIM_MILLIS =
+           Long.getLong("battleship.reclaim.millis", 5 * SNAPSHOT_MILLIS);
+
+   /**
+    * How many of the journal files a snapshot has made unnecessary are kept
+    * for Replay, newest first; a day's worth at the default snapshot
+    * interval. Set it with -Dbattleship.journal.keep, or to -1 to keep them
+    * all.
+    */
+   private static final int JOURNAL_KEEP =
+           Integer.getInteger("battleship.journal.keep", 1440);
+
+   /**
+    * How many shards run games that nobody but bots is playing. Set it with
+    * -Dbattleship.bot.shards.
+    */
+   private static final int BOT_SHARDS =
+           Integer.getInteger("battleship.bot.shards", 1);
+
+   /** The server hosting the rooms. */
+   private BattleServer server;
+
+   /** The size of the grids in every room. */
+   private int gridSize;
+
+   /** The shards that run the rooms. */
+   private Shard[] shards;
+
+   /** The shards that run games nobody but bots is playing. */
+   private Shard[] botShards;
+
+   /** The rooms hosted by the server, keyed by room id. */
+   private Map<String, Room> rooms;
+
+   /** Runs the rooms' timed work, such as closing a volley. */
+   private ScheduledExecutorService timer;
+
+   /** Where the rooms record what changes their games. */
+   private Journal journal;
+
+   /** Where snapshots of the rooms are kept, or null if none are taken. */
+   private Snapshot snapshot;
+
+   /** Takes the snapshots, so nothing else waits for one to be written. */
+   private ScheduledExecutorService snapshotter;
+
+   /** Works out hints, so no room waits while one is worked out. */
+   private ExecutorService hinter;
+
+   /** The rooms being rebuilt from the journal, by room number. */
+   private Map<Integer, Room> restored;
+
+   /**
+    * Constructor for a Lobby.
+    *
+    * @param server   The server hosting the rooms.
+    * @param gridSize The size of the grids in every room.
+    * @param journal  Where the rooms record what changes their games.
+    * @param snapshot Where snapshots of the rooms are kept, or null.
+    */
+   public Lobby(BattleServer server, int gridSize, Journal journal,
+                Snapshot snapshot) {
+      int numShards = Runtime.getRuntime().availableProcessors();
+      this.server = server;
+      this.gridSize = gridSize;
+      this.shards = new Shard[numShards];
+      for (int i = 0; i < numShards; i++) {
+         this.shards[i] = new Shard("game-shard-" + i);
+      }
+      this.botShards = new Shard[Math.max(1, BOT_SHARDS)];
+      for (int i = 0; i < this.botShards.length; i++) {
+         this.botShards[i] = new Shard("bot-shard-" + i);
+      }
+      this.rooms = new ConcurrentHashMap<>();
+      this.timer = daemon("room-timer");
+      this.hinter = Executors.newFixedThreadPool(numShards, task -> {
+         Thread thread = new Thread(task, "hint-solver");
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.journal = journal;
+      this.snapshot = journal.isEnabled() ? snapshot : null;
+      if (journal.isEnabled()) {
+         this.timer.scheduleWithFixedDelay(journal::sync, SYNC_MILLIS,
+                                           SYNC_MILLIS, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Makes a single-threaded scheduler whose thread does not keep the
+    * server running.
+    *
+    * @param name The name of the thread.
+    * @return The scheduler.
+    */
+   private static ScheduledExecutorService daemon(String name) {
+      return Executors.newSingleThreadScheduledExecutor(task -> {
+         Thread thread = new Thread(task, name);
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Rebuilds every room that had not closed: loads the last snapshot, then
+    * plays back the journal records written after it, and seats a bot again
+    * wherever one was still playing. Players who do not take their seats
+    * back within -Dbattleship.reclaim.millis surrender. Snapshots are taken
+    * from then on. Called once, before any client connects.
+    *
+    * @throws IOException if the snapshot or the journal cannot be read.
+    */
+   public void restore() throws IOException {
+      this.restored = new HashMap<>();
+      if (this.snapshot != null && this.snapshot.load()) {
+         int nextRoom = 0;
+         for (ByteBuffer part : this.snapshot.getRooms()) {
+            Room room = Room.read(part, this.server, this);
+            room.awaitPlayers();
+            this.restored.put(room.getNumber(), room);
+            this.rooms.put(room.getId(), room);
+            nextRoom = Math.max(nextRoom, room.getNumber() + 1);
+         }
+         this.journal.resume(this.snapshot.getMark(), nextRoom);
+      }
+      this.journal.replay(this);
+      for (Room room : this.restored.values()) {
+         room.reseatBots();
+         room.expireAfter(RECLAIM_MILLIS);
+      }
+      this.restored = null;
+      if (this.snapshot != null) {
+         this.snapshotter = daemon("snapshot-writer");
+         this.snapshotter.scheduleWithFixedDelay(this::takeSnapshot,
+                 SNAPSHOT_MILLIS, SNAPSHOT_MILLIS, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Writes a snapshot of every room. The journal is rotated first, so
+    * every record in the older files happened before any room captures its
+    * state. Each room then captures its state on its own thread between two
+    * commands, while this thread waits to write them all out. Once the
+    * snapshot is on disk, the rotated journal files beyond the newest few
+    * are deleted.
+    */
+   private void takeSnapshot() {
+      try {
+         long mark = this.journal.rotate();
+         List<CompletableFuture<byte[]>> states = new ArrayList<>();
+         for (Room room : this.rooms.values()) {
+            states.add(room.snapshot());
+         }
+         List<byte[]> parts = new ArrayList<>();
+         for (CompletableFuture<byte[]> state : states) {
+            byte[] part = state.join();
+            if (part != null) {
+               parts.add(part);
+            }
+         }
+         this.snapshot.write(mark, parts);
+         this.journal.deleteRotated(mark, JOURNAL_KEEP);
+      } catch (IOException ioe) {
+         ioe.printStackTrace(); // The journal still holds everything.
+      }
+   }
+
+   /**
+    * Rebuilds a room the journal says opened, unless the snapshot already
+    * holds it.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param id The room's id.
+    * @param size The size of the grids.
+    * @param seed The seed of the room's game.
+    * @param simultaneous True if the game is played in volleys.
+    */
+   @Override
+   public void roomOpened(long seq, int room, String id, int size, long seed,
+                          boolean simultaneous) {
+      if (this.restored.containsKey(room)) {
+         return;
+      }
+      Room rebuilt = new Room(id, this.server, this, this.shardFor(id),
+                              new Game(size, seed, simultaneous), room);
+      rebuilt.awaitPlayers();
+      this.restored.put(room, rebuilt);
+      this.rooms.put(id, rebuilt);
+   }
+
+   /**
+    * Runs a journaled command again in the room it was run in.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param type The kind of command.
+    * @param sender The sender's player id, or -1 if they were not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    */
+   @Override
+   public void commandRun(long seq, int room, CommandType type, int sender,
+                          int victim, int x, int y, String name) {
+      Room rebuilt = this.restored.get(room);
+      if (rebuilt != null && !rebuilt.covers(seq)) {
+         rebuilt.replay(seq, type, sender, victim, x, y, name);
+      }
+   }
+
+   /**
+    * Closes a volley again in the room it was closed in.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   @Override
+   public void volleyClosed(long seq, int room) {
+      Room rebuilt = this.restored.get(room);
+      if (rebuilt != null && !rebuilt.covers(seq)) {
+         rebuilt.replayVolley(seq);
+      }
+   }
+
+   /**
+    * Forgets a room the journal says closed.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   @Override
+   public void roomClosed(long seq, int room) {
+      Room rebuilt = this.restored.get(room);
+      if (rebuilt != null && !rebuilt.covers(seq)) {
+         this.restored.remove(room);
+         this.rooms.remove(rebuilt.getId(), rebuilt);
+      }
+   }
+
+   /**
+    * Accessor for the threads that work out hints.
+    *
+    * @return The hint threads.
+    */
+   ExecutorService getHinter() {
+      return this.hinter;
+   }
+
+   /**
+    * Accessor for the journal the rooms record to.
+    *
+    * @return The journal.
+    */
+   Journal getJournal() {
+      return this.journal;
+   }
+
+   /**
+    * Queues a command for the room with the given id, creating the room if
+    * it does not exist. The command is queued while the room is held in the
+    * map, so a room cannot be retired with the command still on its way.
+    *
+    * @param roomId  The id of the room the command is for.
+    * @param message The command received from the client.
+    * @param source  The session of the client that sent the command.
+    * @return The room the command was queued for.
+    */
+   public Room submit(String roomId, String message, Session source) {
+      return this.rooms.compute(roomId, (id, room) -> {
+         if (room == null) {
+            Game game = new Game(this.gridSize);
+            room = new Room(id, this.server, this, this.shardFor(id), game,
+                            this.journal.openRoom(id, game));
+         }
+         room.submit(message, source);
+         return room;
+      });
+   }
+
+   /**
+    * Runs a task once a delay has passed. The task should only put work in
+    * a room's mailbox; the timer's thread is shared by every room.
+    *
+    * @param task The task to run.
+    * @param millis How long to wait, in milliseconds.
+    */
+   void schedule(Runnable task, long millis) {
+      this.timer.schedule(task, millis, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Forgets an empty room, unless more work has arrived for it.
+    *
+    * @param room The room to retire.
+    */
+   void retire(Room room) {
+      this.rooms.computeIfPresent(room.getId(), (id, r) -> {
+         if (r != room || !r.hasNoMail()) {
+            return r;
+         }
+         room.close();
+         return null;
+      });
+   }
+
+   /**
+    * Finds the shard that runs a room.
+    *
+    * @param roomId The id of the room.
+    * @return The shard running that room.
+    */
+   Shard shardFor(String roomId) {
+      return this.shards[Math.floorMod(roomId.hashCode(), this.shards.length)];
+   }
+
+   /**
+    * Finds the bot shard that runs a room while nobody but bots is playing
+    * in it.
+    *
+    * @param roomId The id of the room.
+    * @return The bot shard for that room.
+    */
+   Shard botShardFor(String roomId) {
+      return this.botShards[Math.floorMod(roomId.hashCode(),
+                                          this.botShards.length)];
+   }
+}
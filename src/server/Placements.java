@@ -0,0 +1,257 @@
+package server;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places ships on an empty board without guessing. For small boards it keeps
+ * every legal placement of each ship length in a set it can sample from
+ * uniformly, and takes out the placements a new ship covers as soon as it is
+ * put down, so each ship takes the same short time however crowded the board
+ * is. Large boards are so sparsely filled that a random placement almost
+ * always fits, so they are sampled directly, with a scan to fall back on.
+ *
+ * A placement is a single int: the orientation, then the row and column of
+ * the ship's top left square.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Placements {
+
+   /** The kinds of ship that may be placed, each as likely as the others. */
+   private static final Ship[] FLEET = {Ship.CARRIER, Ship.BATTLESHIP,
+           Ship.CRUISER, Ship.SUBMARINE, Ship.DESTROYER};
+
+   /** The length of the longest ship. */
+   private static final int MAX_LENGTH = 5;
+
+   /** The largest board whose legal placements are kept in sets. */
+   private static final int MAX_INDEXED_SIZE = 32;
+
+   /** How many random placements to try on a large board before scanning. */
+   private static final int MAX_TRIES = 64;
+
+   /** The board the ships are placed on. */
+   private Board board;
+
+   /** The size of the square board. */
+   private int size;
+
+   /** Where the randomness comes from. */
+   private SplittableRandom random;
+
+   /** The legal placements of each ship length, or null on a large board. */
+   private int[][] legal;
+
+   /** How many legal placements there are of each ship length. */
+   private int[] counts;
+
+   /**
+    * Where each placement is in its set, plus one, or 0 if it is not legal.
+    */
+   private int[][] positions;
+
+   /**
+    * Constructor for Placements on an empty board.
+    *
+    * @param board The empty board.
+    * @param random Where the randomness comes from.
+    */
+   public Placements(Board board, SplittableRandom random) {
+      this.board = board;
+      this.size = board.getSize();
+      this.random = random;
+      if (this.size <= MAX_INDEXED_SIZE) {
+         this.index();
+      }
+   }
+
+   /**
+    * Fills the set of legal placements of every ship length. Everything fits
+    * on an empty board.
+    */
+   private void index() {
+      this.legal = new int[MAX_LENGTH + 1][];
+      this.counts = new int[MAX_LENGTH + 1];
+      this.positions = new int[MAX_LENGTH + 1][];
+      for (Ship ship : FLEET) {
+         int length = ship.getLength();
+         if (this.legal[length] != null || length > this.size) {
+            continue;
+         }
+         this.legal[length] = new int[2 * this.size * this.size];
+         this.positions[length] = new int[2 * this.size * this.size];
+         for (int vertical = 0; vertical <= 1; vertical++) {
+            for (int i = 0; i < this.size; i++) {
+               for (int j = 0; j < this.size; j++) {
+                  if (this.fitsOnBoard(length, vertical == 1, i, j)) {
+                     int placement = this.encode(vertical == 1, i, j);
+                     this.legal[length][this.counts[length]++] = placement;
+                     this.positions[length][placement] = this.counts[length];
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Places one ship, of a kind chosen at random among those that still fit,
+    * somewhere chosen at random among the places it fits.
+    *
+    * @return The ship that was placed.
+    * @throws IllegalStateException if no ship fits anywhere.
+    */
+   public Vessel place() {
+      Ship ship = this.pickShip();
+      int placement = this.legal == null ? this.sample(ship.getLength())
+              : this.legal[ship.getLength()][this.random.nextInt(
+                      this.counts[ship.getLength()])];
+      boolean vertical = placement >= this.size * this.size;
+      int i = (placement % (this.size * this.size)) / this.size;
+      int j = placement % this.size;
+      Vessel vessel = new Vessel(ship, i, j, vertical);
+      for (int k = 0; k < ship.getLength(); k++) {
+         int row = vessel.getRow(k);
+         int col = vessel.getCol(k);
+         this.board.put(ship, row, col);
+         if (this.legal != null) {
+            this.cover(row, col);
+         }
+      }
+      return vessel;
+   }
+
+   /**
+    * Chooses the kind of ship to place. Kinds that no longer fit are skipped.
+    *
+    * @return The kind of ship.
+    * @throws IllegalStateException if no ship fits anywhere.
+    */
+   private Ship pickShip() {
+      int start = this.random.nextInt(FLEET.length);
+      for (int n = 0; n < FLEET.length; n++) {
+         Ship ship = FLEET[(start + n) % FLEET.length];
+         if (ship.getLength() <= this.size && (this.legal == null
+                 || this.counts[ship.getLength()] > 0)) {
+            return ship;
+         }
+      }
+      throw new IllegalStateException("No room for another ship");
+   }
+
+   /**
+    * Takes every placement that covers a square out of the legal sets.
+    *
+    * @param row The row of the square.
+    * @param col The column of the square.
+    */
+   private void cover(int row, int col) {
+      for (int length = 1; length <= MAX_LENGTH; length++) {
+         if (this.legal[length] == null) {
+            continue;
+         }
+         for (int k = 0; k < length; k++) {
+            if (col - k >= 0 && this.fitsOnBoard(length, false, row, col - k)) {
+               this.remove(length, this.encode(false, row, col - k));
+            }
+            if (row - k >= 0 && this.fitsOnBoard(length, true, row - k, col)) {
+               this.remove(length, this.encode(true, row - k, col));
+            }
+         }
+      }
+   }
+
+   /**
+    * Takes a placement out of a legal set, if it is there, by moving the last
+    * placement in the set into its slot.
+    *
+    * @param length The ship length.
+    * @param placement The placement.
+    */
+   private void remove(int length, int placement) {
+      int position = this.positions[length][placement];
+      if (position == 0) {
+         return;
+      }
+      int last = this.legal[length][--this.counts[length]];
+      this.legal[length][position - 1] = last;
+      this.positions[length][last] = position;
+      this.positions[length][placement] = 0;
+   }
+
+   /**
+    * Finds a free placement on a large board by trying random ones, then by
+    * scanning onwards from a random one if none of those were free.
+    *
+    * @param length The ship length.
+    * @return The placement.
+    * @throws IllegalStateException if the ship fits nowhere.
+    */
+   private int sample(int length) {
+      int total = 2 * this.size * this.size;
+      for (int tries = 0; tries < MAX_TRIES; tries++) {
+         int placement = this.random.nextInt(total);
+         if (this.isFree(length, placement)) {
+            return placement;
+         }
+      }
+      int start = this.random.nextInt(total);
+      for (int n = 0; n < total; n++) {
+         int placement = (start + n) % total;
+         if (this.isFree(length, placement)) {
+            return placement;
+         }
+      }
+      throw new IllegalStateException("No room for another ship");
+   }
+
+   /**
+    * Indicates whether a ship fits at a placement, on the board and clear of
+    * every other ship.
+    *
+    * @param length The ship length.
+    * @param placement The placement.
+    * @return True if the ship fits. False otherwise.
+    */
+   private boolean isFree(int length, int placement) {
+      boolean vertical = placement >= this.size * this.size;
+      int i = (placement % (this.size * this.size)) / this.size;
+      int j = placement % this.size;
+      if (!this.fitsOnBoard(length, vertical, i, j)) {
+         return false;
+      }
+      for (int k = 0; k < length; k++) {
+         if (!this.board.isEmpty(vertical ? i + k : i, vertical ? j : j + k)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Indicates whether a ship starting at a square stays on the board.
+    *
+    * @param length The ship length.
+    * @param vertical True if the ship runs down. False if it runs across.
+    * @param i The row of the ship's top left square.
+    * @param j The column of the ship's top left square.
+    * @return True if the whole ship is on the board. False otherwise.
+    */
+   private boolean fitsOnBoard(int length, boolean vertical, int i, int j) {
+      return vertical ? i + length <= this.size : j + length <= this.size;
+   }
+
+   /**
+    * Packs a placement into an int.
+    *
+    * @param vertical True if the ship runs down. False if it runs across.
+    * @param i The row of the ship's top left square.
+    * @param j The column of the ship's top left square.
+    * @return The placement.
+    */
+   private int encode(boolean vertical, int i, int j) {
+      return (vertical ? this.size * this.size : 0) + i * this.size + j;
+   }
+}
@@ -0,0 +1,234 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * The ratings of a tournament's entrants, worked out two ways.
+ *
+ * The Elo ratings are fitted to every game at once, as the ratings under
+ * which the results were most likely (the Bradley-Terry model), so they do
+ * not depend on the order the games were played in. Each pair of entrants
+ * that met is also given one drawn game, so that an entrant that never
+ * lost still gets a finite rating. The error is worked out from how
+ * sharply the likelihood falls away from each rating.
+ *
+ * The Glicko ratings are updated once per round, taking the round as one
+ * rating period, and carry a rating deviation that shrinks as games are
+ * played. Both are on the same scale, centred on 1500, and both come with
+ * a 95% confidence interval.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Ratings {
+
+   /** The rating every entrant starts with. */
+   private static final double START = 1500;
+
+   /** The rating deviation every entrant starts with. */
+   private static final double START_DEVIATION = 350;
+
+   /** Converts a rating difference into natural log odds. */
+   private static final double Q = Math.log(10) / 400;
+
+   /** How many standard errors either side a 95% interval spans. */
+   private static final double Z95 = 1.96;
+
+   /** The most passes made fitting the Elo ratings. */
+   private static final int MAX_PASSES = 10000;
+
+   /** How little the Elo ratings may change in a pass once they are fitted. */
+   private static final double TOLERANCE = 1e-9;
+
+   /** How many entrants there are. */
+   private int entrants;
+
+   /** Each entrant's Glicko rating. */
+   private double[] glicko;
+
+   /** Each entrant's Glicko rating deviation. */
+   private double[] deviation;
+
+   /** Each entrant's Elo rating. */
+   private double[] elo;
+
+   /** The standard error of each entrant's Elo rating. */
+   private double[] error;
+
+   /**
+    * Constructor for the Ratings of entrants who have not played yet.
+    *
+    * @param entrants How many entrants there are.
+    */
+   public Ratings(int entrants) {
+      this.entrants = entrants;
+      this.glicko = new double[entrants];
+      this.deviation = new double[entrants];
+      this.elo = new double[entrants];
+      this.error = new double[entrants];
+      for (int i = 0; i < entrants; i++) {
+         this.glicko[i] = START;
+         this.deviation[i] = START_DEVIATION;
+         this.elo[i] = START;
+         this.error[i] = Double.POSITIVE_INFINITY;
+      }
+   }
+
+   /**
+    * Updates the Glicko ratings with the games of one rating period. Every
+    * entrant is updated from the ratings everyone had before it.
+    *
+    * @param period The games of the period.
+    */
+   public void updateGlicko(Results period) {
+      double[] rating = new double[this.entrants];
+      double[] deviation = new double[this.entrants];
+      for (int i = 0; i < this.entrants; i++) {
+         double information = 0;
+         double surprise = 0;
+         for (int j = 0; j < this.entrants; j++) {
+            long played = period.getPlayed(i, j);
+            if (j == i || played == 0) {
+               continue;
+            }
+            double g = g(this.deviation[j]);
+            double expected = expected(this.glicko[i], this.glicko[j], g);
+            information += played * Q * Q * g * g * expected * (1 - expected);
+            surprise += g * (period.getScore(i, j) - played * expected);
+         }
+         double precision = 1 / (this.deviation[i] * this.deviation[i])
+                            + information;
+         rating[i] = this.glicko[i] + Q / precision * surprise;
+         deviation[i] = Math.sqrt(1 / precision);
+      }
+      this.glicko = rating;
+      this.deviation = deviation;
+   }
+
+   /**
+    * Works out how much less an opponent's rating counts for the less sure
+    * of it we are.
+    *
+    * @param deviation The opponent's rating deviation.
+    * @return The weight, from 0 to 1.
+    */
+   private static double g(double deviation) {
+      return 1 / Math.sqrt(1 + 3 * Q * Q * deviation * deviation
+                               / (Math.PI * Math.PI));
+   }
+
+   /**
+    * Works out an entrant's expected score in a game against an opponent.
+    *
+    * @param rating The entrant's rating.
+    * @param opponent The opponent's rating.
+    * @param g The weight of the opponent's rating.
+    * @return The expected score, from 0 to 1.
+    */
+   private static double expected(double rating, double opponent, double g) {
+      return 1 / (1 + Math.pow(10, -g * (rating - opponent) / 400));
+   }
+
+   /**
+    * Fits the Elo ratings to every game played, by the minorization-
+    * maximization method for the Bradley-Terry model: each entrant's
+    * strength is set to its score over the games it was expected to play,
+    * over and over, until nothing changes.
+    *
+    * @param total Every game played.
+    */
+   public void fitElo(Results total) {
+      final double PRIOR = 1;
+      double[] strength = new double[this.entrants];
+      Arrays.fill(strength, 1);
+      for (int pass = 0; pass < MAX_PASSES; pass++) {
+         double[] next = new double[this.entrants];
+         double logSum = 0;
+         int rated = 0;
+         for (int i = 0; i < this.entrants; i++) {
+            double score = 0;
+            double expected = 0;
+            for (int j = 0; j < this.entrants; j++) {
+               long played = total.getPlayed(i, j);
+               if (j == i || played == 0) {
+                  continue;
+               }
+               score += total.getScore(i, j) + PRIOR / 2;
+               expected += (played + PRIOR) / (strength[i] + strength[j]);
+            }
+            next[i] = expected == 0 ? 1 : score / expected;
+            if (expected > 0) {
+               logSum += Math.log(next[i]);
+               rated++;
+            }
+         }
+         double scale = rated == 0 ? 1 : Math.exp(logSum / rated);
+         double change = 0;
+         for (int i = 0; i < this.entrants; i++) {
+            next[i] /= scale;
+            change = Math.max(change, Math.abs(Math.log(next[i] / strength[i])));
+         }
+         strength = next;
+         if (change < TOLERANCE) {
+            break;
+         }
+      }
+      for (int i = 0; i < this.entrants; i++) {
+         double information = 0;
+         for (int j = 0; j < this.entrants; j++) {
+            long played = total.getPlayed(i, j);
+            if (j == i || played == 0) {
+               continue;
+            }
+            double p = strength[i] / (strength[i] + strength[j]);
+            information += (played + PRIOR) * p * (1 - p);
+         }
+         this.elo[i] = START + Math.log(strength[i]) / Q;
+         this.error[i] = information == 0 ? Double.POSITIVE_INFINITY
+                 : 1 / (Q * Math.sqrt(information));
+      }
+   }
+
+   /**
+    * Accessor for an entrant's Glicko rating.
+    *
+    * @param i The index of the entrant.
+    * @return The rating.
+    */
+   public double getGlicko(int i) {
+      return this.glicko[i];
+   }
+
+   /**
+    * Works out how far either side of an entrant's Glicko rating its true
+    * rating lies, 95 times in 100.
+    *
+    * @param i The index of the entrant.
+    * @return The half width of the interval.
+    */
+   public double getGlickoInterval(int i) {
+      return Z95 * this.deviation[i];
+   }
+
+   /**
+    * Accessor for an entrant's Elo rating.
+    *
+    * @param i The index of the entrant.
+    * @return The rating.
+    */
+   public double getElo(int i) {
+      return this.elo[i];
+   }
+
+   /**
+    * Works out how far either side of an entrant's Elo rating its true
+    * rating lies, 95 times in 100.
+    *
+    * @param i The index of the entrant.
+    * @return The half width of the interval.
+    */
+   public double getEloInterval(int i) {
+      return Z95 * this.error[i];
+   }
+}
@@ -0,0 +1,240 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One game as the journal recorded it: how it was set up and every move
+ * made in it, in order. A game's fleets come from its seed, so playing the
+ * moves into a new Game with the same seed rebuilds it exactly, as of any
+ * move. The moves are parsed once, when they are recorded, so playing them
+ * back is nothing but the game's own work.
+ *
+ * A move is a command and the player who sent it, or a null command for a
+ * volley that was closed when its time was up.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Recording {
+
+   /** The number that named the game's room in the journal. */
+   private int number;
+
+   /** The id of the game's room. */
+   private String id;
+
+   /** The size of the grids. */
+   private int size;
+
+   /** The seed of the game's randomness. */
+   private long seed;
+
+   /** True if the game was played in volleys. */
+   private boolean simultaneous;
+
+   /** The command of each move, or null for a volley closed by the room. */
+   private List<Command> commands;
+
+   /** The player who sent each move, or "" if nobody playing did. */
+   private List<String> senders;
+
+   /** The name of every player who joined, indexed by player id. */
+   private List<String> seats;
+
+   /** The game as of the last move recorded. */
+   private Game game;
+
+   /** True if the room closed. */
+   private boolean closed;
+
+   /**
+    * Constructor for a Recording of a game with no moves yet.
+    *
+    * @param number The number that named the game's room in the journal.
+    * @param id The id of the game's room.
+    * @param size The size of the grids.
+    * @param seed The seed of the game's randomness.
+    * @param simultaneous True if the game was played in volleys.
+    */
+   public Recording(int number, String id, int size, long seed,
+                    boolean simultaneous) {
+      this.number = number;
+      this.id = id;
+      this.size = size;
+      this.seed = seed;
+      this.simultaneous = simultaneous;
+      this.commands = new ArrayList<>();
+      this.senders = new ArrayList<>();
+      this.seats = new ArrayList<>();
+      this.game = new Game(size, seed, simultaneous);
+   }
+
+   /**
+    * Turns a journaled command back into the command the game ran. The
+    * journal names players by id, so the ids are looked up among the
+    * players who had joined. A BOT is the JOIN of a bot.
+    *
+    * @param type The kind of command.
+    * @param seats The name of every player who had joined, by player id.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    * @return The command, or null if it could have changed nothing.
+    */
+   static Command toCommand(CommandType type, List<String> seats, int victim,
+                            int x, int y, String name) {
+      String text;
+      switch (type) {
+         case JOIN:
+         case BOT:
+            text = "/join " + name;
+            break;
+         case PLAY:
+            text = "/play";
+            break;
+         case ATTACK:
+            if (victim < 0) {
+               return null; // The game turned it down, naming nobody it knew.
+            }
+            text = "/attack " + seats.get(victim) + " " + x + " " + y;
+            break;
+         case QUIT:
+            text = "/quit";
+            break;
+         default:
+            return null;
+      }
+      return Command.parse(text);
+   }
+
+   /**
+    * Records a move. It is played into the recorded game at once, so a
+    * JOIN that seated its player gives out the next player id, as it did
+    * when it was first played.
+    *
+    * @param type The kind of command.
+    * @param sender The sender's player id, or -1 if they were not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    */
+   public void add(CommandType type, int sender, int victim, int x, int y,
+                   String name) {
+      Command command = toCommand(type, this.seats, victim, x, y, name);
+      if (command == null) {
+         return;
+      }
+      String senderName = sender < 0 ? "" : this.seats.get(sender);
+      this.commands.add(command);
+      this.senders.add(senderName);
+      Result result = this.game.execute(command, senderName);
+      if (command.getType() == CommandType.JOIN && result.isGlobal()
+              && !result.isRemove()) {
+         this.seats.add(name);
+      }
+   }
+
+   /**
+    * Records a volley closed because its time was up.
+    */
+   public void addVolley() {
+      this.commands.add(null);
+      this.senders.add("");
+      this.game.resolveVolley();
+   }
+
+   /**
+    * Records that the game's room closed.
+    */
+   public void close() {
+      this.closed = true;
+   }
+
+   /**
+    * Plays the first moves of the game into a new Game with the same seed.
+    *
+    * @param moves How many moves to play. More than were recorded plays
+    *              them all.
+    * @return The game as it was after that many moves.
+    */
+   public Game replay(int moves) {
+      Game replayed = new Game(this.size, this.seed, this.simultaneous);
+      int end = Math.min(moves, this.commands.size());
+      for (int n = 0; n < end; n++) {
+         Command command = this.commands.get(n);
+         if (command == null) {
+            replayed.resolveVolley();
+         } else {
+            replayed.execute(command, this.senders.get(n));
+         }
+      }
+      return replayed;
+   }
+
+   /**
+    * Accessor for the number that named the game's room in the journal.
+    *
+    * @return The room number.
+    */
+   public int getNumber() {
+      return this.number;
+   }
+
+   /**
+    * Accessor for the id of the game's room.
+    *
+    * @return The room id.
+    */
+   public String getId() {
+      return this.id;
+   }
+
+   /**
+    * Accessor for the seed of the game's randomness.
+    *
+    * @return The seed.
+    */
+   public long getSeed() {
+      return this.seed;
+   }
+
+   /**
+    * Accessor for the number of moves recorded.
+    *
+    * @return The number of moves.
+    */
+   public int getMoves() {
+      return this.commands.size();
+   }
+
+   /**
+    * Accessor for the name of every player who joined, by player id.
+    *
+    * @return The players' names.
+    */
+   public List<String> getSeats() {
+      return this.seats;
+   }
+
+   /**
+    * Accessor for the game as of the last move recorded.
+    *
+    * @return The game.
+    */
+   public Game getGame() {
+      return this.game;
+   }
+
+   /**
+    * Indicates whether the game's room closed.
+    *
+    * @return True if the room closed. False if it was still open.
+    */
+   public boolean isClosed() {
+      return this.closed;
+   }
+}
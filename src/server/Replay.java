@@ -0,0 +1,236 @@
+package server;
+
+import common.GridView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plays the games a journal recorded back without a server, to reproduce
+ * what happened in one of them or to check that a change to the rules
+ * leaves recorded games playing out as they did. Every game the journal
+ * holds from its opening is read into a Recording, which can be played back
+ * to any move.
+ *
+ * Run with only a journal, it lists the games and times playing all of
+ * them back. Run with a room id, and optionally a move number, it shows
+ * that game as it was after that move.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Replay implements JournalListener {
+
+   /** The fewest command line arguments. */
+   private final static int MIN_ARGS = 1;
+
+   /** The most command line arguments. */
+   private final static int MAX_ARGS = 3;
+
+   /** How long to keep playing every game back when timing it. */
+   private final static long TIMING_NANOS = 1_000_000_000L;
+
+   /** Every game recorded from its opening, by room number. */
+   private Map<Integer, Recording> recordings;
+
+   /**
+    * Constructor for a Replay with no games read yet.
+    */
+   public Replay() {
+      this.recordings = new LinkedHashMap<>();
+   }
+
+   /**
+    * Reads every game recorded in a journal and the rotated files the
+    * server kept, without changing any of them, so it is safe while the
+    * server is running. A game whose opening is only in a snapshot, because
+    * the journal files before it were deleted (see
+    * -Dbattleship.journal.keep), is left out.
+    *
+    * @param path The journal file.
+    * @return The games, by room number, in the order they opened.
+    * @throws IOException if the journal cannot be read.
+    */
+   public static Map<Integer, Recording> read(Path path) throws IOException {
+      Replay replay = new Replay();
+      Journal journal = new Journal(path, true);
+      try {
+         journal.replay(replay);
+      } finally {
+         journal.close();
+      }
+      return replay.recordings;
+   }
+
+   /**
+    * Starts recording a game whose room opened.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param id The room's id.
+    * @param size The size of the grids.
+    * @param seed The seed of the room's game.
+    * @param simultaneous True if the game is played in volleys.
+    */
+   @Override
+   public void roomOpened(long seq, int room, String id, int size, long seed,
+                          boolean simultaneous) {
+      this.recordings.put(room, new Recording(room, id, size, seed,
+                                              simultaneous));
+   }
+
+   /**
+    * Records a move in the game it was made in.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    * @param type The kind of command.
+    * @param sender The sender's player id, or -1 if they were not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    */
+   @Override
+   public void commandRun(long seq, int room, CommandType type, int sender,
+                          int victim, int x, int y, String name) {
+      Recording recording = this.recordings.get(room);
+      if (recording != null) {
+         recording.add(type, sender, victim, x, y, name);
+      }
+   }
+
+   /**
+    * Records a volley closed in the game it was closed in.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   @Override
+   public void volleyClosed(long seq, int room) {
+      Recording recording = this.recordings.get(room);
+      if (recording != null) {
+         recording.addVolley();
+      }
+   }
+
+   /**
+    * Notes that a game's room closed. The game is kept.
+    *
+    * @param seq The record's sequence number.
+    * @param room The room number.
+    */
+   @Override
+   public void roomClosed(long seq, int room) {
+      Recording recording = this.recordings.get(room);
+      if (recording != null) {
+         recording.close();
+      }
+   }
+
+   /**
+    * Entry point into the program.
+    *
+    * @param args The journal file, then optionally the id of a room and the
+    *             number of moves to play in it.
+    */
+   public static void main(String[] args) {
+      if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
+         System.err.println("java server.Replay <journal> [room] [move]");
+         System.exit(1);
+      }
+      Path path = Path.of(args[0]);
+      if (!Files.exists(path)) {
+         System.err.println("No journal at " + path);
+         System.exit(1);
+      }
+      try {
+         Map<Integer, Recording> recordings = read(path);
+         if (args.length == MIN_ARGS) {
+            list(recordings);
+         } else {
+            int moves = args.length == MAX_ARGS ? Integer.parseInt(args[2])
+                    : Integer.MAX_VALUE;
+            show(recordings, args[1], moves);
+         }
+      } catch (IOException | NumberFormatException e) {
+         e.printStackTrace();
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Prints every game and how fast they all play back.
+    *
+    * @param recordings The games.
+    */
+   private static void list(Map<Integer, Recording> recordings) {
+      long total = 0;
+      for (Recording recording : recordings.values()) {
+         System.out.println("#" + recording.getNumber() + " "
+                            + recording.getId() + ": "
+                            + recording.getMoves() + " moves, seed "
+                            + recording.getSeed()
+                            + (recording.isClosed() ? ", closed" : ", open"));
+         total += recording.getMoves();
+      }
+      if (total == 0) {
+         return;
+      }
+      long rounds = 0;
+      long start = System.nanoTime();
+      long elapsed;
+      do {
+         for (Recording recording : recordings.values()) {
+            recording.replay(Integer.MAX_VALUE);
+         }
+         rounds++;
+         elapsed = System.nanoTime() - start;
+      } while (elapsed < TIMING_NANOS);
+      System.out.printf("Played back %d moves %d times: %.0f moves/s%n",
+                        total, rounds, total * rounds * 1e9 / elapsed);
+   }
+
+   /**
+    * Prints one game as it was after a number of moves.
+    *
+    * @param recordings The games.
+    * @param id The id of the game's room. The last game in that room is
+    *           shown.
+    * @param moves How many moves to play.
+    */
+   private static void show(Map<Integer, Recording> recordings, String id,
+                            int moves) {
+      Recording found = null;
+      for (Recording recording : recordings.values()) {
+         if (recording.getId().equals(id)) {
+            found = recording;
+         }
+      }
+      if (found == null) {
+         System.err.println("No game recorded in room " + id);
+         System.exit(1);
+      }
+      Game game = found.replay(moves);
+      System.out.println("After " + Math.min(moves, found.getMoves()) + " of "
+                         + found.getMoves() + " moves, seed "
+                         + found.getSeed());
+      if (!game.isInPlay()) {
+         System.out.println("Play not in progress");
+         return;
+      }
+      System.out.println("Turn: " + (game.isSimultaneous() ? "volley "
+              + game.getVolleys() : game.getCurrentPlayer()));
+      for (String name : found.getSeats()) {
+         GridView view = game.view(name, name);
+         if (view != null) {
+            System.out.println(name + ":");
+            System.out.println(view.getText());
+         }
+      }
+   }
+}
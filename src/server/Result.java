@@ -0,0 +1,99 @@
+package server;
+
+import java.util.List;
+
+/**
+ * What happened when a game ran a command: the message to send, who should
+ * get it, whether the sender should be removed and who, if anyone, was
+ * eliminated. Shots resolved together may eliminate several players. The
+ * outcomes are kept as bit flags. A Result never changes after it is made.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Result {
+
+   /** Flag for a message that goes to every player instead of the sender. */
+   public static final int GLOBAL = 1;
+
+   /** Flag for a sender who should be removed from the server. */
+   public static final int REMOVE = 1 << 1;
+
+   /** The outcome flags. */
+   private int flags;
+
+   /** The message describing what happened. */
+   private String message;
+
+   /** The players who were eliminated, if any. */
+   private List<String> eliminated;
+
+   /**
+    * Constructor for a Result in which nobody was eliminated.
+    *
+    * @param flags The outcome flags.
+    * @param message The message describing what happened.
+    */
+   public Result(int flags, String message) {
+      this(flags, message, List.of());
+   }
+
+   /**
+    * Constructor for a Result.
+    *
+    * @param flags The outcome flags.
+    * @param message The message describing what happened.
+    * @param eliminated The players who were eliminated, if any.
+    */
+   public Result(int flags, String message, List<String> eliminated) {
+      this.flags = flags;
+      this.message = message;
+      this.eliminated = eliminated;
+   }
+
+   /**
+    * Accessor for the outcome flags.
+    *
+    * @return The flags.
+    */
+   public int getFlags() {
+      return this.flags;
+   }
+
+   /**
+    * Indicates whether the message goes to every player.
+    *
+    * @return True if the message is global. False if it is private.
+    */
+   public boolean isGlobal() {
+      return (this.flags & GLOBAL) != 0;
+   }
+
+   /**
+    * Indicates whether the sender should be removed from the server.
+    *
+    * @return True if the sender should be removed. False otherwise.
+    */
+   public boolean isRemove() {
+      return (this.flags & REMOVE) != 0;
+   }
+
+   /**
+    * Accessor for the message describing what happened.
+    *
+    * @return The message.
+    */
+   public String getMessage() {
+      return this.message;
+   }
+
+   /**
+    * Accessor for the players who were eliminated.
+    *
+    * @return The eliminated players. Empty if nobody was.
+    */
+   public List<String> getEliminated() {
+      return this.eliminated;
+   }
+}
@@ -0,0 +1,162 @@
+package server;
+
+/**
+ * Who beat whom in a batch of tournament games, and how long the games
+ * lasted. Each thread keeps results of its own games and they are merged at
+ * the end, as Tally does for the Simulator, so the games share nothing
+ * while they run and the ratings do not depend on the order they finished.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Results {
+
+   /** How many entrants there are. */
+   private int entrants;
+
+   /** How many games were played. */
+   private long games;
+
+   /** How many games each entrant won against each other one. */
+   private long[][] wins;
+
+   /** How many games each pair of entrants drew, counted for both. */
+   private long[][] draws;
+
+   /** How many turns each game lasted. */
+   private Distribution length;
+
+   /**
+    * Constructor for empty Results.
+    *
+    * @param entrants How many entrants there are.
+    */
+   public Results(int entrants) {
+      this.entrants = entrants;
+      this.wins = new long[entrants][entrants];
+      this.draws = new long[entrants][entrants];
+      this.length = new Distribution();
+   }
+
+   /**
+    * Counts a game one entrant won.
+    *
+    * @param winner The index of the entrant who won.
+    * @param loser The index of the entrant who lost.
+    * @param turns How many turns the game lasted.
+    */
+   public void won(int winner, int loser, int turns) {
+      this.games++;
+      this.wins[winner][loser]++;
+      this.length.add(turns);
+   }
+
+   /**
+    * Counts a game nobody won.
+    *
+    * @param a The index of one entrant.
+    * @param b The index of the other.
+    * @param turns How many turns the game lasted.
+    */
+   public void drew(int a, int b, int turns) {
+      this.games++;
+      this.draws[a][b]++;
+      this.draws[b][a]++;
+      this.length.add(turns);
+   }
+
+   /**
+    * Adds every game counted in other results to these.
+    *
+    * @param other The other results.
+    */
+   public void merge(Results other) {
+      this.games += other.games;
+      for (int i = 0; i < this.entrants; i++) {
+         for (int j = 0; j < this.entrants; j++) {
+            this.wins[i][j] += other.wins[i][j];
+            this.draws[i][j] += other.draws[i][j];
+         }
+      }
+      this.length.merge(other.length);
+   }
+
+   /**
+    * Accessor for the number of entrants.
+    *
+    * @return The number of entrants.
+    */
+   public int getEntrants() {
+      return this.entrants;
+   }
+
+   /**
+    * Accessor for the number of games played.
+    *
+    * @return The number of games.
+    */
+   public long getGames() {
+      return this.games;
+   }
+
+   /**
+    * Counts the games two entrants played against each other.
+    *
+    * @param i The index of one entrant.
+    * @param j The index of the other.
+    * @return The number of games between them.
+    */
+   public long getPlayed(int i, int j) {
+      return this.wins[i][j] + this.wins[j][i] + this.draws[i][j];
+   }
+
+   /**
+    * Counts the games an entrant played.
+    *
+    * @param i The index of the entrant.
+    * @return The number of games they played.
+    */
+   public long getPlayed(int i) {
+      long played = 0;
+      for (int j = 0; j < this.entrants; j++) {
+         played += this.getPlayed(i, j);
+      }
+      return played;
+   }
+
+   /**
+    * Works out an entrant's score against another: a point for each win
+    * and half a point for each draw.
+    *
+    * @param i The index of the entrant.
+    * @param j The index of the opponent.
+    * @return The score.
+    */
+   public double getScore(int i, int j) {
+      return this.wins[i][j] + this.draws[i][j] / 2.0;
+   }
+
+   /**
+    * Works out an entrant's score against everyone.
+    *
+    * @param i The index of the entrant.
+    * @return The score.
+    */
+   public double getScore(int i) {
+      double score = 0;
+      for (int j = 0; j < this.entrants; j++) {
+         score += this.getScore(i, j);
+      }
+      return score;
+   }
+
+   /**
+    * Accessor for how long the games lasted.
+    *
+    * @return The number of turns in each game.
+    */
+   public Distribution getLength() {
+      return this.length;
+   }
+}
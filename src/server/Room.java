@@ -0,0 +1,859 @@
+package server;
+
+import common.Agent;
+import common.Broadcast;
+import common.GridView;
+import common.Protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Room hosts one game of Battleship on a BattleServer. It owns the Game and
+ * the sessions of the clients in it. Each session knows which player it is,
+ * so finding who sent a command takes constant time. A room is an actor: any
+ * thread may put work in its mailbox, but only one thread at a time drains
+ * it, so the Game and the sessions have a single writer and need no locks.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Room {
+
+   /** The most tasks drained in one go before other rooms get a turn. */
+   private static final int BATCH_SIZE = 64;
+
+   /**
+    * How long a volley of a simultaneous game stays open, in milliseconds.
+    * Set it with -Dbattleship.volley.millis.
+    */
+   private static final long VOLLEY_MILLIS =
+           Long.getLong("battleship.volley.millis", 10000);
+
+   /** The name that identifies this room on the server. */
+   private String id;
+
+   /** The number that names this room in the journal. */
+   private int number;
+
+   /** Where this room records what changes its game. */
+   private Journal journal;
+
+   /** The server hosting this room. */
+   private BattleServer server;
+
+   /** The lobby holding this room. */
+   private Lobby lobby;
+
+   /**
+    * The shard whose thread drains this room's mailbox. A game left to
+    * nothing but bots moves to a bot shard between two batches.
+    */
+   private volatile Shard shard;
+
+   /** Work waiting to be done in this room, from any number of threads. */
+   private Queue<Runnable> mailbox;
+
+   /** True while this room is on its shard's ready queue or being drained. */
+   private AtomicBoolean scheduled;
+
+   /** The game of Battleship */
+   private Game game;
+
+   /** The sessions of the clients in this room, in the order they came. */
+   private Set<Session> members;
+
+   /** The session of each player still in the game, by name. */
+   private Map<String, Session> players;
+
+   /** The name of every player who has joined, indexed by player id. */
+   private List<String> seats;
+
+   /** The player id of every player who has joined, by name. */
+   private Map<String, Integer> ids;
+
+   /** What is known from hints on each player's grid, by name. */
+   private Map<String, Hint> hints;
+
+   /** Agents sent something by the current batch, flushed once it is done. */
+   private Set<Agent> touched;
+
+   /**
+    * Announcements made since anything else was sent, waiting to go out to
+    * every member as one message.
+    */
+   private StringBuilder announcements;
+
+   /** How many bots this room has named. */
+   private int bots;
+
+   /** The name of every player who joined as a bot. */
+   private Set<String> botSeats;
+
+   /** The volley a timer is running for, or -1 if none is. */
+   private int timedVolley;
+
+   /** The sequence number of the last journal record this room wrote. */
+   private long journaled;
+
+   /** True once this room has been retired. */
+   private boolean closed;
+
+   /**
+    * True for a room rebuilt after a restart until someone joins it, or its
+    * players' time to come back runs out. Its players are still in the
+    * game, so it is kept while it is empty.
+    */
+   private boolean awaiting;
+
+   /**
+    * Constructor for a Room.
+    *
+    * @param id       The name that identifies this room on the server.
+    * @param server   The server hosting this room.
+    * @param lobby    The lobby holding this room.
+    * @param shard    The shard whose thread drains this room's mailbox.
+    * @param game     The room's game.
+    * @param number   The number that names this room in the journal.
+    */
+   public Room(String id, BattleServer server, Lobby lobby, Shard shard,
+               Game game, int number) {
+      this.id = id;
+      this.number = number;
+      this.journal = lobby.getJournal();
+      this.server = server;
+      this.lobby = lobby;
+      this.shard = shard;
+      this.mailbox = new ConcurrentLinkedQueue<>();
+      this.scheduled = new AtomicBoolean(false);
+      this.game = game;
+      this.members = new LinkedHashSet<>();
+      this.players = new HashMap<>();
+      this.seats = new ArrayList<>();
+      this.ids = new HashMap<>();
+      this.hints = new HashMap<>();
+      this.botSeats = new HashSet<>();
+      this.touched = new HashSet<>();
+      this.announcements = new StringBuilder();
+      this.timedVolley = -1;
+   }
+
+   /**
+    * Accessor for this room's id.
+    *
+    * @return The name that identifies this room on the server.
+    */
+   public String getId() {
+      return this.id;
+   }
+
+   /**
+    * Accessor for the number that names this room in the journal.
+    *
+    * @return The room number.
+    */
+   public int getNumber() {
+      return this.number;
+   }
+
+   /**
+    * Indicates whether this room's state already includes what a journal
+    * record did, as it does for a room loaded from a snapshot taken after
+    * the record was written.
+    *
+    * @param seq The record's sequence number.
+    * @return True if the record should not be played again.
+    */
+   boolean covers(long seq) {
+      return seq <= this.journaled;
+   }
+
+   /**
+    * Keeps this room while it is empty, until someone joins it. Called for
+    * rooms rebuilt after a restart, whose players have yet to come back.
+    */
+   void awaitPlayers() {
+      this.awaiting = true;
+   }
+
+   /**
+    * Gives the players of a room rebuilt after a restart a while to come
+    * back. Once it has passed, everyone nobody has come back for
+    * surrenders, and the room is retired if nobody is left in it.
+    *
+    * @param millis How long the players have, in milliseconds.
+    */
+   void expireAfter(long millis) {
+      this.lobby.schedule(() -> this.tell(this::expire), millis);
+   }
+
+   /**
+    * Surrenders every player nobody has come back for since the restart,
+    * so the game can go on or end without them, and stops keeping this
+    * room while it is empty. The surrenders are journaled like any other.
+    */
+   private void expire() {
+      if (this.closed) {
+         return;
+      }
+      this.awaiting = false;
+      for (String name : this.seats) {
+         if (this.isVacant(name)) {
+            Command command = Command.parse(CommandType.QUIT.toString());
+            Result result = this.game.execute(command, name);
+            this.record(command, name, result, null);
+            this.hints.remove(name);
+            this.broadcast(result.getMessage());
+            this.eliminate(result);
+         }
+      }
+   }
+
+   /**
+    * Marks this room retired and records that in the journal, so neither a
+    * snapshot nor a restart brings it back. Called by the lobby on this
+    * room's thread.
+    */
+   void close() {
+      this.closed = true;
+      this.journal.roomClosed(this.number);
+   }
+
+   /**
+    * Queues a request for this room's state, so it is captured between two
+    * commands without stopping the room or anyone else.
+    *
+    * @return What Room.write wrote, or null if the room was retired.
+    */
+   CompletableFuture<byte[]> snapshot() {
+      CompletableFuture<byte[]> state = new CompletableFuture<>();
+      this.tell(() -> {
+         if (this.closed) {
+            state.complete(null);
+         } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            this.write(out);
+            state.complete(out.toByteArray());
+         }
+      });
+      return state;
+   }
+
+   /**
+    * Writes this room to a snapshot: its number and id, how its game was
+    * set up, the last journal record it wrote, every player id given out,
+    * with whether a bot took it, and then the game itself.
+    *
+    * @param out Where to write.
+    */
+   private void write(ByteArrayOutputStream out) {
+      Protocol.writeVarint(out, this.number);
+      Protocol.writeString(out, this.id);
+      Protocol.writeVarint(out, this.game.getSize());
+      Protocol.writeVarlong(out, this.game.getSeed());
+      out.write(this.game.isSimultaneous() ? 1 : 0);
+      Protocol.writeVarlong(out, this.journaled);
+      Protocol.writeVarint(out, this.seats.size());
+      for (String name : this.seats) {
+         Protocol.writeString(out, name);
+         out.write(this.botSeats.contains(name) ? 1 : 0);
+      }
+      this.game.write(out);
+   }
+
+   /**
+    * Reads a room written to a snapshot. Nobody is connected to it yet.
+    *
+    * @param in Where to read.
+    * @param server The server hosting the room.
+    * @param lobby The lobby holding the room.
+    * @return The room.
+    */
+   static Room read(ByteBuffer in, BattleServer server, Lobby lobby) {
+      int number = Protocol.readVarint(in);
+      String id = Protocol.readString(in);
+      int size = Protocol.readVarint(in);
+      long seed = Protocol.readVarlong(in);
+      boolean simultaneous = in.get() == 1;
+      long journaled = Protocol.readVarlong(in);
+      List<String> seats = new ArrayList<>();
+      Set<String> bots = new HashSet<>();
+      for (int n = Protocol.readVarint(in); n > 0; n--) {
+         String name = Protocol.readString(in);
+         seats.add(name);
+         if (in.get() == 1) {
+            bots.add(name);
+         }
+      }
+      Room room = new Room(id, server, lobby, lobby.shardFor(id),
+                           Game.read(in, size, seed, simultaneous), number);
+      room.journaled = journaled;
+      for (String name : seats) {
+         room.ids.put(name, room.seats.size());
+         room.seats.add(name);
+      }
+      room.botSeats.addAll(bots);
+      return room;
+   }
+
+   /**
+    * Queues a command for this room.
+    *
+    * @param message The command received from the client.
+    * @param source The session of the client that sent the command.
+    */
+   public void submit(String message, Session source) {
+      this.tell(() -> this.execute(message, source));
+   }
+
+   /**
+    * Queues the removal of a client whose connection has been closed.
+    *
+    * @param source The session of the client that was closed.
+    */
+   public void submitRemoval(Session source) {
+      this.tell(() -> this.remove(source));
+   }
+
+   /**
+    * Indicates whether this room has no work waiting in its mailbox.
+    *
+    * @return True if the mailbox is empty. False otherwise.
+    */
+   boolean hasNoMail() {
+      return this.mailbox.isEmpty();
+   }
+
+   /**
+    * Puts a task in this room's mailbox and, if the room is not already
+    * waiting to run, puts the room on its shard's ready queue.
+    *
+    * @param task The work to do in this room.
+    */
+   private void tell(Runnable task) {
+      this.mailbox.add(task);
+      if (this.scheduled.compareAndSet(false, true)) {
+         this.shard.schedule(this);
+      }
+   }
+
+   /**
+    * Runs a batch of the tasks in this room's mailbox. Called only by the
+    * shard's thread, and never for the same room twice at once. Everything
+    * the batch sends goes out together at the end, with announcements that
+    * follow one another merged into one message. The room asks to be retired
+    * if nobody is left in it, and goes back on the ready queue if more mail
+    * arrived: on one of the lobby's bot shards while nobody but bots is
+    * playing in it, or else on the shard its id hashes to.
+    */
+   void drain() {
+      Runnable task;
+      int done = 0;
+      while (done < BATCH_SIZE && (task = this.mailbox.poll()) != null) {
+         try {
+            task.run();
+         } catch (RuntimeException ex) {
+            /*
+             * One bad command should not stop the room. As in MessageSource,
+             * we dump the stack and carry on.
+             */
+            ex.printStackTrace();
+         }
+         this.timeVolley();
+         done++;
+      }
+      this.dismissBots();
+      this.publish();
+      this.flushTouched();
+      this.shard = this.isBotGame() ? this.lobby.botShardFor(this.id)
+              : this.lobby.shardFor(this.id);
+      if (this.members.isEmpty()
+              && (!this.awaiting || this.game.getNumPlayers() == 0)) {
+         this.lobby.retire(this);
+      }
+      this.scheduled.set(false);
+      if (!this.mailbox.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+         this.shard.schedule(this);
+      }
+   }
+
+   /**
+    * Send a message to all the players in this room. It waits until
+    * something else is sent or the batch ends, so announcements made one
+    * after another reach each member as a single message.
+    *
+    * @param message The message to send out.
+    */
+   public void broadcast(String message) {
+      if (this.announcements.length() > 0) {
+         this.announcements.append('\n');
+      }
+      this.announcements.append(message);
+   }
+
+   /**
+    * Sends the waiting announcements to every member.
+    */
+   private void publish() {
+      if (this.announcements.length() == 0) {
+         return;
+      }
+      Broadcast broadcast = new Broadcast(this.announcements.toString());
+      this.announcements.setLength(0);
+      for (Session member : this.members) {
+         Agent agent = member.getAgent();
+         this.touched.add(agent);
+         agent.sendBroadcast(broadcast);
+      }
+   }
+
+   /**
+    * Notes that a client is being sent something by the current batch. The
+    * waiting announcements are sent first, so every client gets everything
+    * in the order it happened.
+    *
+    * @param session The session of the client being sent something.
+    * @return The client's agent.
+    */
+   private Agent touch(Session session) {
+      this.publish();
+      Agent agent = session.getAgent();
+      this.touched.add(agent);
+      return agent;
+   }
+
+   /**
+    * Flushes every agent the current batch sent something to, so that all of
+    * its replies go out together.
+    */
+   private void flushTouched() {
+      for (Agent agent : this.touched) {
+         agent.flush();
+      }
+      this.touched.clear();
+   }
+
+   /**
+    * Attempts to execute the given command. The command is parsed once, here,
+    * and the game and the room both work from the parsed form.
+    *
+    * @param message The command received from the client.
+    * @param source The session of the client that sent the command.
+    */
+   private void execute(String message, Session source) {
+      Command command = Command.parse(this.resolveIds(message));
+      String sender = "";
+      if (command.getType() == CommandType.JOIN) {
+         this.publish(); // Only what happens from now on is news to them.
+         this.members.add(source);
+         this.awaiting = false;
+         if (command.isWellFormed() && this.isVacant(command.getPlayer())) {
+            this.reclaim(command.getPlayer(), source);
+            return;
+         }
+      } else if (command.getType() == CommandType.BOT) {
+         this.addBot(command, source);
+         return;
+      } else if (source.getPlayer() != null) {
+         sender = source.getPlayer();
+      }
+      if (command.getType() == CommandType.HINT) {
+         this.hint(command, sender, source);
+         return;
+      }
+
+      // Send grids as cells, so binary clients can draw them themselves and
+      // a newer grid can replace an older one for a client that falls behind.
+      if (command.getType() == CommandType.SHOW && command.isWellFormed()) {
+         String player = command.getPlayer();
+         GridView view = this.game.view(player, sender, command.getX(),
+                                        command.getY());
+         if (view != null) {
+            this.touch(source).sendGrid(player, view);
+            return;
+         }
+      }
+
+      // Execute the command
+      Result result = this.game.execute(command, sender);
+      this.record(command, sender, result, source);
+
+      // Remove client if appropriate.
+      if (result.isRemove()) {
+         if (!result.isGlobal()) {
+            this.touch(source).sendMessage(result.getMessage());
+         }
+         this.publish(); // Everything that happened while they were here.
+         this.members.remove(source);
+         if (!sender.isEmpty()) {
+            this.players.remove(sender);
+            this.hints.remove(sender);
+         }
+         this.server.sourceClosed(source.getAgent());
+      }
+
+      if (result.isGlobal()) {
+         // Send response to all players.
+         this.broadcast(result.getMessage());
+      } else if (!result.isRemove()) {
+         // Send response only to the source of the command.
+         this.touch(source).sendMessage(result.getMessage());
+      }
+
+      // Give a new player an id if appropriate.
+      if (command.getType() == CommandType.JOIN && result.isGlobal()
+              && !result.isRemove()) {
+         this.seat(command.getPlayer(), source);
+      }
+
+      this.eliminate(result);
+   }
+
+   /**
+    * Seats a bot in the game. Its name is the one the command gives, or the
+    * next of 'bot1', 'bot2' and so on that nobody has taken. The bot joins
+    * through the server like any client, so a name already in the game is
+    * turned away as any client's would be.
+    *
+    * @param command The '/bot' command.
+    * @param source The session of the client that sent it.
+    */
+   private void addBot(Command command, Session source) {
+      final String PREFIX = "bot";
+      if (!command.isWellFormed()) {
+         this.touch(source).sendMessage("Invalid command: " + command.getText());
+         return;
+      }
+      if (this.game.isInPlay()) {
+         this.touch(source).sendMessage("Game already in progress");
+         return;
+      }
+      String name = command.getPlayer();
+      if (name == null) {
+         do {
+            name = PREFIX + ++this.bots;
+         } while (this.ids.containsKey(name) || this.game.isPlayer(name));
+      }
+      this.server.addBot(this.id, name, this.game.getSize());
+   }
+
+   /**
+    * Asks for a hint on where to fire at a player. The hint is worked out
+    * on the lobby's hint threads and sent once it is ready, so the room
+    * carries on in the meantime.
+    *
+    * @param command The '/hint' command, naming the player to fire at.
+    * @param sender The player who asked, or "" if they are not playing.
+    * @param source The session of the client that asked.
+    */
+   private void hint(Command command, String sender, Session source) {
+      String victim = command.getPlayer();
+      Sighting sight = command.isWellFormed() && !victim.equals(sender)
+              ? this.game.sight(victim) : null;
+      if (sight == null) {
+         this.touch(source).sendMessage("Invalid command: " + command.getText());
+      } else if (!this.game.isInPlay()) {
+         this.touch(source).sendMessage("Play not in progress");
+      } else if (sender.isEmpty()) {
+         this.touch(source).sendMessage("Move Failed, you are not playing");
+      } else {
+         Hint hint = this.hints.computeIfAbsent(victim, name -> new Hint(
+                 this.lobby.getHinter(),
+                 new SplittableRandom(ThreadLocalRandom.current().nextLong())));
+         hint.ask(sight).whenComplete((answer, ex) -> this.tell(
+                 () -> this.answer(victim, answer, source)));
+      }
+   }
+
+   /**
+    * Sends a client the hint they asked for, if they are still here.
+    *
+    * @param victim The player the hint is about.
+    * @param answer Where to fire and how likely a ship is there, or null.
+    * @param source The session of the client that asked.
+    */
+   private void answer(String victim, String answer, Session source) {
+      if (this.members.contains(source)) {
+         this.touch(source).sendMessage(answer == null
+                 ? "No hint on " + victim
+                 : "Hint: /attack " + victim + " " + answer);
+      }
+   }
+
+   /**
+    * Lets every bot go once only bots are left in a room whose game is not
+    * in play, so that the room can be retired. Bots stay through a game
+    * everyone else has left, and play it to the end.
+    */
+   private void dismissBots() {
+      if (this.game.isInPlay() || this.members.isEmpty()) {
+         return;
+      }
+      for (Session member : this.members) {
+         if (!(member.getAgent() instanceof BotAgent)) {
+            return;
+         }
+      }
+      for (Session bot : new ArrayList<>(this.members)) {
+         this.execute("/quit", bot);
+      }
+   }
+
+   /**
+    * Indicates whether this room's game is in play with nobody but bots
+    * still playing it.
+    *
+    * @return True if every player left in the game is a bot.
+    */
+   private boolean isBotGame() {
+      int bots = 0;
+      for (String name : this.botSeats) {
+         if (this.game.isPlayer(name)) {
+            bots++;
+         }
+      }
+      return this.game.isInPlay() && bots == this.game.getNumPlayers();
+   }
+
+   /**
+    * Takes the players a result eliminated out of the game. They stay to
+    * watch.
+    *
+    * @param result What happened as a result of a command or a volley.
+    */
+   private void eliminate(Result result) {
+      for (String name : result.getEliminated()) {
+         this.hints.remove(name);
+         Session loser = this.players.remove(name);
+         if (loser != null) {
+            loser.setPlayer(null);
+         }
+      }
+   }
+
+   /**
+    * Starts the timer for the open volley of a simultaneous game, unless one
+    * is already running for it.
+    */
+   private void timeVolley() {
+      int volley = this.game.getVolleys();
+      if (this.game.isSimultaneous() && this.game.isInPlay()
+              && volley != this.timedVolley) {
+         this.timedVolley = volley;
+         this.lobby.schedule(() -> this.tell(() -> this.closeVolley(volley)),
+                             VOLLEY_MILLIS);
+      }
+   }
+
+   /**
+    * Resolves a volley whose time is up, if it is still open.
+    *
+    * @param volley The number of the volley, as counted when it opened.
+    */
+   private void closeVolley(int volley) {
+      if (volley != this.game.getVolleys()) {
+         return; // Everyone aimed before the time was up.
+      }
+      Result result = this.game.resolveVolley();
+      this.journaled = this.journal.volleyClosed(this.number);
+      if (result != null) {
+         this.broadcast(result.getMessage());
+         this.eliminate(result);
+      }
+   }
+
+   /**
+    * Gives a player who just joined the next player id and tells everyone.
+    * The new player is also told the ids of everyone who joined before.
+    *
+    * @param name The name of the new player.
+    * @param source The new player's session.
+    */
+   private void seat(String name, Session source) {
+      int id = this.seats.size();
+      for (int i = 0; i < id; i++) {
+         this.touch(source).sendPlayer(i, this.seats.get(i));
+      }
+      this.seats.add(name);
+      this.ids.put(name, id);
+      source.setPlayer(name);
+      source.setId(id);
+      this.players.put(name, source);
+      if (source.isBot()) {
+         this.botSeats.add(name);
+      }
+      for (Session member : this.members) {
+         this.touch(member).sendPlayer(id, name);
+      }
+   }
+
+   /**
+    * Indicates whether a player is in the game with nobody connected to play
+    * for them, as happens when the game was rebuilt from the journal.
+    *
+    * @param name The player's name.
+    * @return True if the player's seat is free to reclaim. False otherwise.
+    */
+   private boolean isVacant(String name) {
+      return this.game.isPlayer(name) && !this.players.containsKey(name);
+   }
+
+   /**
+    * Gives a client the seat of a player who was left without a connection.
+    * The client is told the ids of everyone who joined and plays on as that
+    * player. A bot taking its seat back is also caught up on the game.
+    *
+    * @param name The name of the player.
+    * @param source The client's session.
+    */
+   private void reclaim(String name, Session source) {
+      for (int i = 0; i < this.seats.size(); i++) {
+         this.touch(source).sendPlayer(i, this.seats.get(i));
+      }
+      source.setPlayer(name);
+      source.setId(this.ids.get(name));
+      this.players.put(name, source);
+      this.broadcast("!!! " + name + " is back");
+      if (source.isBot()) {
+         ((BotAgent) source.getAgent()).resume(this.seats, this.game);
+      }
+   }
+
+   /**
+    * Seats a bot again in every seat a bot had before the server restarted
+    * whose player is still in the game. Called once the room is rebuilt.
+    */
+   void reseatBots() {
+      for (String name : this.botSeats) {
+         if (this.game.isInPlay() && this.isVacant(name)) {
+            this.server.addBot(this.id, name, this.game.getSize());
+         }
+      }
+   }
+
+   /**
+    * Writes a command that may have changed the game to the journal.
+    * Commands that only show a grid, or that could not be parsed, change
+    * nothing and are left out. A bot's JOIN is written as a BOT, so a
+    * restart seats a bot in its place again.
+    *
+    * @param command The command the game ran.
+    * @param sender The player who sent the command, or "" if nobody.
+    * @param result What came of the command.
+    * @param source The session of the client that sent the command, or
+    *               null if the room ran it for a player nobody plays for.
+    */
+   private void record(Command command, String sender, Result result,
+                       Session source) {
+      CommandType type = command.getType();
+      if (!this.journal.isEnabled() || type == CommandType.SHOW
+              || !command.isWellFormed()) {
+         return;
+      }
+      if (type == CommandType.JOIN && source.isBot()) {
+         command = Command.parse(CommandType.BOT + " " + command.getPlayer());
+      }
+      int victim = type == CommandType.ATTACK
+              ? this.ids.getOrDefault(command.getPlayer(), -1) : -1;
+      this.journaled = this.journal.commandRun(
+              this.number, command, this.ids.getOrDefault(sender, -1), victim,
+              result);
+   }
+
+   /**
+    * Runs a journaled command again, to rebuild this room's game. Nobody is
+    * connected yet, so nothing is sent. Called before the room is handed to
+    * its shard.
+    *
+    * @param seq The sequence number of the command's journal record.
+    * @param type The kind of command.
+    * @param sender The sender's player id, or -1 if they were not playing.
+    * @param victim The player id of the player the command names, or -1.
+    * @param x The row the command names.
+    * @param y The column the command names.
+    * @param name The name of the player joining, for a JOIN or a BOT.
+    */
+   void replay(long seq, CommandType type, int sender, int victim, int x,
+               int y, String name) {
+      this.journaled = seq;
+      Command command = Recording.toCommand(type, this.seats, victim, x, y,
+                                            name);
+      if (command == null) {
+         return;
+      }
+      String senderName = sender < 0 ? "" : this.seats.get(sender);
+      Result result = this.game.execute(command, senderName);
+      if (command.getType() == CommandType.JOIN && result.isGlobal()
+              && !result.isRemove()) {
+         this.ids.put(name, this.seats.size());
+         this.seats.add(name);
+         if (type == CommandType.BOT) {
+            this.botSeats.add(name);
+         }
+      }
+   }
+
+   /**
+    * Closes a volley again, to rebuild this room's game.
+    *
+    * @param seq The sequence number of the volley's journal record.
+    */
+   void replayVolley(long seq) {
+      this.journaled = seq;
+      this.game.resolveVolley();
+   }
+
+   /**
+    * Replaces every player id written as '#id' with that player's name.
+    *
+    * @param message A command that may name players by id.
+    * @return The command with every known id replaced by a name.
+    */
+   private String resolveIds(String message) {
+      if (message.indexOf(Protocol.ID_MARK) < 0) {
+         return message;
+      }
+      String[] words = message.split(" ");
+      for (int i = 1; i < words.length; i++) {
+         if (words[i].length() > 1 && words[i].charAt(0) == Protocol.ID_MARK) {
+            try {
+               int id = Integer.parseInt(words[i].substring(1));
+               if (id >= 0 && id < this.seats.size()) {
+                  words[i] = this.seats.get(id);
+               }
+            } catch (NumberFormatException nfe) {
+               // Not an id after all. Leave it for the game to reject.
+            }
+         }
+      }
+      return String.join(" ", words);
+   }
+
+   /**
+    * Removes a client whose connection has been closed from this room. A
+    * player still in the game surrenders, as if they had sent '/quit'.
+    *
+    * @param source The session of the client to remove.
+    */
+   private void remove(Session source) {
+      if (source.getPlayer() != null && this.members.contains(source)) {
+         this.execute("/quit", source);
+      } else {
+         this.members.remove(source);
+      }
+   }
+}
@@ -0,0 +1,90 @@
+package server;
+
+/**
+ * A player's place at a game: their name, their grid and who plays after and
+ * before them. The seats of a game are linked into a ring in turn order, so
+ * moving to the next turn and taking a player out are both a couple of
+ * pointer changes, however many players there are.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Seat {
+
+   /** The name of the player in this seat. */
+   private String name;
+
+   /** The player's grid. */
+   private Grid grid;
+
+   /** The seat whose turn comes after this one. */
+   private Seat next;
+
+   /** The seat whose turn comes before this one. */
+   private Seat prev;
+
+   /**
+    * Constructor for a Seat in a ring of its own.
+    *
+    * @param name The name of the player in this seat.
+    * @param grid The player's grid.
+    */
+   public Seat(String name, Grid grid) {
+      this.name = name;
+      this.grid = grid;
+      this.next = this;
+      this.prev = this;
+   }
+
+   /**
+    * Accessor for the name of the player in this seat.
+    *
+    * @return The player's name.
+    */
+   public String getName() {
+      return this.name;
+   }
+
+   /**
+    * Accessor for the player's grid.
+    *
+    * @return The player's grid.
+    */
+   public Grid getGrid() {
+      return this.grid;
+   }
+
+   /**
+    * Accessor for the seat whose turn comes after this one.
+    *
+    * @return The next seat, or this one if it is alone.
+    */
+   public Seat getNext() {
+      return this.next;
+   }
+
+   /**
+    * Joins this seat to a ring just before another seat, so it takes its
+    * turn last if that seat goes first.
+    *
+    * @param seat A seat in the ring.
+    */
+   void insertBefore(Seat seat) {
+      this.next = seat;
+      this.prev = seat.prev;
+      seat.prev.next = this;
+      seat.prev = this;
+   }
+
+   /**
+    * Takes this seat out of its ring. The seats either side of it become
+    * neighbours.
+    */
+   void unlink() {
+      this.prev.next = this.next;
+      this.next.prev = this.prev;
+      this.next = this;
+      this.prev = this;
+   }
+}
@@ -0,0 +1,58 @@
+package server;
+
+/**
+ * An enum for the ways a BattleServer can service its connections.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public enum ServerMode {
+
+   /** One blocking ConnectionAgent thread per connected client. */
+   THREAD("thread"),
+
+   /** A small fixed pool of selector threads shared by every client. */
+   NIO("nio"),
+
+   /** One blocking ConnectionAgent per client, each on a virtual thread. */
+   VIRTUAL("virtual");
+
+   /** The name used to select this mode on the command line. */
+   private String name;
+
+   /**
+    * Constructor for the ServerMode enum.
+    *
+    * @param name The name used to select this mode on the command line.
+    */
+   ServerMode(String name) {
+      this.name = name;
+   }
+
+   /**
+    * Retrieves the mode with the specified command line name.
+    *
+    * @param name The name of the desired mode.
+    * @return The mode with that name, or null if there is no such mode.
+    */
+   public static ServerMode getByName(String name) {
+      ServerMode mode = null;
+      for (ServerMode m : values()) {
+         if (m.name.equalsIgnoreCase(name)) {
+            mode = m;
+         }
+      }
+      return mode;
+   }
+
+   /**
+    * Returns the command line name of this mode.
+    *
+    * @return The command line name of this mode.
+    */
+   @Override
+   public String toString() {
+      return this.name;
+   }
+}
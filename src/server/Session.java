@@ -0,0 +1,114 @@
+package server;
+
+import common.Agent;
+
+/**
+ * A Session is everything the server knows about one connected client: the
+ * agent that carries its messages, the room it has joined, and the player it
+ * is in that room's game. The server finds a client's session from its agent
+ * in constant time, however many players are connected.
+ *
+ * The room is set by the thread that routes the client's commands. The
+ * player and the player id belong to the room and are only touched by the
+ * room's shard.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Session {
+
+   /** The agent through which the client's messages come and go. */
+   private Agent agent;
+
+   /** The room the client has joined, or null if it has not joined one. */
+   private volatile Room room;
+
+   /** The client's name in the game, or null if it is not playing. */
+   private String player;
+
+   /** The id the room gave the client's player, or -1 if it has none. */
+   private int id;
+
+   /**
+    * Constructor for a Session.
+    *
+    * @param agent The agent through which the client's messages come and go.
+    */
+   public Session(Agent agent) {
+      this.agent = agent;
+      this.id = -1;
+   }
+
+   /**
+    * Accessor for the client's agent.
+    *
+    * @return The agent through which the client's messages come and go.
+    */
+   public Agent getAgent() {
+      return this.agent;
+   }
+
+   /**
+    * Indicates whether the client is a bot the server seated.
+    *
+    * @return True if a bot plays through this session. False otherwise.
+    */
+   public boolean isBot() {
+      return this.agent instanceof BotAgent;
+   }
+
+   /**
+    * Accessor for the client's room.
+    *
+    * @return The room the client has joined, or null.
+    */
+   public Room getRoom() {
+      return this.room;
+   }
+
+   /**
+    * Records the room the client has joined.
+    *
+    * @param room The room the client has joined.
+    */
+   void setRoom(Room room) {
+      this.room = room;
+   }
+
+   /**
+    * Accessor for the client's player.
+    *
+    * @return The client's name in the game, or null if it is not playing.
+    */
+   public String getPlayer() {
+      return this.player;
+   }
+
+   /**
+    * Records the client's player.
+    *
+    * @param player The client's name in the game, or null once it is out.
+    */
+   void setPlayer(String player) {
+      this.player = player;
+   }
+
+   /**
+    * Accessor for the client's player id.
+    *
+    * @return The id the room gave the client's player, or -1.
+    */
+   public int getId() {
+      return this.id;
+   }
+
+   /**
+    * Records the client's player id.
+    *
+    * @param id The id the room gave the client's player.
+    */
+   void setId(int id) {
+      this.id = id;
+   }
+}
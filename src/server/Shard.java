@@ -0,0 +1,62 @@
+package server;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A Shard is a single worker thread that runs the rooms assigned to it. A
+ * room with mail in its mailbox is put on the shard's ready queue, and the
+ * worker drains the rooms on that queue one at a time. Rooms on different
+ * shards never share a thread, and nothing on this path takes a lock.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Shard implements Runnable {
+
+   /** Rooms that have mail waiting to be processed. */
+   private Queue<Room> ready;
+
+   /** The thread on which this shard runs. */
+   private Thread worker;
+
+   /**
+    * Constructor for a Shard. Starts the shard's worker thread.
+    *
+    * @param name The name of this shard's worker thread.
+    */
+   public Shard(String name) {
+      this.ready = new ConcurrentLinkedQueue<>();
+      this.worker = new Thread(this, name);
+      this.worker.start();
+   }
+
+   /**
+    * Puts a room with mail on this shard's ready queue. A room is never on
+    * the queue more than once; see Room.tell.
+    *
+    * @param room The room to run.
+    */
+   void schedule(Room room) {
+      this.ready.add(room);
+      LockSupport.unpark(this.worker);
+   }
+
+   /**
+    * Drains ready rooms until this shard's thread is interrupted, parking
+    * whenever there is nothing to do.
+    */
+   @Override
+   public void run() {
+      while (!this.worker.isInterrupted()) {
+         Room room = this.ready.poll();
+         if (room == null) {
+            LockSupport.park(this);
+         } else {
+            room.drain();
+         }
+      }
+   }
+}
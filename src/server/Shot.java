@@ -0,0 +1,33 @@
+package server;
+
+/**
+ * What a shot at a grid did.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public enum Shot {
+
+   /** The shot landed in open water. */
+   MISS,
+
+   /** The shot hit a ship that is still afloat, or a square already hit. */
+   HIT,
+
+   /** The shot hit the last square of a ship. */
+   SUNK,
+
+   /** The shot sank the last ship on the grid. */
+   ELIMINATED;
+
+   /**
+    * Returns the name of this outcome as it appears in messages.
+    *
+    * @return The name in lower case.
+    */
+   @Override
+   public String toString() {
+      return this.name().toLowerCase();
+   }
+}
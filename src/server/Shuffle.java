@@ -0,0 +1,89 @@
+package server;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deals the squares of a grid in random order, one at a time and never the
+ * same one twice, as a player firing blind would pick them. Each square is
+ * drawn as it is needed, by a Fisher-Yates shuffle that stops where the
+ * dealing has got to. A small grid keeps every square in an array; a large
+ * one only remembers the squares that have been moved.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Shuffle {
+
+   /**
+    * The most squares kept in an array: a 1000x1000 grid, in 4 MB. Dealing
+    * most of a grid moves most of its squares, and a map of them takes
+    * several times that.
+    */
+   private static final int MAX_DENSE = 1 << 20;
+
+   /** How many squares there are. */
+   private int count;
+
+   /** How many squares have been dealt. */
+   private int dealt;
+
+   /** The squares in dealing order so far, or null on a large grid. */
+   private int[] squares;
+
+   /** The square moved to each position, on a large grid. */
+   private Map<Integer, Integer> moved;
+
+   /** Where the randomness comes from. */
+   private SplittableRandom random;
+
+   /**
+    * Constructor for a Shuffle of the squares of a grid.
+    *
+    * @param size The size of the square grid.
+    * @param random Where the randomness comes from.
+    */
+   public Shuffle(int size, SplittableRandom random) {
+      this.count = size * size;
+      this.random = random;
+      if (this.count <= MAX_DENSE) {
+         this.squares = new int[this.count];
+         for (int n = 0; n < this.count; n++) {
+            this.squares[n] = n;
+         }
+      } else {
+         this.moved = new HashMap<>();
+      }
+   }
+
+   /**
+    * Indicates whether every square has been dealt.
+    *
+    * @return True if there are squares left. False otherwise.
+    */
+   public boolean hasNext() {
+      return this.dealt < this.count;
+   }
+
+   /**
+    * Deals the next square.
+    *
+    * @return The square's number, row by row.
+    */
+   public int next() {
+      int pick = this.dealt + this.random.nextInt(this.count - this.dealt);
+      int square;
+      if (this.squares != null) {
+         square = this.squares[pick];
+         this.squares[pick] = this.squares[this.dealt];
+      } else {
+         square = this.moved.getOrDefault(pick, pick);
+         this.moved.put(pick, this.moved.getOrDefault(this.dealt, this.dealt));
+         this.moved.remove(this.dealt);
+      }
+      this.dealt++;
+      return square;
+   }
+}
@@ -0,0 +1,107 @@
+package server;
+
+/**
+ * What every player can see of one grid at a moment of the game: the
+ * squares that were missed, the squares hit on ships still afloat, the
+ * squares of ships that sank, and how many ships are left. It is taken on
+ * the room's thread and never changes, so other threads can work from it
+ * while the game carries on.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Sighting {
+
+   /** The grid seen, so that a cache can tell a new grid from an old one. */
+   private Grid grid;
+
+   /** The size of the grid. */
+   private int size;
+
+   /** How many ships on the grid have not sunk. */
+   private int afloat;
+
+   /** The squares fired on that held no ship, in order. */
+   private int[] misses;
+
+   /** The squares hit on ships that have not sunk, in order. */
+   private int[] hits;
+
+   /** The squares of ships that have sunk, in order. */
+   private int[] sunk;
+
+   /**
+    * Constructor for a Sighting.
+    *
+    * @param grid The grid seen.
+    * @param size The size of the grid.
+    * @param afloat How many ships on the grid have not sunk.
+    * @param misses The squares fired on that held no ship, in order.
+    * @param hits The squares hit on ships that have not sunk, in order.
+    * @param sunk The squares of ships that have sunk, in order.
+    */
+   public Sighting(Grid grid, int size, int afloat, int[] misses, int[] hits,
+                   int[] sunk) {
+      this.grid = grid;
+      this.size = size;
+      this.afloat = afloat;
+      this.misses = misses;
+      this.hits = hits;
+      this.sunk = sunk;
+   }
+
+   /**
+    * Accessor for the grid seen.
+    *
+    * @return The grid.
+    */
+   public Grid getGrid() {
+      return this.grid;
+   }
+
+   /**
+    * Accessor for the size of the grid.
+    *
+    * @return The size of the grid.
+    */
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Accessor for the number of ships that have not sunk.
+    *
+    * @return The number of ships afloat.
+    */
+   public int getAfloat() {
+      return this.afloat;
+   }
+
+   /**
+    * Accessor for the squares that were missed.
+    *
+    * @return The squares, numbered row by row, in order.
+    */
+   public int[] getMisses() {
+      return this.misses;
+   }
+
+   /**
+    * Accessor for the squares hit on ships that have not sunk.
+    *
+    * @return The squares, numbered row by row, in order.
+    */
+   public int[] getHits() {
+      return this.hits;
+   }
+
+   /**
+    * Accessor for the squares of ships that have sunk.
+    *
+    * @return The squares, numbered row by row, in order.
+    */
+   public int[] getSunk() {
+      return this.sunk;
+   }
+}
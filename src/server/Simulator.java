@@ -0,0 +1,212 @@
+package server;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+/**
+ * Plays complete games of Battleship straight against Game, with no server
+ * or sockets, to measure how games of each size play out. The games are
+ * spread across every core by a parallel stream; each thread tallies its
+ * own games and the tallies are merged at the end.
+ *
+ * Every simulated player fires blind: at a square of the next player still
+ * in the game, chosen at random among those it has not fired at. The
+ * games follow -Dbattleship.turns, and -Dbattleship.seed makes a run come
+ * out the same each time.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Simulator {
+
+   /** The fewest command line arguments. */
+   private final static int MIN_ARGS = 1;
+
+   /** The most command line arguments. */
+   private final static int MAX_ARGS = 3;
+
+   /** The smallest grid a game may have. */
+   private final static int MIN_SIZE = 5;
+
+   /**
+    * The largest grid a simulated game may have. Blind fire takes about
+    * every square of a grid to finish a game, so a game on a bigger grid
+    * runs to hundreds of millions of turns and its shuffles to gigabytes.
+    */
+   private final static int MAX_SIZE = 1000;
+
+   /** Spreads the seeds of consecutive games across the range of longs. */
+   private final static long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+   /**
+    * Entry point into the program.
+    *
+    * @param args The number of games, then optionally the grid sizes, as
+    *             '10', '5-20' or '10,50,100', and the number of players.
+    */
+   public static void main(String[] args) {
+      final String USAGE = "java server.Simulator <games> [sizes] [players]";
+      final int DEFAULT_SIZE = 10;
+      final int DEFAULT_PLAYERS = 2;
+      if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
+         System.err.println(USAGE);
+         System.exit(1);
+      }
+      try {
+         long games = Long.parseLong(args[0]);
+         int[] sizes = args.length > 1 ? parseSizes(args[1])
+                 : new int[]{DEFAULT_SIZE};
+         int players = args.length > 2 ? Integer.parseInt(args[2])
+                 : DEFAULT_PLAYERS;
+         if (games < 1 || sizes == null || players < 2) {
+            System.err.println(USAGE);
+            System.exit(1);
+         }
+         long seed = Long.getLong("battleship.seed",
+                                  ThreadLocalRandom.current().nextLong());
+         for (int size : sizes) {
+            report(size, players, games, seed);
+         }
+      } catch (NumberFormatException nfe) {
+         System.err.println(USAGE);
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Reads the grid sizes to simulate.
+    *
+    * @param sizes One size, a range such as '5-20' or a list such as
+    *              '10,50,100'.
+    * @return The sizes, or null if any is out of range.
+    * @throws NumberFormatException if a size is not a number.
+    */
+   private static int[] parseSizes(String sizes) {
+      int[] parsed;
+      int dash = sizes.indexOf('-');
+      if (dash > 0) {
+         int from = Integer.parseInt(sizes.substring(0, dash));
+         int to = Integer.parseInt(sizes.substring(dash + 1));
+         parsed = new int[Math.max(0, to - from + 1)];
+         for (int n = 0; n < parsed.length; n++) {
+            parsed[n] = from + n;
+         }
+      } else {
+         String[] words = sizes.split(",");
+         parsed = new int[words.length];
+         for (int n = 0; n < words.length; n++) {
+            parsed[n] = Integer.parseInt(words[n]);
+         }
+      }
+      for (int size : parsed) {
+         if (size < MIN_SIZE || size > MAX_SIZE) {
+            return null;
+         }
+      }
+      return parsed.length == 0 ? null : parsed;
+   }
+
+   /**
+    * Plays a number of games of one size and prints what they came to.
+    *
+    * @param size The size of the grids.
+    * @param players The number of players in each game.
+    * @param games The number of games.
+    * @param seed The seed of the whole run.
+    */
+   private static void report(int size, int players, long games, long seed) {
+      long start = System.nanoTime();
+      Tally tally = simulate(size, players, games, seed);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("size %d, %d players: %d games in %.1f s "
+                        + "(%.1f games/s on %d threads)%n", size, players,
+                        tally.getGames(), seconds, tally.getGames() / seconds,
+                        ForkJoinPool.getCommonPoolParallelism());
+      System.out.println(tally);
+   }
+
+   /**
+    * Plays a number of games of one size across every core.
+    *
+    * @param size The size of the grids.
+    * @param players The number of players in each game.
+    * @param games The number of games.
+    * @param seed The seed of the whole run. Each game's seed comes from it.
+    * @return What the games came to.
+    */
+   public static Tally simulate(int size, int players, long games,
+                                long seed) {
+      return LongStream.range(0, games).parallel().collect(
+              Tally::new,
+              (tally, n) -> play(size, players, seed + n * SEED_STEP, tally),
+              Tally::merge);
+   }
+
+   /**
+    * Plays one game to the end and counts it.
+    *
+    * @param size The size of the grids.
+    * @param players The number of players.
+    * @param seed The seed of the game. The players' aim comes from it too.
+    * @param tally Where to count the game.
+    */
+   public static void play(int size, int players, long seed, Tally tally) {
+      SplittableRandom random = new SplittableRandom(~seed);
+      Game game = new Game(size, seed);
+      String[] names = new String[players];
+      Shuffle[] targets = new Shuffle[players];
+      for (int i = 0; i < players; i++) {
+         names[i] = "p" + i;
+         game.join(names[i]);
+         targets[i] = new Shuffle(size, random.split());
+      }
+      game.execute("/play", "");
+      tally.started(game.getShipsPerGrid());
+      int turns = 0;
+      while (game.isInPlay()) {
+         if (game.isSimultaneous()) {
+            for (int i = 0; i < players && game.isInPlay(); i++) {
+               if (game.isPlayer(names[i])) {
+                  Result result = fire(game, names, targets, i);
+                  for (int n = 0; n < result.getEliminated().size(); n++) {
+                     tally.eliminated(game.getVolleys());
+                  }
+               }
+            }
+            turns = game.getVolleys();
+         } else {
+            int attacker = Integer.parseInt(game.getCurrentPlayer().substring(1));
+            Result result = fire(game, names, targets, attacker);
+            turns++;
+            for (int n = 0; n < result.getEliminated().size(); n++) {
+               tally.eliminated(turns);
+            }
+         }
+      }
+      tally.finished(turns);
+   }
+
+   /**
+    * Fires one player's next shot, at the next player still in the game.
+    *
+    * @param game The game.
+    * @param names The name of each player.
+    * @param targets The squares of each player's grid not yet fired at.
+    * @param attacker The index of the player firing.
+    * @return What came of the shot.
+    */
+   private static Result fire(Game game, String[] names, Shuffle[] targets,
+                              int attacker) {
+      int victim = attacker;
+      do {
+         victim = (victim + 1) % names.length;
+      } while (!game.isPlayer(names[victim]));
+      int size = game.getSize();
+      int square = targets[victim].next();
+      return game.execute("/attack " + names[victim] + " " + square / size
+                          + " " + square % size, names[attacker]);
+   }
+}
@@ -0,0 +1,134 @@
+package server;
+
+import common.Protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A file holding the state of every live room at one moment, so a restart
+ * loads the games directly instead of playing the whole journal back. Each
+ * room writes its own part on its own thread, between two of its commands;
+ * the parts are gathered and written out by another thread, so taking a
+ * snapshot never holds up a command.
+ *
+ * The file is the magic number, the last journal sequence number the
+ * snapshot covers and the number of rooms, then each room's part as a
+ * varint length and the bytes Room.write wrote. It is written to a
+ * temporary file and renamed over the old one, so there is always a whole
+ * snapshot to load.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Snapshot {
+
+   /** The first four bytes of every snapshot file. */
+   private static final int MAGIC = 0x42535331; // BSS1
+
+   /** Where the snapshot is kept. */
+   private Path path;
+
+   /** The last journal sequence number the loaded snapshot covers. */
+   private long mark;
+
+   /** The part of the loaded snapshot written by each room. */
+   private List<ByteBuffer> rooms;
+
+   /**
+    * Constructor for a Snapshot kept in a file.
+    *
+    * @param path The snapshot file.
+    */
+   public Snapshot(Path path) {
+      this.path = path;
+      this.rooms = new ArrayList<>();
+   }
+
+   /**
+    * Reads the snapshot file, if there is one.
+    *
+    * @return True if a snapshot was read. False if there is none yet.
+    * @throws IOException if the file cannot be read or is not a snapshot.
+    */
+   public boolean load() throws IOException {
+      if (!Files.exists(this.path)) {
+         return false;
+      }
+      ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(this.path));
+      if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+         throw new IOException(this.path + " is not a snapshot");
+      }
+      this.mark = Protocol.readVarlong(in);
+      int count = Protocol.readVarint(in);
+      this.rooms.clear();
+      for (int i = 0; i < count; i++) {
+         int length = Protocol.readVarint(in);
+         this.rooms.add(in.slice(in.position(), length));
+         in.position(in.position() + length);
+      }
+      return true;
+   }
+
+   /**
+    * Accessor for the last journal sequence number the loaded snapshot
+    * covers.
+    *
+    * @return The sequence number.
+    */
+   public long getMark() {
+      return this.mark;
+   }
+
+   /**
+    * Accessor for the part of the loaded snapshot written by each room.
+    *
+    * @return One buffer per room.
+    */
+   public List<ByteBuffer> getRooms() {
+      return this.rooms;
+   }
+
+   /**
+    * Writes a new snapshot and forces it to disk before it replaces the old
+    * one.
+    *
+    * @param mark The last journal sequence number the snapshot covers.
+    * @param parts The part written by each room.
+    * @throws IOException if the snapshot cannot be written.
+    */
+   public void write(long mark, List<byte[]> parts) throws IOException {
+      ByteArrayOutputStream header = new ByteArrayOutputStream();
+      header.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC)
+                                  .array());
+      Protocol.writeVarlong(header, mark);
+      Protocol.writeVarint(header, parts.size());
+      ByteBuffer[] buffers = new ByteBuffer[2 * parts.size() + 1];
+      buffers[0] = ByteBuffer.wrap(header.toByteArray());
+      for (int i = 0; i < parts.size(); i++) {
+         ByteArrayOutputStream length = new ByteArrayOutputStream(5);
+         Protocol.writeVarint(length, parts.get(i).length);
+         buffers[2 * i + 1] = ByteBuffer.wrap(length.toByteArray());
+         buffers[2 * i + 2] = ByteBuffer.wrap(parts.get(i));
+      }
+      Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+      try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+         while (buffers[buffers.length - 1].hasRemaining()) {
+            file.write(buffers);
+         }
+         file.force(true);
+      }
+      Files.move(temp, this.path, StandardCopyOption.ATOMIC_MOVE,
+                 StandardCopyOption.REPLACE_EXISTING);
+   }
+}
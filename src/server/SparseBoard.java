@@ -0,0 +1,165 @@
+package server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A Board for very large grids that only remembers the squares something
+ * has happened on: squares with a ship on them, and squares that have been
+ * fired at. Squares are hashed by their index, so memory grows with the
+ * number of ships and shots, not with the area of the board.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class SparseBoard implements Board {
+
+   /** The size of this board. */
+   private int size;
+
+   /** What is on every square that is not calm water, by square index. */
+   private Map<Integer, Ship> squares;
+
+   /** The number of squares with a ship on them that have not been hit. */
+   private int remaining;
+
+   /**
+    * Constructor for an empty SparseBoard.
+    *
+    * @param size The size of the square board.
+    */
+   public SparseBoard(int size) {
+      this.size = size;
+      this.squares = new HashMap<>();
+   }
+
+   /**
+    * Accessor for the size of this board.
+    *
+    * @return The number of rows, and of columns.
+    */
+   @Override
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether a square has no ship on it.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if the square has no ship. False otherwise.
+    */
+   @Override
+   public boolean isEmpty(int i, int j) {
+      Ship ship = this.squares.get(i * this.size + j);
+      return ship == null || ship == Ship.MISS;
+   }
+
+   /**
+    * Puts part of a ship on an empty square.
+    *
+    * @param ship The ship.
+    * @param i The row of the square.
+    * @param j The column of the square.
+    */
+   @Override
+   public void put(Ship ship, int i, int j) {
+      this.squares.put(i * this.size + j, ship);
+      this.remaining++;
+   }
+
+   /**
+    * Fires at a square.
+    *
+    * @param i The row of the square.
+    * @param j The column of the square.
+    * @return True if a ship was hit that had not been hit there before.
+    */
+   @Override
+   public boolean fire(int i, int j) {
+      int square = i * this.size + j;
+      Ship target = this.squares.get(square);
+      boolean hit = false;
+      if (target == null) {
+         this.squares.put(square, Ship.MISS);
+      } else if (target != Ship.HIT && target != Ship.MISS) {
+         this.squares.put(square, Ship.HIT);
+         this.remaining--;
+         hit = true;
+      }
+      return hit;
+   }
+
+   /**
+    * Counts the squares with a ship on them that have not been hit.
+    *
+    * @return The number of ship squares left.
+    */
+   @Override
+   public int getRemaining() {
+      return this.remaining;
+   }
+
+   /**
+    * Lists every square that has been fired on, hit or miss. Only the
+    * squares that are not calm water are looked at.
+    *
+    * @return The number of each square fired on, row by row, in order.
+    */
+   @Override
+   public int[] getShots() {
+      int[] shots = new int[this.squares.size()];
+      int count = 0;
+      for (Map.Entry<Integer, Ship> square : this.squares.entrySet()) {
+         if (square.getValue() == Ship.HIT || square.getValue() == Ship.MISS) {
+            shots[count++] = square.getKey();
+         }
+      }
+      shots = Arrays.copyOf(shots, count);
+      Arrays.sort(shots);
+      return shots;
+   }
+
+   /**
+    * Returns the symbol on each square, as the owner or an enemy sees it.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @return The symbol on each square, row by row.
+    */
+   @Override
+   public byte[] getCells(boolean friendly) {
+      return this.getCells(friendly, 0, 0, this.size, this.size);
+   }
+
+   /**
+    * Returns the symbol on each square of a window onto the board. Only the
+    * squares inside the window are looked up.
+    *
+    * @param friendly True for the owner's view. False for an enemy's.
+    * @param top The row at the top of the window.
+    * @param left The column at the left of the window.
+    * @param rows The number of rows in the window.
+    * @param cols The number of columns in the window.
+    * @return The symbol on each square of the window, row by row.
+    */
+   @Override
+   public byte[] getCells(boolean friendly, int top, int left, int rows,
+                          int cols) {
+      byte[] cells = new byte[rows * cols];
+      Arrays.fill(cells, (byte) Ship.EMPTY.symbol);
+      for (int i = 0; i < rows; i++) {
+         int square = (top + i) * this.size + left;
+         for (int j = 0; j < cols; j++) {
+            Ship ship = this.squares.get(square + j);
+            if (ship != null) {
+               cells[i * cols + j] =
+                       (byte) (friendly ? ship.symbol : ship.enemyView);
+            }
+         }
+      }
+      return cells;
+   }
+}
@@ -0,0 +1,107 @@
+package server;
+
+/**
+ * How a computer player plays a game: which player to fire at and where,
+ * learning from what its own shots did. A strategy is told who is in the
+ * game as players join and leave, and never sees the grids themselves, so
+ * it knows no more than a person playing would. A BotAgent plays one in a
+ * room, and a Tournament plays them against each other with no server.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public interface Strategy {
+
+   /** How the game tells everyone what a shot did. */
+   String SHOTS = "Shots Fired at ";
+
+   /**
+    * Accessor for the player's name.
+    *
+    * @return The player's name in the game.
+    */
+   String getName();
+
+   /**
+    * Takes note of a player who joined the game.
+    *
+    * @param player The player's name.
+    */
+   void joined(String player);
+
+   /**
+    * Takes note of a player who is out of the game.
+    *
+    * @param player The player's name.
+    */
+   void left(String player);
+
+   /**
+    * Indicates whether the shot fired last, whose outcome is not yet known,
+    * was aimed at a player.
+    *
+    * @param player The player's name.
+    * @return True if the strategy is waiting to hear about a shot at them.
+    */
+   boolean isAimingAt(String player);
+
+   /**
+    * Picks the next shot and remembers it, so that what it did can be taken
+    * in once the game says.
+    *
+    * @return The attack to send, or null if there is nobody left to fire at.
+    */
+   String aim();
+
+   /**
+    * Takes in what the shot fired last did.
+    *
+    * @param victim The player the shot was fired at.
+    * @param shot What the shot did.
+    * @param ship The ship it sank, or null.
+    */
+   void fired(String victim, Shot shot, Ship ship);
+
+   /**
+    * Takes in everything that can be seen of an opponent's grid, for a
+    * strategy picking a game back up after the server restarted. Strategies
+    * that remember nothing of the grids ignore it.
+    *
+    * @param player The opponent.
+    * @param sight What can be seen of their grid.
+    */
+   default void recall(String player, Sighting sight) {
+   }
+
+   /**
+    * Passes on a line telling everyone what a shot did, if the strategy's
+    * player fired it. The line reads 'Shots Fired at victim by attacker:
+    * outcome', where the outcome is 'miss', 'hit' or 'sunk' and the kind
+    * of ship.
+    *
+    * @param strategy The strategy.
+    * @param line The line.
+    * @return True if the strategy's player fired the shot. False otherwise.
+    */
+   static boolean readShot(Strategy strategy, String line) {
+      final String BY = " by ";
+      final String SUNK = "sunk ";
+      int by = line.indexOf(BY, SHOTS.length());
+      int colon = by < 0 ? -1 : line.indexOf(": ", by);
+      if (colon < 0 || colon - by - BY.length() != strategy.getName().length()
+              || !line.startsWith(strategy.getName(), by + BY.length())) {
+         return false;
+      }
+      String victim = line.substring(SHOTS.length(), by);
+      String outcome = line.substring(colon + 2);
+      if (outcome.startsWith(SUNK)) {
+         strategy.fired(victim, Shot.SUNK,
+                        Ship.valueOf(outcome.substring(SUNK.length())));
+      } else {
+         strategy.fired(victim, outcome.equals(Shot.MISS.toString())
+                 ? Shot.MISS : Shot.HIT, null);
+      }
+      return true;
+   }
+}
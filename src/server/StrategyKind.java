@@ -0,0 +1,86 @@
+package server;
+
+import java.util.SplittableRandom;
+
+/**
+ * An enum for the strategies a computer player can use, by the names that
+ * select them on the command line.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public enum StrategyKind {
+
+   /** Fires where the most ships could still lie, and finishes off hits. */
+   DENSITY("density"),
+
+   /** Fires at random until it hits, then tries the squares around it. */
+   HUNT("hunt"),
+
+   /** Fires at random at squares it has not tried. */
+   BLIND("blind");
+
+   /** The name used to select this strategy on the command line. */
+   private String name;
+
+   /**
+    * Constructor for the StrategyKind enum.
+    *
+    * @param name The name used to select this strategy on the command line.
+    */
+   StrategyKind(String name) {
+      this.name = name;
+   }
+
+   /**
+    * Retrieves the strategy with the specified command line name.
+    *
+    * @param name The name of the desired strategy.
+    * @return The strategy with that name, or null if there is no such
+    *         strategy.
+    */
+   public static StrategyKind getByName(String name) {
+      StrategyKind kind = null;
+      for (StrategyKind k : values()) {
+         if (k.name.equalsIgnoreCase(name)) {
+            kind = k;
+         }
+      }
+      return kind;
+   }
+
+   /**
+    * Makes a player that uses this strategy, for one game.
+    *
+    * @param player The player's name in the game.
+    * @param size The size of the grids.
+    * @param random Where the player's randomness comes from.
+    * @return The player's strategy.
+    */
+   public Strategy newStrategy(String player, int size,
+                               SplittableRandom random) {
+      Strategy strategy;
+      switch (this) {
+         case HUNT:
+            strategy = new Hunter(player, size, random);
+            break;
+         case BLIND:
+            strategy = new Blind(player, size, random);
+            break;
+         default:
+            strategy = new Bot(player, size, random);
+      }
+      return strategy;
+   }
+
+   /**
+    * Returns the command line name of this strategy.
+    *
+    * @return The command line name of this strategy.
+    */
+   @Override
+   public String toString() {
+      return this.name;
+   }
+}
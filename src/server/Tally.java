@@ -0,0 +1,95 @@
+package server;
+
+/**
+ * What a batch of simulated games came to. Each thread keeps a tally of its
+ * own games and the tallies are merged at the end, so the games share
+ * nothing while they run.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Tally {
+
+   /** How many games were played. */
+   private long games;
+
+   /** How many ships each game put on each grid. */
+   private Distribution ships;
+
+   /** How many turns each game lasted. */
+   private Distribution length;
+
+   /** How many turns had been played when each player was eliminated. */
+   private Distribution eliminations;
+
+   /**
+    * Constructor for an empty Tally.
+    */
+   public Tally() {
+      this.ships = new Distribution();
+      this.length = new Distribution();
+      this.eliminations = new Distribution();
+   }
+
+   /**
+    * Counts a game that has been set up.
+    *
+    * @param shipsPerGrid How many ships are on each grid.
+    */
+   public void started(int shipsPerGrid) {
+      this.games++;
+      this.ships.add(shipsPerGrid);
+   }
+
+   /**
+    * Counts a player being eliminated.
+    *
+    * @param turns How many turns had been played.
+    */
+   public void eliminated(int turns) {
+      this.eliminations.add(turns);
+   }
+
+   /**
+    * Counts a game that is over.
+    *
+    * @param turns How many turns it lasted.
+    */
+   public void finished(int turns) {
+      this.length.add(turns);
+   }
+
+   /**
+    * Adds every game counted in another tally to this one.
+    *
+    * @param other The other tally.
+    */
+   public void merge(Tally other) {
+      this.games += other.games;
+      this.ships.merge(other.ships);
+      this.length.merge(other.length);
+      this.eliminations.merge(other.eliminations);
+   }
+
+   /**
+    * Accessor for the number of games played.
+    *
+    * @return The number of games.
+    */
+   public long getGames() {
+      return this.games;
+   }
+
+   /**
+    * Describes the games, one measure per line.
+    *
+    * @return The distribution of each measure.
+    */
+   @Override
+   public String toString() {
+      return "  ships per grid:     " + this.ships + "\n"
+             + "  turns per game:     " + this.length + "\n"
+             + "  turns to eliminate: " + this.eliminations;
+   }
+}
@@ -0,0 +1,384 @@
+package server;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.LongStream;
+
+/**
+ * Plays bot strategies against each other in a round-robin or Swiss
+ * tournament, straight against Game as the Simulator does, and rates them.
+ *
+ * Each round pairs the entrants up: a round-robin round pairs everyone with
+ * everyone, and a Swiss round pairs entrants of about the same Glicko
+ * rating, never with the opponent of their last round if it can help it,
+ * and gives a bye to the lowest rated one left over. Each pair then plays
+ * a number of games, taking turns at moving first. The games of a round are
+ * spread across every core by a parallel stream, and how many games each
+ * core got through each second is reported with each round.
+ *
+ * The games follow -Dbattleship.turns, and -Dbattleship.seed makes a
+ * tournament come out the same each time.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Tournament {
+
+   /** The fewest command line arguments. */
+   private final static int MIN_ARGS = 6;
+
+   /** The smallest grid a game may have. */
+   private final static int MIN_SIZE = 5;
+
+   /** The largest grid a game may have. */
+   private final static int MAX_SIZE = 10000;
+
+   /** Spreads the seeds of consecutive games across the range of longs. */
+   private final static long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+   /** How many turns a game may last, per square of a grid, before it is drawn. */
+   private final static int TURNS_PER_SQUARE = 4;
+
+   /** The strategy each entrant plays. */
+   private StrategyKind[] kinds;
+
+   /** The name each entrant plays under. */
+   private String[] names;
+
+   /** Whether the rounds are Swiss rather than round-robin. */
+   private boolean swiss;
+
+   /** How many games each pair plays in a round. */
+   private long games;
+
+   /** The size of the grids. */
+   private int size;
+
+   /** The seed of the whole tournament. */
+   private long seed;
+
+   /** How many games have been played so far. */
+   private long played;
+
+   /** Every game played so far. */
+   private Results total;
+
+   /** The entrants' ratings. */
+   private Ratings ratings;
+
+   /** The opponent each entrant met last round, or -1 for a bye. */
+   private int[] last;
+
+   /**
+    * Constructor for a Tournament that has not started.
+    *
+    * @param kinds The strategy each entrant plays.
+    * @param swiss Whether the rounds are Swiss rather than round-robin.
+    * @param games How many games each pair plays in a round.
+    * @param size The size of the grids.
+    * @param seed The seed of the whole tournament.
+    */
+   public Tournament(StrategyKind[] kinds, boolean swiss, long games,
+                     int size, long seed) {
+      this.kinds = kinds;
+      this.swiss = swiss;
+      this.games = games;
+      this.size = size;
+      this.seed = seed;
+      this.names = new String[kinds.length];
+      for (int i = 0; i < kinds.length; i++) {
+         int same = 0;
+         for (int j = 0; j < kinds.length; j++) {
+            if (kinds[j] == kinds[i]) {
+               same++;
+            }
+         }
+         this.names[i] = same == 1 ? kinds[i].toString()
+                 : kinds[i].toString() + (i + 1);
+      }
+      this.total = new Results(kinds.length);
+      this.ratings = new Ratings(kinds.length);
+      this.last = new int[kinds.length];
+      Arrays.fill(this.last, -1);
+   }
+
+   /**
+    * Entry point into the program.
+    *
+    * @param args 'robin' or 'swiss', the number of rounds, the number of
+    *             games each pair plays in a round, the size of the grids
+    *             and the strategy of each entrant.
+    */
+   public static void main(String[] args) {
+      final String USAGE = "java server.Tournament <robin|swiss> <rounds> "
+                           + "<games> <size> <strategy> <strategy> "
+                           + "[strategy ...]";
+      if (args.length < MIN_ARGS) {
+         System.err.println(USAGE);
+         System.exit(1);
+      }
+      try {
+         boolean swiss = args[0].equalsIgnoreCase("swiss");
+         int rounds = Integer.parseInt(args[1]);
+         long games = Long.parseLong(args[2]);
+         int size = Integer.parseInt(args[3]);
+         StrategyKind[] kinds = new StrategyKind[args.length - 4];
+         boolean known = true;
+         for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = StrategyKind.getByName(args[i + 4]);
+            known = known && kinds[i] != null;
+         }
+         if (!(swiss || args[0].equalsIgnoreCase("robin")) || rounds < 1
+                 || games < 1 || size < MIN_SIZE || size > MAX_SIZE
+                 || !known) {
+            System.err.println(USAGE);
+            System.exit(1);
+         }
+         long seed = Long.getLong("battleship.seed",
+                                  ThreadLocalRandom.current().nextLong());
+         Tournament tournament = new Tournament(kinds, swiss, games, size,
+                                                seed);
+         long start = System.nanoTime();
+         for (int round = 1; round <= rounds; round++) {
+            tournament.playRound(round);
+         }
+         tournament.report((System.nanoTime() - start) / 1e9);
+      } catch (NumberFormatException nfe) {
+         System.err.println(USAGE);
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Plays one round, updates the ratings and prints how fast it went.
+    *
+    * @param round The number of the round, from 1.
+    */
+   public void playRound(int round) {
+      int[][] pairs = this.swiss ? this.pairSwiss() : this.pairAll();
+      long start = System.nanoTime();
+      Results results = this.play(pairs, this.seed + this.played * SEED_STEP);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      this.played += results.getGames();
+      this.total.merge(results);
+      this.ratings.updateGlicko(results);
+      System.out.println("round " + round + ": " + rate(results.getGames(),
+                                                         seconds));
+   }
+
+   /**
+    * Pairs every entrant with every other one.
+    *
+    * @return The pairs.
+    */
+   private int[][] pairAll() {
+      int n = this.kinds.length;
+      int[][] pairs = new int[n * (n - 1) / 2][];
+      int next = 0;
+      for (int i = 0; i < n; i++) {
+         for (int j = i + 1; j < n; j++) {
+            pairs[next++] = new int[]{i, j};
+         }
+      }
+      return pairs;
+   }
+
+   /**
+    * Pairs the entrants from the highest rated down, each with the next one
+    * free that it did not meet last round, or just the next one free if
+    * every one left is the one it met.
+    *
+    * @return The pairs.
+    */
+   private int[][] pairSwiss() {
+      int n = this.kinds.length;
+      Integer[] order = new Integer[n];
+      for (int i = 0; i < n; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(
+              (Integer i) -> -this.ratings.getGlicko(i)));
+      boolean[] paired = new boolean[n];
+      int[][] pairs = new int[n / 2][];
+      int next = 0;
+      for (int a = 0; a < n; a++) {
+         int i = order[a];
+         if (paired[i]) {
+            continue;
+         }
+         int opponent = -1;
+         for (int b = a + 1; b < n; b++) {
+            int j = order[b];
+            if (!paired[j] && (opponent < 0 || opponent == this.last[i])) {
+               opponent = j;
+            }
+         }
+         paired[i] = true;
+         this.last[i] = opponent;
+         if (opponent >= 0) {
+            paired[opponent] = true;
+            this.last[opponent] = i;
+            pairs[next++] = new int[]{i, opponent};
+         }
+      }
+      return pairs;
+   }
+
+   /**
+    * Plays every pair's games across every core.
+    *
+    * @param pairs The pairs.
+    * @param first The seed of the first game. Each game's seed comes from
+    *              it.
+    * @return What the games came to.
+    */
+   private Results play(int[][] pairs, long first) {
+      return LongStream.range(0, pairs.length * this.games).parallel().collect(
+              () -> new Results(this.kinds.length),
+              (results, n) -> this.play(pairs[(int) (n / this.games)],
+                                        n % 2 == 0, first + n * SEED_STEP,
+                                        results),
+              Results::merge);
+   }
+
+   /**
+    * Plays one game between two entrants to the end and counts it. A game
+    * still going after a few turns for every square is drawn, as is one a
+    * strategy runs out of shots in.
+    *
+    * @param pair The two entrants.
+    * @param inOrder Whether the first of the pair moves first.
+    * @param seed The seed of the game. The strategies' aim comes from it
+    *             too.
+    * @param results Where to count the game.
+    */
+   private void play(int[] pair, boolean inOrder, long seed, Results results) {
+      final int MAX_TURNS = TURNS_PER_SQUARE * this.size * this.size;
+      SplittableRandom random = new SplittableRandom(~seed);
+      Game game = new Game(this.size, seed);
+      int[] seats = inOrder ? pair : new int[]{pair[1], pair[0]};
+      Strategy[] players = new Strategy[seats.length];
+      for (int i = 0; i < seats.length; i++) {
+         String name = this.names[seats[i]];
+         players[i] = this.kinds[seats[i]].newStrategy(name, this.size,
+                                                       random.split());
+         game.join(name);
+      }
+      for (Strategy player : players) {
+         for (Strategy other : players) {
+            if (other != player) {
+               player.joined(other.getName());
+            }
+         }
+      }
+      game.execute("/play", "");
+      int turns = 0;
+      boolean stuck = false;
+      while (game.isInPlay() && turns < MAX_TURNS && !stuck) {
+         if (game.isSimultaneous()) {
+            for (int i = 0; i < players.length && game.isInPlay(); i++) {
+               if (game.isPlayer(players[i].getName())) {
+                  stuck = stuck || !fire(game, players, i);
+               }
+            }
+            turns = game.getVolleys();
+         } else {
+            int attacker = game.getCurrentPlayer().equals(
+                    players[0].getName()) ? 0 : 1;
+            stuck = !fire(game, players, attacker);
+            turns++;
+         }
+      }
+      int winner = -1;
+      for (int i = 0; i < players.length && !game.isInPlay(); i++) {
+         if (game.isPlayer(players[i].getName())) {
+            winner = i;
+         }
+      }
+      if (winner < 0 || game.getNumPlayers() != 1) {
+         results.drew(seats[0], seats[1], turns);
+      } else {
+         results.won(seats[winner], seats[1 - winner], turns);
+      }
+   }
+
+   /**
+    * Fires one strategy's next shot and tells every strategy what came of
+    * it.
+    *
+    * @param game The game.
+    * @param players The strategy of each player.
+    * @param attacker The index of the player firing.
+    * @return False if the strategy had nothing left to fire at.
+    */
+   private static boolean fire(Game game, Strategy[] players, int attacker) {
+      String command = players[attacker].aim();
+      if (command == null) {
+         return false;
+      }
+      Result result = game.execute(command, players[attacker].getName());
+      if (result.isGlobal()) {
+         for (String line : result.getMessage().split("\n")) {
+            if (line.startsWith(Strategy.SHOTS)) {
+               for (Strategy player : players) {
+                  Strategy.readShot(player, line);
+               }
+            }
+         }
+      }
+      for (String loser : result.getEliminated()) {
+         for (Strategy player : players) {
+            player.left(loser);
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Describes how fast a number of games were played.
+    *
+    * @param games The number of games.
+    * @param seconds How long they took.
+    * @return The games, the time and the games per second, overall and per
+    *         core.
+    */
+   private static String rate(long games, double seconds) {
+      int cores = Runtime.getRuntime().availableProcessors();
+      return String.format("%d games in %.1f s (%.1f games/s, %.1f games/s "
+                           + "per core on %d cores)", games, seconds,
+                           games / seconds, games / seconds / cores, cores);
+   }
+
+   /**
+    * Fits the Elo ratings to every game and prints a table of the entrants
+    * from the highest rated down.
+    *
+    * @param seconds How long the whole tournament took.
+    */
+   public void report(double seconds) {
+      this.ratings.fitElo(this.total);
+      System.out.println("total: " + rate(this.played, seconds));
+      System.out.println("  turns per game: " + this.total.getLength());
+      Integer[] order = new Integer[this.kinds.length];
+      for (int i = 0; i < order.length; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, Comparator.comparingDouble(
+              (Integer i) -> -this.ratings.getElo(i)));
+      System.out.printf("%-12s %12s %7s %16s %16s%n", "entrant", "games",
+                        "score", "elo (95%)", "glicko (95%)");
+      for (int i : order) {
+         long games = this.total.getPlayed(i);
+         System.out.printf("%-12s %12d %6.1f%% %7.1f +- %5.1f %7.1f +- %5.1f%n",
+                           this.names[i], games, games == 0 ? 0
+                                   : 100 * this.total.getScore(i) / games,
+                           this.ratings.getElo(i),
+                           this.ratings.getEloInterval(i),
+                           this.ratings.getGlicko(i),
+                           this.ratings.getGlickoInterval(i));
+      }
+   }
+}
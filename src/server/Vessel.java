@@ -0,0 +1,102 @@
+package server;
+
+/**
+ * One ship on a grid. The Ship enum says what kind of ship it is; a Vessel
+ * also knows where this particular ship lies and how many of its squares
+ * have not been hit yet, so two cruisers on the same grid can be told apart
+ * and a ship knows it has sunk the moment its last square is hit.
+ *
+ * @author Gatlin Cruz
+ * @author Tommy Meek
+ * @version December, 2020
+ */
+public class Vessel {
+
+   /** What kind of ship this is. */
+   private Ship kind;
+
+   /** The row of this ship's top left square. */
+   private int row;
+
+   /** The column of this ship's top left square. */
+   private int col;
+
+   /** True if this ship runs down the grid. False if it runs across. */
+   private boolean vertical;
+
+   /** How many of this ship's squares have not been hit. */
+   private int afloat;
+
+   /**
+    * Constructor for a Vessel.
+    *
+    * @param kind What kind of ship this is.
+    * @param row The row of the ship's top left square.
+    * @param col The column of the ship's top left square.
+    * @param vertical True if the ship runs down. False if it runs across.
+    */
+   public Vessel(Ship kind, int row, int col, boolean vertical) {
+      this.kind = kind;
+      this.row = row;
+      this.col = col;
+      this.vertical = vertical;
+      this.afloat = kind.getLength();
+   }
+
+   /**
+    * Accessor for the kind of ship this is.
+    *
+    * @return The kind of ship.
+    */
+   public Ship getKind() {
+      return this.kind;
+   }
+
+   /**
+    * Returns the row of one of this ship's squares.
+    *
+    * @param k How far along the ship the square is, from 0.
+    * @return The row of the square.
+    */
+   public int getRow(int k) {
+      return this.vertical ? this.row + k : this.row;
+   }
+
+   /**
+    * Returns the column of one of this ship's squares.
+    *
+    * @param k How far along the ship the square is, from 0.
+    * @return The column of the square.
+    */
+   public int getCol(int k) {
+      return this.vertical ? this.col : this.col + k;
+   }
+
+   /**
+    * Indicates which way this ship runs.
+    *
+    * @return True if this ship runs down the grid. False if it runs across.
+    */
+   public boolean isVertical() {
+      return this.vertical;
+   }
+
+   /**
+    * Records a hit on a square of this ship that had not been hit before.
+    *
+    * @return True if that sank the ship. False otherwise.
+    */
+   public boolean hit() {
+      this.afloat--;
+      return this.afloat == 0;
+   }
+
+   /**
+    * Indicates whether every square of this ship has been hit.
+    *
+    * @return True if the ship has sunk. False otherwise.
+    */
+   public boolean isSunk() {
+      return this.afloat == 0;
+   }
+}